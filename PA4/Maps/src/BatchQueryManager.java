@@ -0,0 +1,227 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * This class answers many fastest route, longest road or range queries over a single graph which is read once.
+ * Queries are read from a file in chunks, chunks are answered in parallel on a pool of worker threads,
+ * and answers are written to the output in the same order as the queries as soon as they are ready.
+ */
+public class BatchQueryManager {
+    private static final int QUERIES_PER_CHUNK = 256; //Number of queries answered by a worker at once
+    private static final int CHUNKS_PER_WORKER = 4; //Number of chunks waiting to be written per worker, bounds memory
+
+    /**
+     * Answers the fastest route queries in the query file and writes answers to the output in query order.
+     * Each non-empty line of query file is a query at structure ("<DepartureCity>\t<ArrivalCity>").
+     * Graph is only read by workers, each worker creates its own route finder once and reuses it for all its queries.
+     *
+     * @param graph          a graph containing all roads connecting the cities
+     * @param queryFilePath  the path of the file to read the queries from
+     * @param output         the output to write the answers to
+     * @param threadCount    the number of worker threads
+     * @param routeFinders   the creator of a route finder for each worker thread
+     */
+    public static void answerRouteQueries(RoadGraph graph, String queryFilePath, OutputSink output, int threadCount, Supplier<RouteFinder> routeFinders) {
+        //Route finder of each worker thread, created once per thread
+        ThreadLocal<RouteFinder> workerRouteFinders = ThreadLocal.withInitial(routeFinders);
+        answerQueries(queryFilePath, output, threadCount, queries -> answerChunk(graph, queries, workerRouteFinders.get()));
+    }
+
+    /**
+     * Answers the longest road queries in the query file and writes answers to the output in query order.
+     * Each non-empty line of query file is a query at structure ("<DepartureCity>\t<ArrivalCity>"),
+     * whose answer is the longest road on the route between the cities on the barely connected map.
+     *
+     * @param treeIndex      the spanning tree index of the barely connected map
+     * @param queryFilePath  the path of the file to read the queries from
+     * @param output         the output to write the answers to
+     * @param threadCount    the number of worker threads
+     */
+    public static void answerLongestRoadQueries(SpanningTreeIndex treeIndex, String queryFilePath, OutputSink output, int threadCount) {
+        answerQueries(queryFilePath, output, threadCount, queries -> answerLongestRoadChunk(treeIndex, queries));
+    }
+
+    /**
+     * Answers the range queries in the query file and writes answers to the output in query order.
+     * Each non-empty line of query file is a query at structure ("<DepartureCity>\t<MaxDistance>"), whose answer is
+     * every city whose fastest route from the departure city is not longer than the distance, nearest first.
+     * Each worker keeps a search space sized to the largest region it searched and reuses it for all its queries.
+     *
+     * @param graph          a graph containing all roads connecting the cities
+     * @param queryFilePath  the path of the file to read the queries from
+     * @param output         the output to write the answers to
+     * @param threadCount    the number of worker threads
+     */
+    public static void answerRangeQueries(RoadGraph graph, String queryFilePath, OutputSink output, int threadCount) {
+        //Search space of each worker thread, created once per thread
+        ThreadLocal<RegionSearchSpace> workerSearchSpaces = ThreadLocal.withInitial(RegionSearchSpace::new);
+        answerQueries(queryFilePath, output, threadCount, queries -> answerRangeChunk(graph, queries, workerSearchSpaces.get()));
+    }
+
+    /**
+     * Reads the queries in the query file in chunks, answers chunks on worker threads and writes answers to the output in query order.
+     * Terminates the program if the query file cannot be read, answering is interrupted, a query is not at structure
+     * or a worker thread fails, since the answers after it cannot be written. Answers written before are flushed first.
+     *
+     * @param queryFilePath  the path of the file to read the queries from
+     * @param output         the output to write the answers to
+     * @param threadCount    the number of worker threads
+     * @param chunkAnswerer  the function answering a chunk of query lines on a worker thread, it returns the answers as a single text
+     */
+    private static void answerQueries(String queryFilePath, OutputSink output, int threadCount, Function<ArrayList<String>, String> chunkAnswerer) {
+        ExecutorService workers = Executors.newFixedThreadPool(threadCount);
+        //Answers of chunks in query order, which are being answered or waiting to be written
+        ArrayDeque<Future<String>> pendingAnswers = new ArrayDeque<>();
+
+        try (BufferedReader reader = Files.newBufferedReader(Paths.get(queryFilePath))) {
+
+            ArrayList<String> chunk = new ArrayList<>(QUERIES_PER_CHUNK);
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.trim().isEmpty()) { //Discards empty lines
+                    continue;
+                }
+                chunk.add(line.trim());
+
+                if (chunk.size() == QUERIES_PER_CHUNK) { //Chunk is full, gives it to a worker
+                    ArrayList<String> queries = chunk;
+                    pendingAnswers.add(workers.submit(() -> chunkAnswerer.apply(queries)));
+                    chunk = new ArrayList<>(QUERIES_PER_CHUNK);
+
+                    //Writes the oldest answers if too many chunks are waiting
+                    while (pendingAnswers.size() > CHUNKS_PER_WORKER * threadCount) {
+                        output.write(pendingAnswers.poll().get());
+                    }
+                }
+            }
+            if (!chunk.isEmpty()) { //Last chunk which is not full
+                ArrayList<String> queries = chunk;
+                pendingAnswers.add(workers.submit(() -> chunkAnswerer.apply(queries)));
+            }
+            while (!pendingAnswers.isEmpty()) { //Writes the rest of answers in order
+                output.write(pendingAnswers.poll().get());
+            }
+
+        } catch (IOException e) { //Answers would be missing without any sign
+            e.printStackTrace();
+            output.flush();
+            System.out.printf("ERROR: Query file \"%s\" cannot be read. Program is going to terminate!%n", queryFilePath);
+            System.exit(1);
+        } catch (ExecutionException e) {
+            output.flush();
+            if (e.getCause() instanceof IllegalArgumentException) { //A query is not at structure
+                System.out.printf("ERROR: %s Program is going to terminate!%n", e.getCause().getMessage());
+            } else {
+                e.getCause().printStackTrace();
+                System.out.printf("ERROR: Queries cannot be answered, a worker thread failed. Program is going to terminate!%n");
+            }
+            System.exit(1);
+        } catch (InterruptedException e) { //Rest of the chunks are not written, so the answers would be cut silently
+            Thread.currentThread().interrupt();
+            output.flush();
+            System.out.printf("ERROR: Queries cannot be answered, answering is interrupted. Program is going to terminate!%n");
+            System.exit(1);
+        } finally {
+            workers.shutdownNow();
+        }
+    }
+
+    /**
+     * Answers the given queries in order and returns all answers as a single text.
+     *
+     * @param graph       a graph containing all roads connecting the cities
+     * @param queries     query lines at structure ("<DepartureCity>\t<ArrivalCity>")
+     * @param routeFinder the route finder of the worker thread
+     * @return answers of the queries, each line ends with a new line
+     */
+    private static String answerChunk(RoadGraph graph, ArrayList<String> queries, RouteFinder routeFinder) {
+        StringBuilder answers = new StringBuilder();
+        for (String query : queries) {
+            String[] departureAndArrival = query.split("\t");
+            String departureCity = departureAndArrival[0];
+            String arrivalCity = departureAndArrival.length > 1 ? departureAndArrival[1] : "";
+            int departure = graph.getCityId(departureCity);
+            int arrival = graph.getCityId(arrivalCity);
+
+            //Unknown cities and cities in different parts of the map are answered without searching
+            if (departure == -1 || arrival == -1 || !graph.getReachabilityIndex().isReachable(departure, arrival)) {
+                OutputManager.appendNoRouteInformation(answers, graph, departureCity, arrivalCity);
+                continue;
+            }
+            Route route = routeFinder.findFastestRoute(departure, arrival);
+            OutputManager.appendFastestRouteInformation(answers, graph, departureCity, arrivalCity, route.getDistance(), route.getRoads(), false);
+        }
+        return answers.toString();
+    }
+
+    /**
+     * Answers the given range queries in order and returns all answers as a single text.
+     * Reached cities are appended as the search finds them, so no list of them is kept.
+     *
+     * @param graph       a graph containing all roads connecting the cities
+     * @param queries     query lines at structure ("<DepartureCity>\t<MaxDistance>")
+     * @param searchSpace the search space of the worker thread
+     * @return answers of the queries, each line ends with a new line
+     * @throws IllegalArgumentException if a maximum distance is not a number, which is reported by the reading thread
+     */
+    private static String answerRangeChunk(RoadGraph graph, ArrayList<String> queries, RegionSearchSpace searchSpace) {
+        StringBuilder answers = new StringBuilder();
+        for (String query : queries) {
+            String[] departureAndDistance = query.split("\t");
+            String departureCity = departureAndDistance[0];
+            int maxDistance;
+            try {
+                maxDistance = Integer.parseInt(departureAndDistance.length > 1 ? departureAndDistance[1].trim() : "");
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException(String.format("Range query \"%s\" has no maximum distance.", query), e);
+            }
+            int departure = graph.getCityId(departureCity);
+
+            if (departure == -1) { //Unknown city is answered without searching
+                answers.append(String.format("There is no city named %s!", departureCity)).append('\n');
+                continue;
+            }
+            OutputManager.appendCitiesWithinTitle(answers, departureCity, maxDistance);
+            MapManager.findCitiesWithin(graph, departure, maxDistance, searchSpace,
+                    (city, distance) -> OutputManager.appendReachedCity(answers, graph, city, distance));
+        }
+        return answers.toString();
+    }
+
+    /**
+     * Answers the given longest road queries in order and returns all answers as a single text.
+     *
+     * @param treeIndex the spanning tree index of the barely connected map
+     * @param queries   query lines at structure ("<DepartureCity>\t<ArrivalCity>")
+     * @return answers of the queries, each line ends with a new line
+     */
+    private static String answerLongestRoadChunk(SpanningTreeIndex treeIndex, ArrayList<String> queries) {
+        RoadGraph forest = treeIndex.getForest();
+        StringBuilder answers = new StringBuilder();
+        for (String query : queries) {
+            String[] departureAndArrival = query.split("\t");
+            String departureCity = departureAndArrival[0];
+            String arrivalCity = departureAndArrival.length > 1 ? departureAndArrival[1] : "";
+            int departure = forest.getCityId(departureCity);
+            int arrival = forest.getCityId(arrivalCity);
+
+            //Unknown cities and cities in different parts of the map have no route
+            if (departure == -1 || arrival == -1 || !treeIndex.isConnected(departure, arrival)) {
+                OutputManager.appendNoRouteInformation(answers, forest, departureCity, arrivalCity);
+                continue;
+            }
+            OutputManager.appendLongestRoadInformation(answers, forest, departureCity, arrivalCity, treeIndex.findLongestRoad(departure, arrival));
+        }
+        return answers.toString();
+    }
+}
@@ -0,0 +1,306 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * This class keeps the betweenness centrality of cities and roads, how many fastest routes between other cities pass
+ * through each of them, found with Brandes' algorithm.
+ * From each source city, a search finds the distance and the number of fastest routes of every city, then cities are
+ * visited back in reverse order of being reached, and each city passes its share of routes to the cities before it.
+ * Routes of equal length are all counted, each one a fraction of the routes between its two ends, and a zero length
+ * road is followed only from the city reached first, so routes do not go around in circles.
+ * Sources are shared among worker threads in turns, each worker adds its routes to its own scores, and scores of workers
+ * are added up in the same order at the end, so the result is the same on every run with the same number of threads.
+ * In the approximate mode only a sample of source cities is searched and scores are scaled up by the sampled fraction.
+ */
+public class BetweennessCentrality {
+    private static final long SOURCE_SAMPLE_SEED = 42; //Seed of sampled source cities, the same sources are used in every run
+
+    private final double[] cityScores; //Betweenness of each city
+    private final double[] roadScores; //Betweenness of each road
+    private final int sourceCount; //Number of source cities searched
+
+    /**
+     * Constructs the centrality with the given scores.
+     *
+     * @param cityScores  betweenness of each city
+     * @param roadScores  betweenness of each road
+     * @param sourceCount the number of source cities searched
+     */
+    private BetweennessCentrality(double[] cityScores, double[] roadScores, int sourceCount) {
+        this.cityScores = cityScores;
+        this.roadScores = roadScores;
+        this.sourceCount = sourceCount;
+    }
+
+    /**
+     * Finds the betweenness of every city and road of the given graph, exactly from every city, or approximately from
+     * the given number of randomly sampled cities. A route between two cities is counted once, not in both directions.
+     * Terminates the program if a worker thread fails.
+     *
+     * @param graph       a graph containing all roads connecting the cities
+     * @param sampleCount the number of sampled source cities, 0 or at least the number of cities for the exact centrality
+     * @param threadCount the number of worker threads
+     * @return the betweenness centrality of the graph
+     */
+    public static BetweennessCentrality compute(RoadGraph graph, int sampleCount, int threadCount) {
+        int cityCount = graph.getCityCount();
+        int[] sources = new int[cityCount];
+        for (int city = 0; city < cityCount; city++) {
+            sources[city] = city;
+        }
+        if (sampleCount > 0 && sampleCount < cityCount) { //Chooses different sources by a partial shuffle
+            Random random = new Random(SOURCE_SAMPLE_SEED);
+            for (int i = 0; i < sampleCount; i++) {
+                int j = i + random.nextInt(cityCount - i);
+                int source = sources[i];
+                sources[i] = sources[j];
+                sources[j] = source;
+            }
+            sources = Arrays.copyOf(sources, sampleCount);
+        }
+
+        double[] cityScores = new double[cityCount];
+        double[] roadScores = new double[graph.getRoadCount()];
+        int workerCount = Math.max(1, Math.min(threadCount, sources.length));
+        ExecutorService workers = Executors.newFixedThreadPool(workerCount);
+        try {
+            //Worker w searches from sources w, w + workerCount, w + 2 * workerCount...
+            ArrayList<Future<SourceSearch>> searches = new ArrayList<>();
+            int[] allSources = sources;
+            for (int worker = 0; worker < workerCount; worker++) {
+                int firstSource = worker;
+                searches.add(workers.submit(() -> {
+                    SourceSearch search = new SourceSearch(graph);
+                    for (int i = firstSource; i < allSources.length; i += workerCount) {
+                        search.addRoutesFrom(allSources[i]);
+                    }
+                    return search;
+                }));
+            }
+            for (Future<SourceSearch> search : searches) { //Adds scores of workers in order
+                search.get().addScoresTo(cityScores, roadScores);
+            }
+
+        } catch (ExecutionException | InterruptedException e) { //Scores of the rest of sources are missing, so they would be wrong
+            e.printStackTrace();
+            System.out.printf("ERROR: Betweenness cannot be found, a worker thread failed. Program is going to terminate!%n");
+            System.exit(1);
+        } finally {
+            workers.shutdownNow();
+        }
+
+        //Each route is found from both of its ends when all sources are searched, sampled sources stand for all cities
+        double scale = 0.5 * cityCount / Math.max(1, sources.length);
+        for (int city = 0; city < cityCount; city++) {
+            cityScores[city] *= scale;
+        }
+        for (int road = 0; road < roadScores.length; road++) {
+            roadScores[road] *= scale;
+        }
+        return new BetweennessCentrality(cityScores, roadScores, sources.length);
+    }
+
+    /**
+     * Returns the betweenness of the given city.
+     *
+     * @param city the ID of the city
+     * @return the betweenness of the city
+     */
+    public double getCityScore(int city) {
+        return cityScores[city];
+    }
+
+    /**
+     * Returns the betweenness of the given road.
+     *
+     * @param road the road index
+     * @return the betweenness of the road
+     */
+    public double getRoadScore(int road) {
+        return roadScores[road];
+    }
+
+    /**
+     * Returns the number of source cities searched, which is the number of cities if the centrality is exact.
+     *
+     * @return the number of source cities
+     */
+    public int getSourceCount() {
+        return sourceCount;
+    }
+
+    /**
+     * Returns the cities with the highest betweenness, cities with equal betweenness in order of ID.
+     *
+     * @param count the number of cities to return
+     * @return IDs of the cities in descending order of betweenness
+     */
+    public int[] getTopCities(int count) {
+        return getTopIndices(cityScores, count);
+    }
+
+    /**
+     * Returns the roads with the highest betweenness, roads with equal betweenness in order of index.
+     *
+     * @param count the number of roads to return
+     * @return road indices of the roads in descending order of betweenness
+     */
+    public int[] getTopRoads(int count) {
+        return getTopIndices(roadScores, count);
+    }
+
+    /**
+     * Returns the indices of the highest scores, keeping only the current best indices in a heap whose root is the worst.
+     *
+     * @param scores the score of each index
+     * @param count  the number of indices to return
+     * @return the indices in descending order of score, equal scores in ascending order of index
+     */
+    private static int[] getTopIndices(double[] scores, int count) {
+        count = Math.max(0, Math.min(count, scores.length));
+        //Worst index first, which is the lower score, or the higher index if scores are equal
+        PriorityQueue<Integer> bestIndices = new PriorityQueue<>(Math.max(1, count), (first, second) ->
+                scores[first] != scores[second] ? Double.compare(scores[first], scores[second]) : Integer.compare(second, first));
+        for (int index = 0; index < scores.length && count > 0; index++) {
+            bestIndices.add(index);
+            if (bestIndices.size() > count) {
+                bestIndices.poll();
+            }
+        }
+        int[] topIndices = new int[bestIndices.size()];
+        for (int i = topIndices.length - 1; i >= 0; i--) {
+            topIndices[i] = bestIndices.poll();
+        }
+        return topIndices;
+    }
+
+    /**
+     * This class keeps the arrays of single source searches of a worker thread and the scores it adds up.
+     * Arrays are cleared after each search only for the cities it reached, so they are reused for all sources.
+     */
+    private static class SourceSearch {
+        private static final int NOT_FOUND = -2; //Reach order of a city which is not found by the search
+        private static final int FOUND = -1; //Reach order of a city which is found but not reached yet
+
+        private final RoadGraph graph;
+        private final long[] distances; //Distance of each city from the source
+        private final double[] routeCounts; //Number of fastest routes from the source to each city
+        private final double[] dependencies; //Share of each city in fastest routes from the source to cities after it
+        private final int[] reachOrders; //Order each city is reached, NOT_FOUND or FOUND if it is not reached
+        private final int[] reachedCities; //Cities in order of being reached
+        private final IndexedMinHeap possibleCities;
+        private final double[] cityScores; //Scores added by this worker
+        private final double[] roadScores;
+
+        /**
+         * Constructs the arrays of searches over the given graph.
+         *
+         * @param graph a graph containing all roads connecting the cities
+         */
+        private SourceSearch(RoadGraph graph) {
+            this.graph = graph;
+            int cityCount = graph.getCityCount();
+            distances = new long[cityCount];
+            routeCounts = new double[cityCount];
+            dependencies = new double[cityCount];
+            reachOrders = new int[cityCount];
+            Arrays.fill(reachOrders, NOT_FOUND);
+            reachedCities = new int[cityCount];
+            possibleCities = new IndexedMinHeap(cityCount);
+            cityScores = new double[cityCount];
+            roadScores = new double[graph.getRoadCount()];
+        }
+
+        /**
+         * Counts fastest routes from the source city to every city, then adds the share of each city and road
+         * in those routes to the scores, visiting cities back from the farthest one.
+         * Counts of the search are added to {@code MetricsManager} when it ends.
+         *
+         * @param source the ID of the source city
+         */
+        private void addRoutesFrom(int source) {
+            possibleCities.clear();
+            distances[source] = 0;
+            routeCounts[source] = 1;
+            reachOrders[source] = FOUND;
+            possibleCities.insert(source, 0);
+            int reachedCount = 0;
+            int relaxedEdgeCount = 0;
+            int heapOperationCount = 1;
+
+            while (!possibleCities.isEmpty()) {
+                int city = possibleCities.pollMin();
+                reachOrders[city] = reachedCount;
+                reachedCities[reachedCount++] = city;
+
+                for (int edge = graph.getEdgeOffset(city); edge < graph.getEdgeOffset(city + 1); edge++) {
+                    int nextCity = graph.getEdgeTarget(edge);
+                    if (reachOrders[nextCity] >= 0) { //Neighbor is already reached
+                        continue;
+                    }
+                    long distance = distances[city] + graph.getEdgeLength(edge);
+                    relaxedEdgeCount++;
+                    if (reachOrders[nextCity] == NOT_FOUND) { //Neighbor is found for the first time
+                        reachOrders[nextCity] = FOUND;
+                        distances[nextCity] = distance;
+                        routeCounts[nextCity] = routeCounts[city];
+                        possibleCities.insert(nextCity, distance);
+                        heapOperationCount++;
+                    } else if (distance < distances[nextCity]) { //Shorter routes replace the routes found before
+                        distances[nextCity] = distance;
+                        routeCounts[nextCity] = routeCounts[city];
+                        possibleCities.decreaseKey(nextCity, distance);
+                        heapOperationCount++;
+                    } else if (distance == distances[nextCity]) { //Routes of equal length are added
+                        routeCounts[nextCity] += routeCounts[city];
+                    }
+                }
+            }
+            MetricsManager.addSearchCounts(reachedCount, relaxedEdgeCount, heapOperationCount + reachedCount);
+
+            //Each city passes its share to the cities before it on fastest routes, in proportion to their routes
+            for (int i = reachedCount - 1; i >= 0; i--) {
+                int city = reachedCities[i];
+                double share = (1 + dependencies[city]) / routeCounts[city];
+                for (int edge = graph.getEdgeOffset(city); edge < graph.getEdgeOffset(city + 1); edge++) {
+                    int previousCity = graph.getEdgeTarget(edge);
+                    if (reachOrders[previousCity] >= 0 && reachOrders[previousCity] < reachOrders[city] && distances[previousCity] + graph.getEdgeLength(edge) == distances[city]) {
+                        double routeShare = routeCounts[previousCity] * share;
+                        dependencies[previousCity] += routeShare;
+                        roadScores[graph.getEdgeRoad(edge)] += routeShare;
+                    }
+                }
+                if (city != source) {
+                    cityScores[city] += dependencies[city];
+                }
+            }
+
+            //Clears only the cities reached by this search
+            for (int i = 0; i < reachedCount; i++) {
+                reachOrders[reachedCities[i]] = NOT_FOUND;
+                dependencies[reachedCities[i]] = 0;
+            }
+        }
+
+        /**
+         * Adds the scores of this worker to the given scores.
+         *
+         * @param totalCityScores the scores of cities of all workers
+         * @param totalRoadScores the scores of roads of all workers
+         */
+        private void addScoresTo(double[] totalCityScores, double[] totalRoadScores) {
+            for (int city = 0; city < cityScores.length; city++) {
+                totalCityScores[city] += cityScores[city];
+            }
+            for (int road = 0; road < roadScores.length; road++) {
+                totalRoadScores[road] += roadScores[road];
+            }
+        }
+    }
+}
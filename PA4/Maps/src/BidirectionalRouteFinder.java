@@ -0,0 +1,148 @@
+/**
+ * This class finds fastest routes by searching from both the departure and the arrival city at the same time.
+ * Two searches meet in the middle, so each of them visits cities only about half the route length away,
+ * instead of one search visiting all cities the whole route length away.
+ * Roads are two-way, so the search from the arrival city is the same search on the same graph.
+ * After the length of the fastest route is found, cities that may be on a fastest route are visited again from
+ * the departure city, directed by the distances found by the search from the arrival city,
+ * so that routes of equal length are chosen the same as the standard search.
+ */
+public class BidirectionalRouteFinder extends GoalDirectedRouteFinder {
+    private final ShortestPathTree backwardTree;
+    private final IndexedMinHeap backwardPossibleCities;
+    private int backwardFrontier; //Least distance not visited yet by the search from the arrival city
+    private int visitedCityCount;
+    private int relaxedEdgeCount; //Roads relaxed by both searches meeting in the middle
+    private int heapOperationCount; //Heap operations of both searches meeting in the middle
+
+    /**
+     * Constructs a route finder over the given graph.
+     *
+     * @param graph a graph containing all roads connecting the cities
+     */
+    public BidirectionalRouteFinder(RoadGraph graph) {
+        super(graph);
+        backwardTree = new ShortestPathTree(graph.getCityCount());
+        backwardPossibleCities = new IndexedMinHeap(graph.getCityCount());
+    }
+
+    /**
+     * Finds the fastest route from the departure city to the arrival city.
+     *
+     * @param departure the ID of the departure city
+     * @param arrival   the ID of the arrival city
+     * @return the fastest route, null if arrival city cannot be reached
+     */
+    @Override
+    public Route findFastestRoute(int departure, int arrival) {
+        if (!graph.getReachabilityIndex().isReachable(departure, arrival)) { //Arrival city cannot be reached
+            visitedCityCount = 0;
+            return null;
+        }
+        long routeDistance = findRouteDistance(departure, arrival);
+        visitedCityCount = tree.getReachedCount() + backwardTree.getReachedCount();
+        if (routeDistance == Long.MAX_VALUE) { //Searches did not meet, cities are not connected
+            return null;
+        }
+        Route route = searchWithPotential(departure, arrival, routeDistance);
+        visitedCityCount += super.getVisitedCityCount();
+        return route;
+    }
+
+    /**
+     * Finds the length of the fastest route by searching from both cities, always moving the search whose next city is nearer.
+     * Every time a search finds a city already found by the other one, a route through that city is known.
+     * Search stops when no route through unvisited cities can be shorter than the shortest known route.
+     * Counts of both searches are added to {@code MetricsManager} when they end.
+     *
+     * @param departure the ID of the departure city
+     * @param arrival   the ID of the arrival city
+     * @return the length of the fastest route, Long.MAX_VALUE if cities are not connected
+     */
+    private long findRouteDistance(int departure, int arrival) {
+        tree.clear(departure);
+        possibleCities.clear();
+        possibleCities.insert(departure, 0);
+        backwardTree.clear(arrival);
+        backwardPossibleCities.clear();
+        backwardPossibleCities.insert(arrival, 0);
+        long routeDistance = departure == arrival ? 0 : Long.MAX_VALUE;
+        relaxedEdgeCount = 0;
+        heapOperationCount = 2;
+
+        while (!possibleCities.isEmpty() && !backwardPossibleCities.isEmpty()
+                && possibleCities.peekKey() + backwardPossibleCities.peekKey() < routeDistance) {
+            if (possibleCities.peekKey() <= backwardPossibleCities.peekKey()) {
+                routeDistance = visitNextCity(tree, possibleCities, backwardTree, backwardPossibleCities, routeDistance);
+            } else {
+                routeDistance = visitNextCity(backwardTree, backwardPossibleCities, tree, possibleCities, routeDistance);
+            }
+        }
+        //Cities not visited from the arrival city are at least this far from it
+        backwardFrontier = backwardPossibleCities.isEmpty() ? UNREACHABLE : (int) backwardPossibleCities.peekKey();
+        MetricsManager.addSearchCounts(tree.getReachedCount() + backwardTree.getReachedCount(), relaxedEdgeCount, heapOperationCount);
+        return routeDistance;
+    }
+
+    /**
+     * Visits the nearest city of one search and updates distances of its neighbors.
+     *
+     * @param tree                the tree of the search
+     * @param possibleCities      the heap of the search
+     * @param otherTree           the tree of the other search
+     * @param otherPossibleCities the heap of the other search
+     * @param routeDistance       the length of the shortest known route
+     * @return the length of the shortest known route after the visit
+     */
+    private long visitNextCity(ShortestPathTree tree, IndexedMinHeap possibleCities, ShortestPathTree otherTree, IndexedMinHeap otherPossibleCities, long routeDistance) {
+        int city = possibleCities.pollMin();
+        tree.markReached(city);
+        heapOperationCount++;
+
+        for (int edge = graph.getEdgeOffset(city); edge < graph.getEdgeOffset(city + 1); edge++) {
+            int nextCity = graph.getEdgeTarget(edge); //The other end (neighbor end)
+            int distance = tree.getDistance(city) + graph.getEdgeLength(edge);
+            if (otherTree.isReached(nextCity) || otherPossibleCities.contains(nextCity)) { //A route through the road is known
+                routeDistance = Math.min(routeDistance, (long) distance + otherTree.getDistance(nextCity));
+            }
+
+            if (tree.isReached(nextCity)) { //Neighbor is already visited
+                continue;
+            }
+            relaxedEdgeCount++;
+            if (!possibleCities.contains(nextCity)) { //Neighbor is found for the first time
+                possibleCities.insert(nextCity, distance);
+                tree.addCity(nextCity, distance, graph.getEdgeRoad(edge), city);
+                heapOperationCount++;
+            } else if (distance < tree.getDistance(nextCity)) { //Neighbor is found with a shorter distance
+                possibleCities.decreaseKey(nextCity, distance);
+                tree.setParent(nextCity, distance, graph.getEdgeRoad(edge), city);
+                heapOperationCount++;
+            }
+        }
+        return routeDistance;
+    }
+
+    /**
+     * Returns the distance from the given city to the arrival city if it is visited by the search from the arrival city,
+     * otherwise the least distance not visited yet by that search, which is not more than the real distance.
+     *
+     * @param city    the ID of the city
+     * @param arrival the ID of the arrival city
+     * @return the potential of the city, UNREACHABLE if arrival city cannot be reached from the city
+     */
+    @Override
+    protected int getPotential(int city, int arrival) {
+        return backwardTree.isReached(city) ? backwardTree.getDistance(city) : backwardFrontier;
+    }
+
+    /**
+     * Returns the number of cities visited by both searches meeting in the middle and the directed search after them.
+     *
+     * @return the number of cities visited by the last search
+     */
+    @Override
+    public int getVisitedCityCount() {
+        return visitedCityCount;
+    }
+}
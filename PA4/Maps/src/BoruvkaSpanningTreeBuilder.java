@@ -0,0 +1,158 @@
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.function.IntConsumer;
+
+/**
+ * This class finds the barely connected map with Boruvka's algorithm on a fork/join pool.
+ * In each round, every connected part of the map finds its cheapest road to another part in parallel,
+ * then all these roads are taken at once, so the number of parts at least halves every round.
+ * Roads are compared by their rank in ascending order of length and ID, so the result is the same as Kruskal's.
+ */
+public class BoruvkaSpanningTreeBuilder implements SpanningTreeBuilder {
+    private static final int CITIES_PER_TASK = 4096; //Cities below this count are processed in a single task
+    private static final int NO_ROAD = Integer.MAX_VALUE; //Rank meaning that no road is found yet
+
+    private final ForkJoinPool pool;
+
+    /**
+     * Constructs a builder running on the common fork/join pool.
+     */
+    public BoruvkaSpanningTreeBuilder() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Constructs a builder running on the given fork/join pool.
+     *
+     * @param pool the pool to run parallel tasks on
+     */
+    public BoruvkaSpanningTreeBuilder(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Finds the roads of the minimum spanning tree of the given graph, or of the minimum spanning forest if it is not connected.
+     *
+     * @param graph a graph containing all roads connecting the cities
+     * @return road indices of the roads that form the barely connected map
+     */
+    @Override
+    public int[] findSpanningTreeRoads(RoadGraph graph) {
+        int cityCount = graph.getCityCount();
+
+        //Rank of each road in ascending order of length and ID, smaller rank is cheaper
+        int[] sortedRoads = graph.getRoadsSortedByLength();
+        int[] roadRanks = new int[sortedRoads.length];
+        for (int rank = 0; rank < sortedRoads.length; rank++) {
+            roadRanks[sortedRoads[rank]] = rank;
+        }
+
+        UnionFind connectedCities = new UnionFind(cityCount);
+        int[] parts = new int[cityCount]; //Root city of the part each city belongs to
+        int[] nextEdges = new int[cityCount]; //First edge of each city that may leave its part
+        AtomicIntegerArray cheapestRanks = new AtomicIntegerArray(cityCount); //Cheapest leaving road of each part
+        for (int city = 0; city < cityCount; city++) {
+            parts[city] = city;
+            nextEdges[city] = graph.getEdgeOffset(city);
+            cheapestRanks.set(city, NO_ROAD);
+        }
+
+        //A spanning forest has one road less than its cities for each connected part
+        int[] spanningTreeRoads = new int[cityCount - graph.getReachabilityIndex().getComponentCount()];
+        int roadCount = 0;
+
+        while (roadCount != spanningTreeRoads.length) { //While parts can still be connected
+            //Each city offers its cheapest road leaving its part to the part
+            pool.invoke(new CityRangeTask(0, cityCount, city -> offerCheapestRoad(graph, roadRanks, parts, nextEdges, cheapestRanks, city)));
+
+            //Takes the cheapest road of every part
+            for (int part = 0; part < cityCount; part++) {
+                if (parts[part] != part || cheapestRanks.get(part) == NO_ROAD) { //Not a part root, or part cannot be extended
+                    continue;
+                }
+                int road = sortedRoads[cheapestRanks.get(part)];
+                cheapestRanks.set(part, NO_ROAD);
+                //Two parts may choose the same road, it is taken once
+                if (connectedCities.union(graph.getRoadFirstEnd(road), graph.getRoadSecondEnd(road))) {
+                    spanningTreeRoads[roadCount++] = road;
+                }
+            }
+
+            //Labels each city with the root of its new part, forest is only read so it is safe in parallel
+            pool.invoke(new CityRangeTask(0, cityCount, city -> parts[city] = connectedCities.peekRoot(city)));
+        }
+        return spanningTreeRoads;
+    }
+
+    /**
+     * Finds the cheapest road of the given city that leaves its part and offers it as the cheapest road of the part.
+     * Edges of a city are sorted by rank, and a road inside a part never leaves it again,
+     * so the search continues from where it stopped in the previous round.
+     *
+     * @param graph         a graph containing all roads connecting the cities
+     * @param roadRanks     rank of each road in ascending order of length and ID
+     * @param parts         root city of the part each city belongs to
+     * @param nextEdges     first edge of each city that may leave its part
+     * @param cheapestRanks cheapest road rank offered to each part so far
+     * @param city          the ID of the city
+     */
+    private static void offerCheapestRoad(RoadGraph graph, int[] roadRanks, int[] parts, int[] nextEdges, AtomicIntegerArray cheapestRanks, int city) {
+        int part = parts[city];
+        int edge = nextEdges[city];
+        int lastEdge = graph.getEdgeOffset(city + 1);
+        while (edge < lastEdge && parts[graph.getEdgeTarget(edge)] == part) { //Skips roads inside the part
+            edge++;
+        }
+        nextEdges[city] = edge;
+        if (edge == lastEdge) { //City has no road leaving its part
+            return;
+        }
+
+        int rank = roadRanks[graph.getEdgeRoad(edge)];
+        int currentRank = cheapestRanks.get(part);
+        while (rank < currentRank && !cheapestRanks.compareAndSet(part, currentRank, rank)) { //Another city changed it
+            currentRank = cheapestRanks.get(part);
+        }
+    }
+
+    /**
+     * This class is a fork/join task applying an action to each city in a range,
+     * splitting the range into halves until it is small enough.
+     */
+    private static class CityRangeTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int firstCity;
+        private final int lastCity;
+        private final IntConsumer action;
+
+        /**
+         * Constructs a task for the cities in range [firstCity, lastCity).
+         *
+         * @param firstCity the first city ID of the range
+         * @param lastCity  the city ID after the last city of the range
+         * @param action    the action to apply to each city
+         */
+        CityRangeTask(int firstCity, int lastCity, IntConsumer action) {
+            this.firstCity = firstCity;
+            this.lastCity = lastCity;
+            this.action = action;
+        }
+
+        /**
+         * Applies the action to the cities, or splits the range into two tasks if it is large.
+         */
+        @Override
+        protected void compute() {
+            if (lastCity - firstCity <= CITIES_PER_TASK) {
+                for (int city = firstCity; city < lastCity; city++) {
+                    action.accept(city);
+                }
+            } else {
+                int middleCity = (firstCity + lastCity) >>> 1;
+                invokeAll(new CityRangeTask(firstCity, middleCity, action), new CityRangeTask(middleCity, lastCity, action));
+            }
+        }
+    }
+}
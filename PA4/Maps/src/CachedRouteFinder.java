@@ -0,0 +1,45 @@
+/**
+ * This class finds fastest routes from complete shortest path trees kept in a cache,
+ * so a route from a departure city whose tree is kept is rebuilt in O(route length).
+ */
+public class CachedRouteFinder implements RouteFinder {
+    private final RoadGraph graph;
+    private final ShortestPathTreeCache cache;
+
+    /**
+     * Constructs a route finder taking trees from the given cache.
+     *
+     * @param graph a graph containing all roads connecting the cities
+     * @param cache the cache of shortest path trees of the graph, it may be shared by several route finders
+     */
+    public CachedRouteFinder(RoadGraph graph, ShortestPathTreeCache cache) {
+        this.graph = graph;
+        this.cache = cache;
+    }
+
+    /**
+     * Finds the fastest route from the departure city to the arrival city.
+     *
+     * @param departure the ID of the departure city
+     * @param arrival   the ID of the arrival city
+     * @return the fastest route, null if arrival city cannot be reached
+     */
+    @Override
+    public Route findFastestRoute(int departure, int arrival) {
+        if (!graph.getReachabilityIndex().isReachable(departure, arrival)) { //No tree is searched for an unreachable city
+            return null;
+        }
+        ShortestPathTree tree = cache.getTree(departure);
+        return tree.isReached(arrival) ? new Route(tree.getDistance(arrival), tree.getRoute(arrival)) : null;
+    }
+
+    /**
+     * Returns zero, as routes are taken from trees which are already searched.
+     *
+     * @return zero
+     */
+    @Override
+    public int getVisitedCityCount() {
+        return 0;
+    }
+}
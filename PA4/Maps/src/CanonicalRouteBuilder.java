@@ -0,0 +1,173 @@
+import java.util.Arrays;
+
+/**
+ * This class chooses, among fastest routes of equal length, the same route that {@code MapManager.findShortestPathTree} finds.
+ * That search reaches cities in order of (distance, order of being found), and a city is found in order of
+ * (the order the city before it is reached, position of the road in that city's sorted roads).
+ * Given exact distances of a set of cities which has every city on every fastest route to the arrival city,
+ * this order is rebuilt by sweeping the cities in ascending order of distance, only over roads lying on fastest routes.
+ * Searches which do not reach cities in that order, such as goal-directed ones, use it to choose the same route.
+ */
+public class CanonicalRouteBuilder {
+    private final RoadGraph graph;
+    private final int[] localIndices; //Index of each city in the given set, -1 if city is not in the set
+
+    /**
+     * Constructs a route builder over the given graph.
+     *
+     * @param graph a graph containing all roads connecting the cities
+     */
+    public CanonicalRouteBuilder(RoadGraph graph) {
+        this.graph = graph;
+        localIndices = new int[graph.getCityCount()];
+        Arrays.fill(localIndices, -1);
+    }
+
+    /**
+     * Builds the fastest route from departure to arrival city, choosing among equal routes the one the standard search chooses.
+     * Pre-condition: Given cities must have every city on every fastest route from departure to arrival city,
+     * and their distances from departure city must be exact.
+     *
+     * @param departure  the ID of the departure city
+     * @param arrival    the ID of the arrival city
+     * @param cities     IDs of the cities with exact distances
+     * @param distances  distance of each given city from the departure city, in the same order
+     * @param cityCount  the number of given cities
+     * @return road indices of the route in order from departure to arrival, null if arrival city is not in the set
+     */
+    public int[] buildRoute(int departure, int arrival, int[] cities, int[] distances, int cityCount) {
+        for (int i = 0; i < cityCount; i++) {
+            localIndices[cities[i]] = i;
+        }
+        try {
+            if (localIndices[departure] == -1 || localIndices[arrival] == -1) { //Route cannot be built
+                return null;
+            }
+            int[] parentEdges = findParentEdges(departure, cities, distances, cityCount);
+            return followParentEdges(departure, arrival, parentEdges);
+
+        } finally { //Clears only the written part of the index array
+            for (int i = 0; i < cityCount; i++) {
+                localIndices[cities[i]] = -1;
+            }
+        }
+    }
+
+    /**
+     * Finds the road that leads to each city in the standard search, by reaching cities in the same order as it.
+     * Cities with equal distances are reached in order of (reach order of the city before, road position).
+     * Cities found through zero length roads from a city with the same distance are found after all others, in order.
+     *
+     * @param departure the ID of the departure city
+     * @param cities    IDs of the cities with exact distances
+     * @param distances distance of each given city from the departure city
+     * @param cityCount the number of given cities
+     * @return the edge leading to each city by local index, -1 for departure city and cities not on a fastest route
+     */
+    private int[] findParentEdges(int departure, int[] cities, int[] distances, int cityCount) {
+        //Local indices in ascending order of distance
+        long[] distanceOrder = new long[cityCount];
+        for (int i = 0; i < cityCount; i++) {
+            distanceOrder[i] = ((long) distances[i] << 32) | i;
+        }
+        Arrays.sort(distanceOrder);
+
+        int[] parentEdges = new int[cityCount]; //Edge of the city before, that finds the city first
+        int[] parentRanks = new int[cityCount]; //Reach order of the city before
+        boolean[] isFound = new boolean[cityCount];
+        int[] queue = new int[cityCount]; //Cities of current distance in the order they are reached
+        Arrays.fill(parentEdges, -1);
+
+        int departureIndex = localIndices[departure];
+        isFound[departureIndex] = true;
+        int rank = 0;
+
+        for (int groupStart = 0; groupStart < cityCount; ) {
+            int distance = (int) (distanceOrder[groupStart] >>> 32);
+            int groupEnd = groupStart;
+            while (groupEnd < cityCount && (int) (distanceOrder[groupEnd] >>> 32) == distance) {
+                groupEnd++;
+            }
+
+            //Cities of this distance already found by cities with shorter distances, in order of being found
+            long[] foundOrder = new long[groupEnd - groupStart];
+            int queueEnd = 0;
+            for (int i = groupStart; i < groupEnd; i++) {
+                int city = (int) distanceOrder[i];
+                if (city != departureIndex && isFound[city]) {
+                    foundOrder[i - groupStart] = ((long) parentRanks[city] << 32) | parentEdges[city];
+                } else { //Departure city is reached before all others, other cities are not found yet
+                    foundOrder[i - groupStart] = Long.MAX_VALUE;
+                    if (city == departureIndex) {
+                        queue[queueEnd++] = city;
+                    }
+                }
+            }
+            Arrays.sort(foundOrder);
+            for (long order : foundOrder) {
+                if (order == Long.MAX_VALUE) {
+                    break;
+                }
+                queue[queueEnd++] = localIndices[graph.getEdgeTarget((int) order)];
+            }
+
+            //Reaches cities in order, zero length roads may add cities of the same distance to the end of queue
+            for (int queueStart = 0; queueStart < queueEnd; queueStart++) {
+                int city = queue[queueStart];
+                int cityRank = rank++;
+                for (int edge = graph.getEdgeOffset(cities[city]); edge < graph.getEdgeOffset(cities[city] + 1); edge++) {
+                    int nextCity = localIndices[graph.getEdgeTarget(edge)];
+                    if (nextCity == -1 || isFound[nextCity] || (long) distances[city] + graph.getEdgeLength(edge) != distances[nextCity]) {
+                        continue; //Not in the set, already found, or road is not on a fastest route
+                    }
+                    isFound[nextCity] = true;
+                    parentEdges[nextCity] = edge;
+                    parentRanks[nextCity] = cityRank;
+                    if (distances[nextCity] == distance) { //Zero length road, city has the same distance
+                        queue[queueEnd++] = nextCity;
+                    }
+                }
+            }
+            groupStart = groupEnd;
+        }
+        return parentEdges;
+    }
+
+    /**
+     * Rebuilds the route by following edges leading to each city back from the arrival city.
+     *
+     * @param departure   the ID of the departure city
+     * @param arrival     the ID of the arrival city
+     * @param parentEdges the edge leading to each city by local index
+     * @return road indices of the route in order from departure to arrival, null if arrival city is not found
+     */
+    private int[] followParentEdges(int departure, int arrival, int[] parentEdges) {
+        int roadCount = 0;
+        for (int city = arrival; city != departure; roadCount++) {
+            int edge = parentEdges[localIndices[city]];
+            if (edge == -1) { //Arrival city is not on a fastest route of the set
+                return null;
+            }
+            city = getOtherEnd(edge, city);
+        }
+        int[] route = new int[roadCount];
+        for (int city = arrival; city != departure; ) {
+            int edge = parentEdges[localIndices[city]];
+            route[--roadCount] = graph.getEdgeRoad(edge);
+            city = getOtherEnd(edge, city);
+        }
+        return route;
+    }
+
+    /**
+     * Returns the city at the other end of the road of the given edge.
+     *
+     * @param edge the edge index
+     * @param city the ID of the city at one end of the road
+     * @return the ID of the city at the other end
+     */
+    private int getOtherEnd(int edge, int city) {
+        int road = graph.getEdgeRoad(edge);
+        return graph.getRoadFirstEnd(road) == city ? graph.getRoadSecondEnd(road) : graph.getRoadFirstEnd(road);
+    }
+}
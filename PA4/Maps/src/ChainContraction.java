@@ -0,0 +1,329 @@
+import java.util.Arrays;
+
+/**
+ * This class represents a reduced road map, in which chains of pass-through cities are collapsed into shortcut roads.
+ * Of several roads between the same two cities only the shortest one is kept, ties broken by road ID as in sorted roads.
+ * After that, a city with exactly two neighbors is a pass-through city, and every other city is a core city.
+ * A chain is a sequence of roads between two core cities through pass-through cities only, so a search
+ * over core cities follows a whole chain as a single shortcut road instead of road by road.
+ * A ring of pass-through cities only has no core city, so its first city is taken as a core city.
+ * Each chain keeps its pass-through cities, their distances from the start of the chain and its roads in order,
+ * so a route over shortcut roads is expanded back to the original roads.
+ * Contraction is only read after it is built, so it can be shared by route finders of several threads.
+ */
+public class ChainContraction {
+    private final int[] cityChains; //Chain of each pass-through city, -1 for core cities
+    private final int[] citySlots; //Position of each pass-through city in chainCities
+    private final int[] chainStarts; //Core city at the start of each chain
+    private final int[] chainEnds; //Core city at the end of each chain
+    private final int[] chainLengths; //Total length of the roads of each chain
+    private final int[] chainCityOffsets; //Pass-through cities of chain c are in range [chainCityOffsets[c], chainCityOffsets[c + 1])
+    private final int[] chainCities; //Pass-through cities of all chains, each chain in order from its start
+    private final int[] chainPositions; //Distance of each pass-through city from the start of its chain, same order
+    private final int[] chainRoads; //Roads of chain c in order from its start are in range [chainCityOffsets[c] + c, chainCityOffsets[c + 1] + c + 1)
+    private final int[] coreEdgeOffsets; //Chains of core city c are in range [coreEdgeOffsets[c], coreEdgeOffsets[c + 1])
+    private final int[] coreEdgeChains;
+    private final int coreCityCount;
+
+    /**
+     * Constructs a contraction from the given chains.
+     *
+     * @param cityChains       chain of each pass-through city, -1 for core cities
+     * @param citySlots        position of each pass-through city in chain cities
+     * @param chainStarts      core city at the start of each chain
+     * @param chainEnds        core city at the end of each chain
+     * @param chainLengths     total length of the roads of each chain
+     * @param chainCityOffsets offsets of pass-through city slices of chains
+     * @param chainCities      pass-through cities of all chains in order
+     * @param chainPositions   distance of each pass-through city from the start of its chain
+     * @param chainRoads       roads of all chains in order
+     * @param coreEdgeOffsets  offsets of chain slices of core cities
+     * @param coreEdgeChains   chains of all core cities
+     * @param coreCityCount    the number of core cities
+     */
+    private ChainContraction(int[] cityChains, int[] citySlots, int[] chainStarts, int[] chainEnds, int[] chainLengths,
+                             int[] chainCityOffsets, int[] chainCities, int[] chainPositions, int[] chainRoads,
+                             int[] coreEdgeOffsets, int[] coreEdgeChains, int coreCityCount) {
+        this.cityChains = cityChains;
+        this.citySlots = citySlots;
+        this.chainStarts = chainStarts;
+        this.chainEnds = chainEnds;
+        this.chainLengths = chainLengths;
+        this.chainCityOffsets = chainCityOffsets;
+        this.chainCities = chainCities;
+        this.chainPositions = chainPositions;
+        this.chainRoads = chainRoads;
+        this.coreEdgeOffsets = coreEdgeOffsets;
+        this.coreEdgeChains = coreEdgeChains;
+        this.coreCityCount = coreCityCount;
+    }
+
+    /**
+     * Keeps the shortest road to each neighbor of every city, then collapses chains of pass-through cities.
+     * Roads of a city are sorted by (length, ID, index), so the first road to a neighbor is the one kept.
+     * Roads from a city to itself are never on a fastest route, so they are not kept.
+     *
+     * @param graph a graph containing all roads connecting the cities
+     * @return the contraction of the graph
+     */
+    public static ChainContraction build(RoadGraph graph) {
+        int cityCount = graph.getCityCount();
+        int[] degrees = new int[cityCount]; //Number of different neighbors of each city
+        int[] neighborEdges = new int[2 * cityCount]; //Kept edges to the first two neighbors of each city
+        int[] lastSources = new int[cityCount]; //City whose roads last reached each city, to skip longer parallel roads
+        Arrays.fill(lastSources, -1);
+        for (int city = 0; city < cityCount; city++) {
+            for (int edge = graph.getEdgeOffset(city); edge < graph.getEdgeOffset(city + 1); edge++) {
+                int nextCity = graph.getEdgeTarget(edge);
+                if (nextCity == city || lastSources[nextCity] == city) { //Road to itself, or a longer road to the same neighbor
+                    continue;
+                }
+                lastSources[nextCity] = city;
+                if (degrees[city] < 2) {
+                    neighborEdges[2 * city + degrees[city]] = edge;
+                }
+                degrees[city]++;
+            }
+        }
+
+        int[] cityChains = new int[cityCount];
+        int[] citySlots = new int[cityCount];
+        Arrays.fill(cityChains, -1);
+        boolean[] isCore = new boolean[cityCount];
+        int coreCityCount = 0;
+        for (int city = 0; city < cityCount; city++) {
+            isCore[city] = degrees[city] != 2;
+            coreCityCount += isCore[city] ? 1 : 0;
+        }
+
+        //A chain has a road more than its pass-through cities, and there are not more chains than roads
+        int maxChainCount = graph.getRoadCount();
+        int[] chainStarts = new int[maxChainCount];
+        int[] chainEnds = new int[maxChainCount];
+        int[] chainLengths = new int[maxChainCount];
+        int[] chainCityOffsets = new int[maxChainCount + 1];
+        int[] chainCities = new int[cityCount];
+        int[] chainPositions = new int[cityCount];
+        int[] chainRoads = new int[cityCount + maxChainCount];
+        int chainCount = 0;
+        int chainCityCount = 0;
+
+        //Chains are followed from core cities first, then from pass-through cities that are still not in a chain
+        for (int pass = 0; pass < 2; pass++) {
+            for (int city = 0; city < cityCount; city++) {
+                if (pass == 0 ? !isCore[city] : degrees[city] != 2 || cityChains[city] != -1) {
+                    continue;
+                }
+                if (pass == 1) { //Pass-through city which is not reached from a core city, so it is on a ring without core cities
+                    isCore[city] = true;
+                    coreCityCount++;
+                }
+                for (int edge = graph.getEdgeOffset(city); edge < graph.getEdgeOffset(city + 1); edge++) {
+                    int nextCity = graph.getEdgeTarget(edge);
+                    if (nextCity == city || lastSources[nextCity] == -2 - city) { //Road to itself, or a longer road to the same neighbor
+                        continue;
+                    }
+                    lastSources[nextCity] = -2 - city; //Marks are below -1, so they differ from the marks of the degree count
+                    if (isCore[nextCity] ? nextCity < city : cityChains[nextCity] != -1) {
+                        continue; //Chain is already found from its other end
+                    }
+
+                    //Follows pass-through cities until a core city is reached
+                    chainCityOffsets[chainCount] = chainCityCount;
+                    chainRoads[chainCityCount + chainCount] = graph.getEdgeRoad(edge);
+                    int position = graph.getEdgeLength(edge);
+                    int previousCity = city;
+                    int currentCity = nextCity;
+                    while (!isCore[currentCity]) {
+                        cityChains[currentCity] = chainCount;
+                        citySlots[currentCity] = chainCityCount;
+                        chainCities[chainCityCount] = currentCity;
+                        chainPositions[chainCityCount++] = position;
+                        int nextEdge = neighborEdges[2 * currentCity];
+                        if (graph.getEdgeTarget(nextEdge) == previousCity) {
+                            nextEdge = neighborEdges[2 * currentCity + 1];
+                        }
+                        chainRoads[chainCityCount + chainCount] = graph.getEdgeRoad(nextEdge);
+                        position += graph.getEdgeLength(nextEdge);
+                        previousCity = currentCity;
+                        currentCity = graph.getEdgeTarget(nextEdge);
+                    }
+                    chainStarts[chainCount] = city;
+                    chainEnds[chainCount] = currentCity;
+                    chainLengths[chainCount++] = position;
+                }
+            }
+        }
+        chainCityOffsets[chainCount] = chainCityCount;
+
+        //Chains of each core city, a chain from a city back to itself is never on a fastest route between core cities
+        int[] coreEdgeOffsets = new int[cityCount + 1];
+        for (int chain = 0; chain < chainCount; chain++) {
+            if (chainStarts[chain] != chainEnds[chain]) {
+                coreEdgeOffsets[chainStarts[chain] + 1]++;
+                coreEdgeOffsets[chainEnds[chain] + 1]++;
+            }
+        }
+        for (int city = 0; city < cityCount; city++) {
+            coreEdgeOffsets[city + 1] += coreEdgeOffsets[city];
+        }
+        int[] coreEdgeChains = new int[coreEdgeOffsets[cityCount]];
+        int[] nextPositions = Arrays.copyOf(coreEdgeOffsets, cityCount);
+        for (int chain = 0; chain < chainCount; chain++) {
+            if (chainStarts[chain] != chainEnds[chain]) {
+                coreEdgeChains[nextPositions[chainStarts[chain]]++] = chain;
+                coreEdgeChains[nextPositions[chainEnds[chain]]++] = chain;
+            }
+        }
+
+        return new ChainContraction(cityChains, citySlots, Arrays.copyOf(chainStarts, chainCount), Arrays.copyOf(chainEnds, chainCount),
+                Arrays.copyOf(chainLengths, chainCount), Arrays.copyOf(chainCityOffsets, chainCount + 1), chainCities, chainPositions,
+                Arrays.copyOf(chainRoads, chainCityCount + chainCount), coreEdgeOffsets, coreEdgeChains, coreCityCount);
+    }
+
+    /**
+     * Returns the number of core cities, the cities a search over shortcut roads visits.
+     *
+     * @return the number of core cities
+     */
+    public int getCoreCityCount() {
+        return coreCityCount;
+    }
+
+    /**
+     * Returns the number of chains, each of which is a shortcut road between core cities.
+     *
+     * @return the number of chains
+     */
+    public int getChainCount() {
+        return chainStarts.length;
+    }
+
+    /**
+     * Returns the chain of the given city.
+     *
+     * @param city the ID of the city
+     * @return the chain the city passes through, -1 if the city is a core city
+     */
+    public int getCityChain(int city) {
+        return cityChains[city];
+    }
+
+    /**
+     * Returns the distance of the given pass-through city from the start of its chain.
+     * Pre-condition: City must be a pass-through city.
+     *
+     * @param city the ID of the city
+     * @return the distance of the city from the start of its chain
+     */
+    public int getCityPosition(int city) {
+        return chainPositions[citySlots[city]];
+    }
+
+    /**
+     * Returns the city before the given pass-through city in its chain, towards the start of the chain.
+     * Pre-condition: City must be a pass-through city.
+     *
+     * @param city the ID of the city
+     * @return the ID of the city before
+     */
+    public int getPreviousCity(int city) {
+        int slot = citySlots[city];
+        return slot == chainCityOffsets[cityChains[city]] ? chainStarts[cityChains[city]] : chainCities[slot - 1];
+    }
+
+    /**
+     * Returns the city after the given pass-through city in its chain, towards the end of the chain.
+     * Pre-condition: City must be a pass-through city.
+     *
+     * @param city the ID of the city
+     * @return the ID of the city after
+     */
+    public int getNextCity(int city) {
+        int slot = citySlots[city];
+        return slot + 1 == chainCityOffsets[cityChains[city] + 1] ? chainEnds[cityChains[city]] : chainCities[slot + 1];
+    }
+
+    /**
+     * Returns the road between the given pass-through city and the city before it in its chain.
+     * Pre-condition: City must be a pass-through city.
+     *
+     * @param city the ID of the city
+     * @return the road index of the road before the city
+     */
+    public int getPreviousRoad(int city) {
+        return chainRoads[citySlots[city] + cityChains[city]];
+    }
+
+    /**
+     * Returns the road between the given pass-through city and the city after it in its chain.
+     * Pre-condition: City must be a pass-through city.
+     *
+     * @param city the ID of the city
+     * @return the road index of the road after the city
+     */
+    public int getNextRoad(int city) {
+        return chainRoads[citySlots[city] + cityChains[city] + 1];
+    }
+
+    /**
+     * Returns the roads of the given chain in order from its start to its end, the original roads of its shortcut road.
+     *
+     * @param chain the chain
+     * @return road indices of the chain in order
+     */
+    public int[] expandChain(int chain) {
+        return Arrays.copyOfRange(chainRoads, chainCityOffsets[chain] + chain, chainCityOffsets[chain + 1] + chain + 1);
+    }
+
+    /**
+     * Returns the core city at the start of the given chain.
+     *
+     * @param chain the chain
+     * @return the ID of the start city
+     */
+    public int getChainStart(int chain) {
+        return chainStarts[chain];
+    }
+
+    /**
+     * Returns the core city at the end of the given chain.
+     *
+     * @param chain the chain
+     * @return the ID of the end city
+     */
+    public int getChainEnd(int chain) {
+        return chainEnds[chain];
+    }
+
+    /**
+     * Returns the total length of the roads of the given chain, the length of its shortcut road.
+     *
+     * @param chain the chain
+     * @return the length of the chain
+     */
+    public int getChainLength(int chain) {
+        return chainLengths[chain];
+    }
+
+    /**
+     * Returns the position of the first chain of the given core city. Chains of city c are in range
+     * [getCoreEdgeOffset(c), getCoreEdgeOffset(c + 1)). Chains from a city back to itself are not included.
+     *
+     * @param city the ID of the core city
+     * @return the position of the first chain of the city
+     */
+    public int getCoreEdgeOffset(int city) {
+        return coreEdgeOffsets[city];
+    }
+
+    /**
+     * Returns the chain at the given position of chains of core cities.
+     *
+     * @param coreEdge the position of the chain
+     * @return the chain
+     */
+    public int getCoreEdgeChain(int coreEdge) {
+        return coreEdgeChains[coreEdge];
+    }
+}
@@ -0,0 +1,239 @@
+/**
+ * This class finds fastest routes over a map whose chains of pass-through cities are collapsed into shortcut roads.
+ * Search visits only core cities, following each chain as a single road, until every core city not farther than
+ * the arrival city is visited. Distance of a pass-through city is then the least of the distances through the two
+ * ends of its chain, or along the chain itself if departure city is in the same chain.
+ * Cities on fastest routes are collected back from the arrival city over roads whose length is exactly the difference
+ * of the distances of their ends, so only these cities get distances, and the route is chosen among them by a
+ * {@code CanonicalRouteBuilder}, which expands shortcut roads back to original roads the same as the standard search.
+ */
+public class ChainRouteFinder implements RouteFinder {
+    private static final long UNKNOWN = Long.MAX_VALUE; //Distance of a city which is not on any fastest route found so far
+
+    private final RoadGraph graph;
+    private final ChainContraction contraction;
+    private final CanonicalRouteBuilder routeBuilder;
+    private final IndexedMinHeap possibleCities; //Core cities found but not visited yet, keyed by distance
+    private final int[] distances; //Distance of each core city found by the last search
+    private final boolean[] isVisited; //Whether the distance of each core city is exact
+    private final int[] touchedCities; //Core cities written by the last search, to clear them in O(touched)
+    private int touchedCount;
+    private final int[] routeCities; //Cities on fastest routes to the arrival city, in order of being collected
+    private final int[] routeDistances; //Distance of each city on fastest routes, same order
+    private final boolean[] isOnRoute;
+    private int departure;
+    private int visitedCityCount;
+    private int relaxedEdgeCount; //Shortcut roads relaxed by the last search
+    private int heapOperationCount; //Heap operations of the last search
+
+    /**
+     * Constructs a route finder over the given graph using the given contraction.
+     * Pre-condition: Contraction must be built for the same graph.
+     *
+     * @param graph       a graph containing all roads connecting the cities
+     * @param contraction the chain contraction of the graph, it may be shared by several route finders
+     */
+    public ChainRouteFinder(RoadGraph graph, ChainContraction contraction) {
+        this.graph = graph;
+        this.contraction = contraction;
+        int cityCount = graph.getCityCount();
+        routeBuilder = new CanonicalRouteBuilder(graph);
+        possibleCities = new IndexedMinHeap(cityCount);
+        distances = new int[cityCount];
+        isVisited = new boolean[cityCount];
+        touchedCities = new int[cityCount];
+        routeCities = new int[cityCount];
+        routeDistances = new int[cityCount];
+        isOnRoute = new boolean[cityCount];
+    }
+
+    /**
+     * Finds the fastest route from the departure city to the arrival city.
+     *
+     * @param departure the ID of the departure city
+     * @param arrival   the ID of the arrival city
+     * @return the fastest route, null if arrival city cannot be reached
+     */
+    @Override
+    public Route findFastestRoute(int departure, int arrival) {
+        clear();
+        this.departure = departure;
+        if (!graph.getReachabilityIndex().isReachable(departure, arrival)) { //Arrival city cannot be reached
+            return null;
+        }
+        long routeDistance = searchCoreCities(arrival);
+        if (routeDistance == UNKNOWN) {
+            return null;
+        }
+        int routeCityCount = collectRouteCities(arrival, (int) routeDistance);
+        int[] roads = routeBuilder.buildRoute(departure, arrival, routeCities, routeDistances, routeCityCount);
+        for (int i = 0; i < routeCityCount; i++) {
+            isOnRoute[routeCities[i]] = false;
+        }
+        return new Route((int) routeDistance, roads);
+    }
+
+    /**
+     * Visits core cities in ascending order of distance over shortcut roads, starting from the ends of the chain of
+     * departure city if it is a pass-through city, until every core city not farther than the arrival city is visited.
+     * Counts of the search are added to {@code MetricsManager} when it ends.
+     *
+     * @param arrival the ID of the arrival city
+     * @return the length of the fastest route, UNKNOWN if arrival city is not reached
+     */
+    private long searchCoreCities(int arrival) {
+        int departureChain = contraction.getCityChain(departure);
+        if (departureChain == -1) {
+            findCity(departure, 0);
+        } else { //Search starts from both ends of the chain at their distances along the chain
+            int position = contraction.getCityPosition(departure);
+            findCity(contraction.getChainStart(departureChain), position);
+            findCity(contraction.getChainEnd(departureChain), contraction.getChainLength(departureChain) - position);
+        }
+        int arrivalChain = contraction.getCityChain(arrival);
+        long routeDistance = arrivalChain == -1 ? UNKNOWN : getDistance(arrival); //Along the chain if both are in the same chain
+
+        while (!possibleCities.isEmpty() && possibleCities.peekKey() <= routeDistance) {
+            int city = possibleCities.pollMin();
+            isVisited[city] = true;
+            visitedCityCount++;
+            heapOperationCount++;
+            if (city == arrival) {
+                routeDistance = distances[city];
+            } else if (arrivalChain != -1 && (city == contraction.getChainStart(arrivalChain) || city == contraction.getChainEnd(arrivalChain))) {
+                routeDistance = Math.min(routeDistance, getDistance(arrival)); //Arrival city is reached through an end of its chain
+            }
+
+            for (int coreEdge = contraction.getCoreEdgeOffset(city); coreEdge < contraction.getCoreEdgeOffset(city + 1); coreEdge++) {
+                int chain = contraction.getCoreEdgeChain(coreEdge);
+                int nextCity = contraction.getChainStart(chain) == city ? contraction.getChainEnd(chain) : contraction.getChainStart(chain);
+                if (!isVisited[nextCity]) {
+                    relaxedEdgeCount++;
+                    findCity(nextCity, (long) distances[city] + contraction.getChainLength(chain));
+                }
+            }
+        }
+        MetricsManager.addSearchCounts(visitedCityCount, relaxedEdgeCount, heapOperationCount);
+        return routeDistance;
+    }
+
+    /**
+     * Adds the core city to the search with the given distance, or decreases its distance if it is shorter.
+     *
+     * @param city     the ID of the core city
+     * @param distance the distance of the city through the current city
+     */
+    private void findCity(int city, long distance) {
+        if (!possibleCities.contains(city)) {
+            if (isVisited[city]) {
+                return;
+            }
+            touchedCities[touchedCount++] = city;
+            possibleCities.insert(city, distance);
+            distances[city] = (int) distance;
+            heapOperationCount++;
+        } else if (distance < distances[city]) {
+            possibleCities.decreaseKey(city, distance);
+            distances[city] = (int) distance;
+            heapOperationCount++;
+        }
+    }
+
+    /**
+     * Returns the exact distance of the given city if it may be on a fastest route.
+     * Core cities have exact distances once they are visited. A pass-through city is reached through an end of its chain
+     * or along its chain from departure city, and an end farther than the arrival city cannot be on its fastest route.
+     *
+     * @param city the ID of the city
+     * @return the distance of the city, UNKNOWN if city is farther than every visited city
+     */
+    private long getDistance(int city) {
+        int chain = contraction.getCityChain(city);
+        if (chain == -1) {
+            return isVisited[city] ? distances[city] : UNKNOWN;
+        }
+        long distance = UNKNOWN;
+        int position = contraction.getCityPosition(city);
+        if (isVisited[contraction.getChainStart(chain)]) {
+            distance = (long) distances[contraction.getChainStart(chain)] + position;
+        }
+        if (isVisited[contraction.getChainEnd(chain)]) {
+            distance = Math.min(distance, (long) distances[contraction.getChainEnd(chain)] + contraction.getChainLength(chain) - position);
+        }
+        if (contraction.getCityChain(departure) == chain) {
+            distance = Math.min(distance, Math.abs(position - contraction.getCityPosition(departure)));
+        }
+        return distance;
+    }
+
+    /**
+     * Collects every city on every fastest route to the arrival city with its distance, going back from the arrival city
+     * over roads whose length is the difference of the distances of their ends.
+     * A pass-through city has only the two roads of its chain, so roads of its chain are followed instead of all its roads.
+     *
+     * @param arrival       the ID of the arrival city
+     * @param routeDistance the length of the fastest route
+     * @return the number of collected cities
+     */
+    private int collectRouteCities(int arrival, int routeDistance) {
+        int routeCityCount = 0;
+        routeCities[routeCityCount] = arrival;
+        routeDistances[routeCityCount++] = routeDistance;
+        isOnRoute[arrival] = true;
+        for (int i = 0; i < routeCityCount; i++) {
+            int city = routeCities[i];
+            int distance = routeDistances[i];
+            if (contraction.getCityChain(city) == -1) {
+                for (int edge = graph.getEdgeOffset(city); edge < graph.getEdgeOffset(city + 1); edge++) {
+                    routeCityCount = collectCity(graph.getEdgeTarget(edge), distance - (long) graph.getEdgeLength(edge), routeCityCount);
+                }
+            } else {
+                routeCityCount = collectCity(contraction.getPreviousCity(city), distance - (long) graph.getRoadLength(contraction.getPreviousRoad(city)), routeCityCount);
+                routeCityCount = collectCity(contraction.getNextCity(city), distance - (long) graph.getRoadLength(contraction.getNextRoad(city)), routeCityCount);
+            }
+        }
+        return routeCityCount;
+    }
+
+    /**
+     * Adds the city to the collected cities if it is not collected yet and its distance is the given one,
+     * so the road to the current city is on a fastest route.
+     *
+     * @param city           the ID of the city before the current city
+     * @param distance       the distance the city must have for the road to be on a fastest route
+     * @param routeCityCount the number of collected cities
+     * @return the new number of collected cities
+     */
+    private int collectCity(int city, long distance, int routeCityCount) {
+        if (!isOnRoute[city] && distance >= 0 && getDistance(city) == distance) {
+            isOnRoute[city] = true;
+            routeCities[routeCityCount] = city;
+            routeDistances[routeCityCount++] = (int) distance;
+        }
+        return routeCityCount;
+    }
+
+    /**
+     * Clears the search of the last query, only the cities written by it.
+     */
+    private void clear() {
+        for (int i = 0; i < touchedCount; i++) {
+            isVisited[touchedCities[i]] = false;
+        }
+        touchedCount = 0;
+        possibleCities.clear();
+        visitedCityCount = 0;
+        relaxedEdgeCount = 0;
+        heapOperationCount = 0;
+    }
+
+    /**
+     * Returns the number of core cities visited by the last search, pass-through cities are not visited.
+     *
+     * @return the number of cities visited by the last search
+     */
+    @Override
+    public int getVisitedCityCount() {
+        return visitedCityCount;
+    }
+}
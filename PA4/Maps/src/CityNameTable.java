@@ -0,0 +1,28 @@
+/**
+ * The CityNameTable interface provides a reference for tables that give each city name an integer ID and back.
+ */
+public interface CityNameTable {
+
+    /**
+     * Returns the number of cities in the table.
+     *
+     * @return the number of cities
+     */
+    int getCityCount();
+
+    /**
+     * Returns the name of the city with the given ID.
+     *
+     * @param city the ID of the city
+     * @return the name of the city
+     */
+    String getCityName(int city);
+
+    /**
+     * Returns the ID of the city with the given name.
+     *
+     * @param cityName the name of the city
+     * @return the ID of the city, -1 if there is no such a city
+     */
+    int getCityId(String cityName);
+}
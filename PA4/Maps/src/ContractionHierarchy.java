@@ -0,0 +1,170 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+/**
+ * This class represents a contraction hierarchy of a road map, an index that answers fastest route lengths
+ * by visiting only a few hundred cities instead of the whole map.
+ * Cities are ranked by importance, and for each city only its upward roads are kept, roads to more important cities,
+ * including shortcut roads that replace fastest routes through less important cities.
+ * Fastest route length between two cities is the least total length of two upward searches meeting at a city.
+ * Hierarchy is only read after it is built, so it can be shared by route finders of several threads.
+ */
+public class ContractionHierarchy {
+    private static final int FILE_MAGIC = 0x43484958; //Marks an index file, "CHIX" in ASCII
+    private static final int FILE_VERSION = 1;
+
+    private final long graphChecksum; //Checksum of the roads of the graph the hierarchy is built for
+    private final int[] upwardOffsets; //Upward roads of city c are in range [upwardOffsets[c], upwardOffsets[c + 1])
+    private final int[] upwardTargets; //More important city at the other end of each upward road
+    private final int[] upwardLengths; //Length of each upward road
+
+    /**
+     * Constructs a hierarchy from the given upward roads.
+     *
+     * @param graphChecksum checksum of the roads of the graph the hierarchy is built for
+     * @param upwardOffsets offsets of upward road slices of cities
+     * @param upwardTargets more important city at the other end of each upward road
+     * @param upwardLengths length of each upward road
+     */
+    ContractionHierarchy(long graphChecksum, int[] upwardOffsets, int[] upwardTargets, int[] upwardLengths) {
+        this.graphChecksum = graphChecksum;
+        this.upwardOffsets = upwardOffsets;
+        this.upwardTargets = upwardTargets;
+        this.upwardLengths = upwardLengths;
+    }
+
+    /**
+     * Calculates a checksum of all cities and roads of the given graph, so that an index file of another map is not used.
+     *
+     * @param graph a graph containing all roads connecting the cities
+     * @return the checksum of the graph
+     */
+    static long computeGraphChecksum(RoadGraph graph) {
+        long checksum = graph.getCityCount();
+        for (int road = 0; road < graph.getRoadCount(); road++) {
+            checksum = checksum * 31 + graph.getRoadFirstEnd(road);
+            checksum = checksum * 31 + graph.getRoadSecondEnd(road);
+            checksum = checksum * 31 + graph.getRoadLength(road);
+        }
+        return checksum;
+    }
+
+    /**
+     * Returns whether the hierarchy is built for the given graph.
+     *
+     * @param graph a graph containing all roads connecting the cities
+     * @return true if the hierarchy belongs to the graph, false otherwise
+     */
+    public boolean isBuiltFor(RoadGraph graph) {
+        return getCityCount() == graph.getCityCount() && graphChecksum == computeGraphChecksum(graph);
+    }
+
+    /**
+     * Writes the hierarchy to a binary index file, so that it is built once and read by later runs.
+     *
+     * @param path the path of the index file
+     */
+    public void writeToFile(String path) {
+        try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(path)))) {
+            output.writeInt(FILE_MAGIC);
+            output.writeInt(FILE_VERSION);
+            output.writeLong(graphChecksum);
+            output.writeInt(getCityCount());
+            output.writeInt(upwardTargets.length);
+            for (int offset : upwardOffsets) {
+                output.writeInt(offset);
+            }
+            for (int road = 0; road < upwardTargets.length; road++) {
+                output.writeInt(upwardTargets[road]);
+                output.writeInt(upwardLengths[road]);
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Reads a hierarchy written by {@code writeToFile}.
+     *
+     * @param path the path of the index file
+     * @return the hierarchy, null if the file cannot be read or is not an index file of this version
+     */
+    public static ContractionHierarchy readFromFile(String path) {
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(path)))) {
+            if (input.readInt() != FILE_MAGIC || input.readInt() != FILE_VERSION) { //Not an index file, or an old one
+                return null;
+            }
+            long graphChecksum = input.readLong();
+            int cityCount = input.readInt();
+            int upwardRoadCount = input.readInt();
+            int[] upwardOffsets = new int[cityCount + 1];
+            int[] upwardTargets = new int[upwardRoadCount];
+            int[] upwardLengths = new int[upwardRoadCount];
+            for (int city = 0; city <= cityCount; city++) {
+                upwardOffsets[city] = input.readInt();
+            }
+            for (int road = 0; road < upwardRoadCount; road++) {
+                upwardTargets[road] = input.readInt();
+                upwardLengths[road] = input.readInt();
+            }
+            return new ContractionHierarchy(graphChecksum, upwardOffsets, upwardTargets, upwardLengths);
+        } catch (IOException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * Returns the number of cities in the hierarchy.
+     *
+     * @return the number of cities
+     */
+    public int getCityCount() {
+        return upwardOffsets.length - 1;
+    }
+
+    /**
+     * Returns the number of upward roads, including shortcut roads.
+     *
+     * @return the number of upward roads
+     */
+    public int getUpwardRoadCount() {
+        return upwardTargets.length;
+    }
+
+    /**
+     * Returns the offset of the given city's upward road slice.
+     * Upward roads of city c are in range [getUpwardOffset(c), getUpwardOffset(c + 1)).
+     *
+     * @param city the ID of the city, or the city count for the end of the last slice
+     * @return the index of the first upward road of the city
+     */
+    public int getUpwardOffset(int city) {
+        return upwardOffsets[city];
+    }
+
+    /**
+     * Returns the more important city at the other end of the given upward road.
+     *
+     * @param upwardRoad the upward road index
+     * @return the ID of the neighbor city
+     */
+    public int getUpwardTarget(int upwardRoad) {
+        return upwardTargets[upwardRoad];
+    }
+
+    /**
+     * Returns the length of the given upward road.
+     *
+     * @param upwardRoad the upward road index
+     * @return the length of the road, or of the route it replaces
+     */
+    public int getUpwardLength(int upwardRoad) {
+        return upwardLengths[upwardRoad];
+    }
+}
@@ -0,0 +1,216 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * This class builds the contraction hierarchy of a road map.
+ * Cities are contracted one by one, least important first: a contracted city is removed from the map,
+ * and a shortcut road is added between two of its neighbors if the only fastest route between them passes through it.
+ * Importance of a city is the number of shortcuts its contraction adds minus the number of its roads,
+ * plus the number of its contracted neighbors, so that contraction spreads evenly over the map.
+ * Importance changes as neighbors are contracted, so it is calculated again when a city comes first, before contracting it.
+ */
+public class ContractionHierarchyBuilder {
+    private static final int WITNESS_SEARCH_LIMIT = 500; //Cities visited by a witness search at most
+
+    private final RoadGraph graph;
+    private final ArrayList<HashMap<Integer, Integer>> remainingRoads; //Shortest road to each remaining neighbor of each city
+    private final int[] contractedNeighborCounts;
+
+    private final long[] witnessDistances; //Distances found by the last witness search
+    private final int[] witnessTouchedCities; //Cities written by the last witness search, to clear them in O(touched)
+    private int witnessTouchedCount;
+    private final IndexedMinHeap witnessPossibleCities;
+
+    /**
+     * Constructs a builder for the given graph.
+     *
+     * @param graph a graph containing all roads connecting the cities
+     */
+    public ContractionHierarchyBuilder(RoadGraph graph) {
+        this.graph = graph;
+        int cityCount = graph.getCityCount();
+        remainingRoads = new ArrayList<>(cityCount);
+        for (int city = 0; city < cityCount; city++) {
+            HashMap<Integer, Integer> roads = new HashMap<>();
+            for (int edge = graph.getEdgeOffset(city); edge < graph.getEdgeOffset(city + 1); edge++) {
+                int neighbor = graph.getEdgeTarget(edge);
+                if (neighbor != city) { //Roads from a city to itself are never on a fastest route
+                    roads.merge(neighbor, graph.getEdgeLength(edge), Math::min); //Only the shortest of parallel roads is kept
+                }
+            }
+            remainingRoads.add(roads);
+        }
+        contractedNeighborCounts = new int[cityCount];
+        witnessDistances = new long[cityCount];
+        witnessTouchedCities = new int[cityCount];
+        witnessPossibleCities = new IndexedMinHeap(cityCount);
+        Arrays.fill(witnessDistances, Long.MAX_VALUE);
+    }
+
+    /**
+     * Contracts all cities in order of importance and builds the hierarchy of their upward roads.
+     * Upward roads of a city are its remaining roads when it is contracted, all of them lead to cities contracted later.
+     *
+     * @return the contraction hierarchy of the graph
+     */
+    public ContractionHierarchy build() {
+        int cityCount = graph.getCityCount();
+        int[][] upwardTargets = new int[cityCount][];
+        int[][] upwardLengths = new int[cityCount][];
+
+        IndexedMinHeap remainingCities = new IndexedMinHeap(cityCount);
+        for (int city = 0; city < cityCount; city++) {
+            remainingCities.insert(city, createOrderKey(computeImportance(city), city));
+        }
+
+        while (!remainingCities.isEmpty()) {
+            int city = remainingCities.pollMin();
+            long key = createOrderKey(computeImportance(city), city);
+            if (!remainingCities.isEmpty() && key > remainingCities.peekKey()) { //City became more important, waits for its turn
+                remainingCities.insert(city, key);
+                continue;
+            }
+
+            //Remaining roads of the city are its upward roads
+            HashMap<Integer, Integer> roads = remainingRoads.get(city);
+            upwardTargets[city] = new int[roads.size()];
+            upwardLengths[city] = new int[roads.size()];
+            int i = 0;
+            for (Map.Entry<Integer, Integer> road : roads.entrySet()) {
+                upwardTargets[city][i] = road.getKey();
+                upwardLengths[city][i++] = road.getValue();
+            }
+            contract(city);
+        }
+
+        //Places upward roads of cities in compressed sparse row form
+        int[] offsets = new int[cityCount + 1];
+        for (int city = 0; city < cityCount; city++) {
+            offsets[city + 1] = offsets[city] + upwardTargets[city].length;
+        }
+        int[] targets = new int[offsets[cityCount]];
+        int[] lengths = new int[offsets[cityCount]];
+        for (int city = 0; city < cityCount; city++) {
+            System.arraycopy(upwardTargets[city], 0, targets, offsets[city], upwardTargets[city].length);
+            System.arraycopy(upwardLengths[city], 0, lengths, offsets[city], upwardLengths[city].length);
+        }
+        return new ContractionHierarchy(ContractionHierarchy.computeGraphChecksum(graph), offsets, targets, lengths);
+    }
+
+    /**
+     * Creates the order key of a city, cities are contracted in ascending order of importance, and of ID if equal.
+     *
+     * @param importance the importance of the city
+     * @param city       the ID of the city
+     * @return the order key of the city, smaller key is contracted first
+     */
+    private static long createOrderKey(int importance, int city) {
+        return ((long) importance << 32) | city;
+    }
+
+    /**
+     * Calculates the importance of the given remaining city by simulating its contraction.
+     *
+     * @param city the ID of the city
+     * @return the importance of the city, less important cities are contracted first
+     */
+    private int computeImportance(int city) {
+        int shortcutCount = findShortcuts(city).size();
+        return shortcutCount - remainingRoads.get(city).size() + contractedNeighborCounts[city];
+    }
+
+    /**
+     * Removes the given city from the map, adding shortcut roads between its neighbors where needed.
+     *
+     * @param city the ID of the city
+     */
+    private void contract(int city) {
+        for (int[] shortcut : findShortcuts(city)) {
+            remainingRoads.get(shortcut[0]).merge(shortcut[1], shortcut[2], Math::min);
+            remainingRoads.get(shortcut[1]).merge(shortcut[0], shortcut[2], Math::min);
+        }
+        for (int neighbor : remainingRoads.get(city).keySet()) {
+            remainingRoads.get(neighbor).remove(city);
+            contractedNeighborCounts[neighbor]++;
+        }
+        remainingRoads.set(city, new HashMap<>());
+    }
+
+    /**
+     * Finds shortcut roads needed if the given city is contracted.
+     * For each pair of neighbors, a shortcut is needed unless a witness route not passing through the city,
+     * which is not longer than the route through it, is found. Witness searches are limited, so a shortcut
+     * may be added although it is not needed, which costs memory but never changes route lengths.
+     *
+     * @param city the ID of the city
+     * @return shortcuts as arrays of (first end city ID, second end city ID, length)
+     */
+    private ArrayList<int[]> findShortcuts(int city) {
+        HashMap<Integer, Integer> roads = remainingRoads.get(city);
+        int[] neighbors = new int[roads.size()];
+        int[] lengths = new int[roads.size()];
+        int neighborCount = 0;
+        for (Map.Entry<Integer, Integer> road : roads.entrySet()) {
+            neighbors[neighborCount] = road.getKey();
+            lengths[neighborCount++] = road.getValue();
+        }
+
+        ArrayList<int[]> shortcuts = new ArrayList<>();
+        for (int i = 0; i < neighborCount - 1; i++) {
+            long maxLength = 0; //Longest route through the city from this neighbor to a later one
+            for (int j = i + 1; j < neighborCount; j++) {
+                maxLength = Math.max(maxLength, (long) lengths[i] + lengths[j]);
+            }
+            searchWitnesses(neighbors[i], city, maxLength);
+            for (int j = i + 1; j < neighborCount; j++) {
+                long lengthThroughCity = (long) lengths[i] + lengths[j];
+                if (witnessDistances[neighbors[j]] > lengthThroughCity) { //Fastest route passes through the city
+                    shortcuts.add(new int[]{neighbors[i], neighbors[j], (int) lengthThroughCity});
+                }
+            }
+        }
+        return shortcuts;
+    }
+
+    /**
+     * Finds distances from the given city to nearby remaining cities without passing through the ignored city.
+     * Search stops at the given distance or after visiting a limited number of cities,
+     * distances of unvisited cities are lengths of some routes, not necessarily the fastest.
+     *
+     * @param source      the ID of the city to search from
+     * @param ignoredCity the ID of the city being contracted
+     * @param maxDistance the distance after which routes are not needed
+     */
+    private void searchWitnesses(int source, int ignoredCity, long maxDistance) {
+        for (int i = 0; i < witnessTouchedCount; i++) { //Clears the previous search
+            witnessDistances[witnessTouchedCities[i]] = Long.MAX_VALUE;
+        }
+        witnessTouchedCount = 0;
+        witnessPossibleCities.clear();
+
+        witnessDistances[source] = 0;
+        witnessTouchedCities[witnessTouchedCount++] = source;
+        witnessPossibleCities.insert(source, 0);
+        int visitedCount = 0;
+
+        while (!witnessPossibleCities.isEmpty() && witnessPossibleCities.peekKey() <= maxDistance && visitedCount++ < WITNESS_SEARCH_LIMIT) {
+            int city = witnessPossibleCities.pollMin();
+            for (Map.Entry<Integer, Integer> road : remainingRoads.get(city).entrySet()) {
+                int neighbor = road.getKey();
+                long distance = witnessDistances[city] + road.getValue();
+                if (neighbor == ignoredCity || distance >= witnessDistances[neighbor]) {
+                    continue;
+                }
+                if (witnessDistances[neighbor] == Long.MAX_VALUE) { //Neighbor is found for the first time
+                    witnessTouchedCities[witnessTouchedCount++] = neighbor;
+                    witnessPossibleCities.insert(neighbor, distance);
+                } else if (witnessPossibleCities.contains(neighbor)) {
+                    witnessPossibleCities.decreaseKey(neighbor, distance);
+                }
+                witnessDistances[neighbor] = distance;
+            }
+        }
+    }
+}
@@ -0,0 +1,179 @@
+import java.util.Arrays;
+
+/**
+ * This class finds fastest routes with a contraction hierarchy.
+ * An upward search from the arrival city gives the distance from each city it visits down to the arrival city.
+ * Distance of any other city to the arrival city is the least of (upward road length + distance of the upper city),
+ * since every fastest route in the hierarchy goes up and then down, so distances are found through upward roads
+ * and kept until the next query, each upper city being calculated once.
+ * Roads of the route are then found on the original map with A* search, using these exact distances as potentials,
+ * so only cities on fastest routes to the arrival city are visited,
+ * and routes of equal length are chosen the same as the standard search.
+ */
+public class ContractionHierarchyRouteFinder extends GoalDirectedRouteFinder {
+    private static final long NOT_CALCULATED = -1; //Distance of a city to the arrival city which is not calculated yet
+
+    private final ContractionHierarchy hierarchy;
+
+    private final long[] downwardDistances; //Distances from each city down to the arrival city, by upward search of the arrival city
+    private final long[] arrivalDistances; //Distances from each city to the arrival city, NOT_CALCULATED if not calculated yet
+    private final int[] touchedCities; //Cities written by the last query, to clear them in O(touched)
+    private int touchedCount;
+    private final IndexedMinHeap upwardPossibleCities;
+    private final int[] cityStack; //Cities waiting for distances of their upper cities
+    private final int[] nextUpwardRoads; //Next upward road of each city in the stack to calculate
+
+    /**
+     * Constructs a route finder over the given graph using the given hierarchy.
+     * Pre-condition: Hierarchy must be built for the same graph.
+     *
+     * @param graph     a graph containing all roads connecting the cities
+     * @param hierarchy the contraction hierarchy of the graph, it may be shared by several route finders
+     */
+    public ContractionHierarchyRouteFinder(RoadGraph graph, ContractionHierarchy hierarchy) {
+        super(graph);
+        this.hierarchy = hierarchy;
+        int cityCount = graph.getCityCount();
+        downwardDistances = new long[cityCount];
+        arrivalDistances = new long[cityCount];
+        touchedCities = new int[cityCount];
+        upwardPossibleCities = new IndexedMinHeap(cityCount);
+        cityStack = new int[cityCount];
+        nextUpwardRoads = new int[cityCount];
+        Arrays.fill(downwardDistances, Long.MAX_VALUE);
+        Arrays.fill(arrivalDistances, NOT_CALCULATED);
+    }
+
+    /**
+     * Finds the fastest route from the departure city to the arrival city.
+     *
+     * @param departure the ID of the departure city
+     * @param arrival   the ID of the arrival city
+     * @return the fastest route, null if arrival city cannot be reached
+     */
+    @Override
+    public Route findFastestRoute(int departure, int arrival) {
+        if (!graph.getReachabilityIndex().isReachable(departure, arrival)) { //Arrival city cannot be reached
+            return null;
+        }
+        for (int i = 0; i < touchedCount; i++) { //Clears distances of the previous query
+            downwardDistances[touchedCities[i]] = Long.MAX_VALUE;
+            arrivalDistances[touchedCities[i]] = NOT_CALCULATED;
+        }
+        touchedCount = 0;
+        searchUpward(arrival);
+
+        long routeDistance = findDistanceToArrival(departure);
+        if (routeDistance == Long.MAX_VALUE) { //Cities are not connected
+            return null;
+        }
+        return searchWithPotential(departure, arrival, routeDistance);
+    }
+
+    /**
+     * Returns the exact distance from the given city to the arrival city.
+     *
+     * @param city    the ID of the city
+     * @param arrival the ID of the arrival city
+     * @return the potential of the city, UNREACHABLE if arrival city cannot be reached from the city
+     */
+    @Override
+    protected int getPotential(int city, int arrival) {
+        long distance = findDistanceToArrival(city);
+        return distance == Long.MAX_VALUE ? UNREACHABLE : (int) distance;
+    }
+
+    /**
+     * Marks the given city as written by the current query, the first time it is written.
+     *
+     * @param city the ID of the city
+     */
+    private void touch(int city) {
+        if (downwardDistances[city] == Long.MAX_VALUE && arrivalDistances[city] == NOT_CALCULATED) {
+            touchedCities[touchedCount++] = city;
+        }
+    }
+
+    /**
+     * Searches from the arrival city through upward roads only, and finds distances of visited cities down to the arrival city.
+     * Counts of the search are added to {@code MetricsManager} when it ends.
+     *
+     * @param arrival the ID of the arrival city
+     */
+    private void searchUpward(int arrival) {
+        upwardPossibleCities.clear();
+        touch(arrival);
+        downwardDistances[arrival] = 0;
+        upwardPossibleCities.insert(arrival, 0);
+        int settledCityCount = 0;
+        int relaxedEdgeCount = 0;
+        int heapOperationCount = 1;
+
+        while (!upwardPossibleCities.isEmpty()) {
+            int city = upwardPossibleCities.pollMin();
+            settledCityCount++;
+            heapOperationCount++;
+            for (int road = hierarchy.getUpwardOffset(city); road < hierarchy.getUpwardOffset(city + 1); road++) {
+                int nextCity = hierarchy.getUpwardTarget(road);
+                long distance = downwardDistances[city] + hierarchy.getUpwardLength(road);
+                relaxedEdgeCount++;
+                if (distance >= downwardDistances[nextCity]) {
+                    continue;
+                }
+                if (downwardDistances[nextCity] == Long.MAX_VALUE) { //Neighbor is found for the first time
+                    touch(nextCity);
+                    upwardPossibleCities.insert(nextCity, distance);
+                } else {
+                    upwardPossibleCities.decreaseKey(nextCity, distance);
+                }
+                downwardDistances[nextCity] = distance;
+                heapOperationCount++;
+            }
+        }
+        MetricsManager.addSearchCounts(settledCityCount, relaxedEdgeCount, heapOperationCount);
+    }
+
+    /**
+     * Finds the distance from the given city to the arrival city, from distances of its upper cities.
+     * Upper cities whose distances are not calculated are calculated first, with a stack instead of recursion,
+     * upward roads never lead back to a lower city, so each city is put into the stack at most once.
+     *
+     * @param city the ID of the city
+     * @return the distance to the arrival city, Long.MAX_VALUE if arrival city cannot be reached
+     */
+    private long findDistanceToArrival(int city) {
+        if (arrivalDistances[city] != NOT_CALCULATED) {
+            return arrivalDistances[city];
+        }
+        int stackSize = 0;
+        cityStack[stackSize++] = city;
+        nextUpwardRoads[city] = hierarchy.getUpwardOffset(city);
+
+        while (stackSize > 0) {
+            int current = cityStack[stackSize - 1];
+            int road = nextUpwardRoads[current];
+            if (road < hierarchy.getUpwardOffset(current + 1)) { //Upper city of the next road must be calculated first
+                nextUpwardRoads[current]++;
+                int upperCity = hierarchy.getUpwardTarget(road);
+                if (arrivalDistances[upperCity] == NOT_CALCULATED) {
+                    cityStack[stackSize++] = upperCity;
+                    nextUpwardRoads[upperCity] = hierarchy.getUpwardOffset(upperCity);
+                }
+                continue;
+            }
+
+            //All upper cities are calculated, route either goes down from this city or up through an upper city
+            long distance = downwardDistances[current];
+            for (road = hierarchy.getUpwardOffset(current); road < hierarchy.getUpwardOffset(current + 1); road++) {
+                long upperDistance = arrivalDistances[hierarchy.getUpwardTarget(road)];
+                if (upperDistance != Long.MAX_VALUE) {
+                    distance = Math.min(distance, upperDistance + hierarchy.getUpwardLength(road));
+                }
+            }
+            touch(current);
+            arrivalDistances[current] = distance;
+            stackSize--;
+        }
+        return arrivalDistances[city];
+    }
+}
@@ -0,0 +1,314 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * This class finds fastest routes with delta-stepping, a search whose roads are relaxed in parallel on a fork-join pool.
+ * Cities are kept in buckets of distance width delta, and buckets are emptied in ascending order.
+ * Cities of the current bucket are relaxed together over their light roads (not longer than delta) until no city
+ * enters the bucket again, then over their heavy roads, which can only lead to later buckets.
+ * Distances are lowered with compare-and-set, so worker threads relax roads of different cities at the same time.
+ * Search stops after the bucket of the arrival city, then the route is chosen by a {@code CanonicalRouteBuilder}
+ * among the cities not farther than the arrival city, so that routes of equal length are chosen the same as the standard search.
+ * Counts of each search are added to {@code MetricsManager}, with cities put into and taken from buckets as heap operations.
+ */
+public class DeltaSteppingRouteFinder implements RouteFinder {
+    private static final int CITIES_PER_TASK = 1024; //Number of cities relaxed by a worker at once, smaller frontiers are relaxed without workers
+
+    private final RoadGraph graph;
+    private final ForkJoinPool workers;
+    private final int delta;
+    private final CanonicalRouteBuilder routeBuilder;
+
+    private final AtomicIntegerArray distances; //Distance of each city found by the last search, Integer.MAX_VALUE if not found
+    private final int[] foundCities; //Cities found by the last search, their distances are reset before the next search
+    private int foundCityCount;
+    private final int[] foundStamps; //Last search that found each city
+    private int searchStamp;
+    private final int[] phaseStamps; //Last relaxation phase that put each city into a bucket or frontier
+    private final int[] settledStamps; //Last bucket whose relaxed cities include each city, plus one
+    private int phaseStamp;
+    private int visitedCityCount;
+
+    private int[][] buckets; //Cities of each bucket, indexed cyclically by bucket index, cities may be stale
+    private int[] bucketSizes;
+    private int bucketCityCount; //Number of cities in all buckets, including stale ones
+    private int bucketOperationCount; //Number of cities put into and taken from buckets by the last search
+
+    /**
+     * Constructs a route finder over the given graph that relaxes roads on the given workers.
+     *
+     * @param graph   a graph containing all roads connecting the cities
+     * @param workers the pool of worker threads, it may be shared by several route finders
+     * @param delta   the distance width of buckets, at least 1
+     */
+    public DeltaSteppingRouteFinder(RoadGraph graph, ForkJoinPool workers, int delta) {
+        this.graph = graph;
+        this.workers = workers;
+        this.delta = delta;
+        routeBuilder = new CanonicalRouteBuilder(graph);
+        int cityCount = graph.getCityCount();
+        distances = new AtomicIntegerArray(cityCount);
+        for (int city = 0; city < cityCount; city++) {
+            distances.set(city, Integer.MAX_VALUE);
+        }
+        foundCities = new int[cityCount];
+        foundStamps = new int[cityCount];
+        phaseStamps = new int[cityCount];
+        settledStamps = new int[cityCount];
+
+        //A road leads at most (longest road / delta + 1) buckets ahead, so that many buckets are used cyclically
+        int longestRoad = 0;
+        for (int road = 0; road < graph.getRoadCount(); road++) {
+            longestRoad = Math.max(longestRoad, graph.getRoadLength(road));
+        }
+        int bucketCount = longestRoad / delta + 2;
+        buckets = new int[bucketCount][16];
+        bucketSizes = new int[bucketCount];
+    }
+
+    /**
+     * Returns a bucket width suitable for the given graph, the average road length.
+     *
+     * @param graph a graph containing all roads connecting the cities
+     * @return the bucket width, at least 1
+     */
+    public static int getDefaultDelta(RoadGraph graph) {
+        if (graph.getRoadCount() == 0) {
+            return 1;
+        }
+        return (int) Math.max(1, graph.getTotalRoadLength() / graph.getRoadCount());
+    }
+
+    /**
+     * Finds the fastest route from the departure city to the arrival city.
+     *
+     * @param departure the ID of the departure city
+     * @param arrival   the ID of the arrival city
+     * @return the fastest route, null if arrival city cannot be reached
+     */
+    @Override
+    public Route findFastestRoute(int departure, int arrival) {
+        clear();
+        if (!graph.getReachabilityIndex().isReachable(departure, arrival)) { //Arrival city cannot be reached
+            return null;
+        }
+        distances.set(departure, 0);
+        foundStamps[departure] = searchStamp;
+        foundCities[foundCityCount++] = departure;
+        addToBucket(departure, 0);
+
+        int[] settledCities = new int[16]; //Cities relaxed while emptying the current bucket
+        for (long bucket = 0; bucketCityCount > 0 && bucket * delta <= distances.get(arrival); bucket++) {
+            int[] frontier = takeBucket((int) (bucket % buckets.length), bucket);
+            int settledCount = 0;
+            while (frontier.length > 0) {
+                //Relaxed cities are kept once, a city entering the bucket again is relaxed again with its shorter distance
+                for (int city : frontier) {
+                    if (settledStamps[city] != bucket + 1) {
+                        settledStamps[city] = (int) (bucket + 1);
+                        if (settledCount == settledCities.length) {
+                            settledCities = Arrays.copyOf(settledCities, 2 * settledCount);
+                        }
+                        settledCities[settledCount++] = city;
+                    }
+                }
+                frontier = distribute(relax(frontier, frontier.length, true), bucket);
+            }
+            visitedCityCount += settledCount;
+            distribute(relax(settledCities, settledCount, false), bucket);
+        }
+        MetricsManager.addSearchCounts(visitedCityCount, 0, bucketOperationCount); //Relaxed roads are added by each range
+
+        //Every city not farther than arrival city has its exact distance
+        int routeDistance = distances.get(arrival);
+        int[] cities = new int[foundCityCount];
+        int[] cityDistances = new int[foundCityCount];
+        int cityCount = 0;
+        for (int i = 0; i < foundCityCount; i++) {
+            int distance = distances.get(foundCities[i]);
+            if (distance <= routeDistance) {
+                cities[cityCount] = foundCities[i];
+                cityDistances[cityCount++] = distance;
+            }
+        }
+        int[] roads = routeBuilder.buildRoute(departure, arrival, cities, cityDistances, cityCount);
+        return new Route(routeDistance, roads);
+    }
+
+    /**
+     * Resets distances of cities found by the last search and empties buckets.
+     */
+    private void clear() {
+        for (int i = 0; i < foundCityCount; i++) {
+            distances.set(foundCities[i], Integer.MAX_VALUE);
+            settledStamps[foundCities[i]] = 0;
+        }
+        foundCityCount = 0;
+        searchStamp++;
+        Arrays.fill(bucketSizes, 0);
+        bucketCityCount = 0;
+        visitedCityCount = 0;
+        bucketOperationCount = 0;
+    }
+
+    /**
+     * Relaxes light or heavy roads of the given cities, on the workers if there are many cities.
+     *
+     * @param cities    IDs of the cities to relax
+     * @param cityCount the number of cities to relax
+     * @param isLight   true to relax roads not longer than delta, false to relax longer roads
+     * @return lists of cities whose distances are lowered, a city may be in several lists
+     */
+    private ArrayList<int[]> relax(int[] cities, int cityCount, boolean isLight) {
+        ArrayList<int[]> lowered = new ArrayList<>();
+        if (cityCount <= CITIES_PER_TASK) { //Too few cities to share
+            lowered.add(relaxRange(cities, 0, cityCount, isLight));
+            return lowered;
+        }
+        ArrayList<ForkJoinTask<int[]>> tasks = new ArrayList<>();
+        for (int start = 0; start < cityCount; start += CITIES_PER_TASK) {
+            int taskStart = start;
+            int taskEnd = Math.min(cityCount, start + CITIES_PER_TASK);
+            tasks.add(workers.submit(() -> relaxRange(cities, taskStart, taskEnd, isLight)));
+        }
+        for (ForkJoinTask<int[]> task : tasks) {
+            lowered.add(task.join());
+        }
+        return lowered;
+    }
+
+    /**
+     * Relaxes light or heavy roads of the cities in the given range, it may run on several workers at once.
+     * Roads of each city are sorted by length, so light roads come before heavy roads.
+     * Number of relaxed roads is added to {@code MetricsManager} when the range is finished.
+     *
+     * @param cities  IDs of the cities to relax
+     * @param start   the first index of the range
+     * @param end     the index after the last index of the range
+     * @param isLight true to relax roads not longer than delta, false to relax longer roads
+     * @return the cities whose distances are lowered by this range
+     */
+    private int[] relaxRange(int[] cities, int start, int end, boolean isLight) {
+        int[] lowered = new int[16];
+        int loweredCount = 0;
+        int relaxedEdgeCount = 0;
+        for (int i = start; i < end; i++) {
+            int city = cities[i];
+            int cityDistance = distances.get(city);
+            for (int edge = graph.getEdgeOffset(city); edge < graph.getEdgeOffset(city + 1); edge++) {
+                int length = graph.getEdgeLength(edge);
+                if ((length <= delta) != isLight) {
+                    if (isLight) { //Rest of the roads are heavy
+                        break;
+                    }
+                    continue;
+                }
+                int nextCity = graph.getEdgeTarget(edge); //The other end (neighbor end)
+                int distance = cityDistance + length;
+                int current = distances.get(nextCity);
+                relaxedEdgeCount++;
+                //Lowers the distance unless another worker lowers it further first
+                while (distance < current) {
+                    if (distances.compareAndSet(nextCity, current, distance)) {
+                        if (loweredCount == lowered.length) {
+                            lowered = Arrays.copyOf(lowered, 2 * loweredCount);
+                        }
+                        lowered[loweredCount++] = nextCity;
+                        break;
+                    }
+                    current = distances.get(nextCity);
+                }
+            }
+        }
+        MetricsManager.addSearchCounts(0, relaxedEdgeCount, 0);
+        return Arrays.copyOf(lowered, loweredCount);
+    }
+
+    /**
+     * Puts the cities whose distances are lowered into their buckets, each city once.
+     * Cities falling into the current bucket are returned as the next frontier instead.
+     *
+     * @param lowered lists of cities whose distances are lowered
+     * @param bucket  the index of the current bucket
+     * @return the cities of the current bucket to relax again
+     */
+    private int[] distribute(ArrayList<int[]> lowered, long bucket) {
+        phaseStamp++;
+        int[] frontier = new int[16];
+        int frontierSize = 0;
+        for (int[] cities : lowered) {
+            for (int city : cities) {
+                if (phaseStamps[city] == phaseStamp) { //City is lowered by several roads
+                    continue;
+                }
+                phaseStamps[city] = phaseStamp;
+                if (foundStamps[city] != searchStamp) { //City is found for the first time
+                    foundStamps[city] = searchStamp;
+                    foundCities[foundCityCount++] = city;
+                }
+                long cityBucket = distances.get(city) / delta;
+                if (cityBucket == bucket) {
+                    if (frontierSize == frontier.length) {
+                        frontier = Arrays.copyOf(frontier, 2 * frontierSize);
+                    }
+                    frontier[frontierSize++] = city;
+                } else {
+                    addToBucket(city, (int) (cityBucket % buckets.length));
+                }
+            }
+        }
+        return Arrays.copyOf(frontier, frontierSize);
+    }
+
+    /**
+     * Adds the given city to the bucket at the given cyclic position.
+     *
+     * @param city     the ID of the city
+     * @param position the cyclic position of the bucket
+     */
+    private void addToBucket(int city, int position) {
+        if (bucketSizes[position] == buckets[position].length) {
+            buckets[position] = Arrays.copyOf(buckets[position], 2 * bucketSizes[position]);
+        }
+        buckets[position][bucketSizes[position]++] = city;
+        bucketCityCount++;
+        bucketOperationCount++;
+    }
+
+    /**
+     * Empties the bucket at the given cyclic position, dropping stale cities which have moved to an earlier bucket.
+     *
+     * @param position the cyclic position of the bucket
+     * @param bucket   the index of the bucket
+     * @return the cities of the bucket, each city once
+     */
+    private int[] takeBucket(int position, long bucket) {
+        phaseStamp++;
+        int[] cities = new int[bucketSizes[position]];
+        int cityCount = 0;
+        for (int i = 0; i < bucketSizes[position]; i++) {
+            int city = buckets[position][i];
+            if (distances.get(city) / delta == bucket && phaseStamps[city] != phaseStamp) {
+                phaseStamps[city] = phaseStamp;
+                cities[cityCount++] = city;
+            }
+        }
+        bucketCityCount -= bucketSizes[position];
+        bucketOperationCount += cityCount;
+        bucketSizes[position] = 0;
+        return Arrays.copyOf(cities, cityCount);
+    }
+
+    /**
+     * Returns the number of cities relaxed by the last search.
+     *
+     * @return the number of cities visited by the last search
+     */
+    @Override
+    public int getVisitedCityCount() {
+        return visitedCityCount;
+    }
+}
@@ -0,0 +1,45 @@
+/**
+ * This class finds fastest routes by searching outward from the departure city until the arrival city is reached.
+ * Search tree and heap are kept and reused by later searches.
+ */
+public class DijkstraRouteFinder implements RouteFinder {
+    private final RoadGraph graph;
+    private final ShortestPathTree tree;
+    private final IndexedMinHeap possibleCities;
+    private int visitedCityCount;
+
+    /**
+     * Constructs a route finder over the given graph.
+     *
+     * @param graph a graph containing all roads connecting the cities
+     */
+    public DijkstraRouteFinder(RoadGraph graph) {
+        this.graph = graph;
+        tree = new ShortestPathTree(graph.getCityCount());
+        possibleCities = new IndexedMinHeap(graph.getCityCount());
+    }
+
+    /**
+     * Finds the fastest route from the departure city to the arrival city.
+     *
+     * @param departure the ID of the departure city
+     * @param arrival   the ID of the arrival city
+     * @return the fastest route, null if arrival city cannot be reached
+     */
+    @Override
+    public Route findFastestRoute(int departure, int arrival) {
+        MapManager.findShortestPathTree(graph, departure, arrival, tree, possibleCities);
+        visitedCityCount = tree.getReachedCount();
+        return tree.isReached(arrival) ? new Route(tree.getDistance(arrival), tree.getRoute(arrival)) : null;
+    }
+
+    /**
+     * Returns the number of cities whose distance is settled by the last search.
+     *
+     * @return the number of cities visited by the last search
+     */
+    @Override
+    public int getVisitedCityCount() {
+        return visitedCityCount;
+    }
+}
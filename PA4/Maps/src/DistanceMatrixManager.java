@@ -0,0 +1,170 @@
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayDeque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * This class writes the matrix of fastest route lengths between every pair of depot cities.
+ * Each row is found by a single search from its depot city, rows are searched in parallel on a fork-join pool
+ * over the shared graph which is only read, and rows are written in order as soon as they are ready,
+ * so only a bounded number of rows is kept in memory.
+ * Matrix is written either as CSV text, or as binary (a header of magic and depot count, then rows of 32-bit distances).
+ * Distance between cities in different parts of the map is empty in CSV and -1 in binary.
+ * City names containing a comma, a quote or a line break are quoted in CSV as in RFC 4180.
+ * CSV text is encoded with the default charset, the same as {@code OutputSink}, so names are the same as in other outputs.
+ */
+public class DistanceMatrixManager {
+    private static final int FILE_MAGIC = 0x444D4154; //Marks a binary matrix file, "DMAT" in ASCII
+    private static final int ROWS_PER_WORKER = 4; //Number of rows waiting to be written per worker, bounds memory
+
+    /**
+     * Writes the distance matrix between the depot cities in the depot file to the output.
+     * Each non-empty line of depot file is the name of a depot city, rows and columns are in the same order.
+     * Terminates the program if a depot city is not on the map, or if a worker thread fails.
+     *
+     * @param graph          a graph containing all roads connecting the cities
+     * @param depotFilePath  the path of the file to read the depot cities from
+     * @param output         the output to write the matrix to
+     * @param isBinary       true to write the binary matrix, false to write CSV text
+     * @param threadCount    the number of worker threads
+     */
+    public static void writeDistanceMatrix(RoadGraph graph, String depotFilePath, OutputSink output, boolean isBinary, int threadCount) {
+        String[] depotCities = FileIO.readFile(depotFilePath, true, true);
+        if (depotCities == null) {
+            System.out.printf("ERROR: Depot file \"%s\" cannot be read. Program is going to terminate!%n", depotFilePath);
+            System.exit(1);
+        }
+        int[] depots = new int[depotCities.length];
+        for (int i = 0; i < depots.length; i++) {
+            depots[i] = graph.getCityId(depotCities[i]);
+            if (depots[i] == -1) {
+                System.out.printf("ERROR: There is no city named %s on the map. Program is going to terminate!%n", depotCities[i]);
+                System.exit(1);
+            }
+        }
+
+        //Number of different depot cities in each part of the map, search from a depot stops when all of them are reached
+        ReachabilityIndex reachabilityIndex = graph.getReachabilityIndex();
+        boolean[] isDepot = new boolean[graph.getCityCount()];
+        int[] componentDepotCounts = new int[reachabilityIndex.getComponentCount()];
+        for (int depot : depots) {
+            if (!isDepot[depot]) {
+                isDepot[depot] = true;
+                componentDepotCounts[reachabilityIndex.getComponent(depot)]++;
+            }
+        }
+        //Search state of each worker thread, created once per thread and reused for all its rows
+        ThreadLocal<ShortestPathTree> workerTrees = ThreadLocal.withInitial(() -> new ShortestPathTree(graph.getCityCount()));
+        ThreadLocal<IndexedMinHeap> workerHeaps = ThreadLocal.withInitial(() -> new IndexedMinHeap(graph.getCityCount()));
+
+        ForkJoinPool workers = new ForkJoinPool(threadCount);
+        //Rows in matrix order, which are being searched or waiting to be written
+        ArrayDeque<ForkJoinTask<byte[]>> pendingRows = new ArrayDeque<>();
+
+        try {
+            output.write(isBinary ? createBinaryHeader(depots.length) : createCsvHeader(depotCities));
+            for (int row = 0; row < depots.length; row++) {
+                int departure = depots[row];
+                String departureCity = depotCities[row];
+                pendingRows.add(workers.submit(() -> {
+                    ShortestPathTree tree = workerTrees.get();
+                    //Search stops as soon as all depot cities in the same part of the map with departure city are reached
+                    int[] remainingDepotCount = {componentDepotCounts[reachabilityIndex.getComponent(departure)]};
+                    MapManager.findShortestPathTree(graph, departure, tree, workerHeaps.get(), city -> isDepot[city] && --remainingDepotCount[0] == 0);
+                    return isBinary ? createBinaryRow(tree, depots) : createCsvRow(tree, departureCity, depots);
+                }));
+
+                //Writes the oldest rows if too many rows are waiting
+                while (pendingRows.size() > ROWS_PER_WORKER * threadCount) {
+                    output.write(pendingRows.poll().get());
+                }
+            }
+            while (!pendingRows.isEmpty()) { //Writes the rest of rows in order
+                output.write(pendingRows.poll().get());
+            }
+
+        } catch (ExecutionException e) { //Rows after the failed row cannot be written, so the matrix would be cut silently
+            e.getCause().printStackTrace();
+            System.out.printf("ERROR: Distance matrix cannot be written, a worker thread failed. Program is going to terminate!%n");
+            System.exit(1);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            workers.shutdownNow();
+        }
+    }
+
+    /**
+     * Creates the header line of the CSV matrix, which is the names of depot cities as column titles.
+     *
+     * @param depotCities names of depot cities in matrix order
+     * @return the header line encoded in the default charset
+     */
+    private static byte[] createCsvHeader(String[] depotCities) {
+        StringBuilder header = new StringBuilder("City");
+        for (String depotCity : depotCities) {
+            appendCsvField(header.append(','), depotCity);
+        }
+        return header.append('\n').toString().getBytes(Charset.defaultCharset());
+    }
+
+    /**
+     * Creates the CSV line of a row, the name of its depot city followed by distances to all depot cities.
+     *
+     * @param tree          the tree of fastest route lengths from the depot city of the row
+     * @param departureCity the name of the depot city of the row
+     * @param depots        IDs of depot cities in matrix order
+     * @return the row line encoded in the default charset
+     */
+    private static byte[] createCsvRow(ShortestPathTree tree, String departureCity, int[] depots) {
+        StringBuilder row = appendCsvField(new StringBuilder(), departureCity);
+        for (int depot : depots) {
+            row.append(',');
+            if (tree.isReached(depot)) { //Distance is left empty if depot city cannot be reached
+                row.append(tree.getDistance(depot));
+            }
+        }
+        return row.append('\n').toString().getBytes(Charset.defaultCharset());
+    }
+
+    /**
+     * Appends a text field to a CSV line, in quotes with its quotes doubled if it contains a comma, a quote or a line break.
+     *
+     * @param line  the CSV line
+     * @param field the text of the field
+     * @return the CSV line
+     */
+    private static StringBuilder appendCsvField(StringBuilder line, String field) {
+        if (field.indexOf(',') == -1 && field.indexOf('"') == -1 && field.indexOf('\n') == -1 && field.indexOf('\r') == -1) {
+            return line.append(field);
+        }
+        return line.append('"').append(field.replace("\"", "\"\"")).append('"');
+    }
+
+    /**
+     * Creates the header of the binary matrix.
+     *
+     * @param depotCount the number of depot cities, which is both the row and the column count
+     * @return the header bytes
+     */
+    private static byte[] createBinaryHeader(int depotCount) {
+        return ByteBuffer.allocate(2 * Integer.BYTES).putInt(FILE_MAGIC).putInt(depotCount).array();
+    }
+
+    /**
+     * Creates the binary row of distances to all depot cities.
+     *
+     * @param tree   the tree of fastest route lengths from the depot city of the row
+     * @param depots IDs of depot cities in matrix order
+     * @return the row bytes, a big-endian 32-bit distance per depot city, -1 if depot city cannot be reached
+     */
+    private static byte[] createBinaryRow(ShortestPathTree tree, int[] depots) {
+        ByteBuffer row = ByteBuffer.allocate(depots.length * Integer.BYTES);
+        for (int depot : depots) {
+            row.putInt(tree.isReached(depot) ? tree.getDistance(depot) : -1);
+        }
+        return row.array();
+    }
+}
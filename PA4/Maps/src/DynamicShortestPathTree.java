@@ -0,0 +1,205 @@
+import java.util.Arrays;
+
+/**
+ * This class keeps the fastest routes from a departure city to all cities while road lengths change.
+ * When a road gets shorter, only the cities whose routes become shorter through it are searched again.
+ * When a road of the tree gets longer, only the cities below it in the tree lose their routes,
+ * they take the best route from the rest of the tree and are searched again among themselves.
+ * Other changes do not change any distance. Parents are any road giving the fastest distance,
+ * routes with the standard choice among equal routes are built by a {@code CanonicalRouteBuilder}.
+ */
+public class DynamicShortestPathTree {
+    private static final int UNREACHED = Integer.MAX_VALUE; //Distance of a city that cannot be reached
+
+    private final RoadGraph graph;
+    private final int departure;
+    private final int[] distances; //Distance of each city from departure city, UNREACHED if it cannot be reached
+    private final int[] parentRoads; //Road index of the road that leads to each city, -1 for departure city
+    private final int[] parentCities; //City ID that comes before each city, -1 for departure city
+    private final IndexedMinHeap possibleCities;
+    private final int[] subtreeStamps; //Last repair whose lost cities include each city
+    private int repairStamp;
+    private int[] subtree = new int[16]; //Cities that lost their routes in the last repair
+
+    /**
+     * Constructs the tree of fastest routes from the departure city with the standard search.
+     *
+     * @param graph     a graph containing all roads connecting the cities, whose road lengths are changed in place
+     * @param departure the ID of the departure city
+     */
+    public DynamicShortestPathTree(RoadGraph graph, int departure) {
+        this.graph = graph;
+        this.departure = departure;
+        int cityCount = graph.getCityCount();
+        distances = new int[cityCount];
+        parentRoads = new int[cityCount];
+        parentCities = new int[cityCount];
+        possibleCities = new IndexedMinHeap(cityCount);
+        subtreeStamps = new int[cityCount];
+
+        ShortestPathTree tree = MapManager.findShortestPathTree(graph, departure, -1);
+        for (int city = 0; city < cityCount; city++) {
+            distances[city] = tree.isReached(city) ? tree.getDistance(city) : UNREACHED;
+            parentRoads[city] = tree.isReached(city) ? tree.getParentRoad(city) : -1;
+            parentCities[city] = tree.isReached(city) ? tree.getParentCity(city) : -1;
+        }
+    }
+
+    /**
+     * Repairs the tree after the length of the given road is changed in the graph.
+     *
+     * @param road      the road index
+     * @param oldLength the length of the road before the change
+     * @return the smallest distance, before or after the change, of a city whose distance may be changed, UNREACHED if there is none
+     */
+    public int repairRoadLength(int road, int oldLength) {
+        int newLength = graph.getRoadLength(road);
+        int firstEnd = graph.getRoadFirstEnd(road);
+        int secondEnd = graph.getRoadSecondEnd(road);
+        if (newLength < oldLength) { //Routes through the road may become shorter in either direction
+            return Math.min(repairShorterRoad(firstEnd, secondEnd, road, newLength), repairShorterRoad(secondEnd, firstEnd, road, newLength));
+        }
+        if (newLength > oldLength) { //Only cities below the road in the tree may lose their routes
+            if (parentRoads[secondEnd] == road && parentCities[secondEnd] == firstEnd) {
+                return repairLongerRoad(secondEnd);
+            }
+            if (parentRoads[firstEnd] == road && parentCities[firstEnd] == secondEnd) {
+                return repairLongerRoad(firstEnd);
+            }
+        }
+        return UNREACHED;
+    }
+
+    /**
+     * Carries a shorter distance through the given road from one of its ends to the other and onwards.
+     *
+     * @param city     the ID of the end city the road is used from
+     * @param nextCity the ID of the end city the road leads to
+     * @param road     the road index
+     * @param length   the new length of the road
+     * @return the shortest new distance of a city whose distance is changed, UNREACHED if there is none
+     */
+    private int repairShorterRoad(int city, int nextCity, int road, int length) {
+        if (distances[city] == UNREACHED || distances[city] + length >= distances[nextCity]) { //Road does not give a shorter route
+            return UNREACHED;
+        }
+        possibleCities.clear();
+        distances[nextCity] = distances[city] + length;
+        parentRoads[nextCity] = road;
+        parentCities[nextCity] = city;
+        possibleCities.insert(nextCity, distances[nextCity]);
+        search();
+        return distances[city] + length;
+    }
+
+    /**
+     * Finds new routes of the cities below the given city in the tree, after the road leading to it gets longer.
+     * Each of them starts from its best road coming from the rest of the tree, then they are searched among themselves.
+     *
+     * @param subtreeRoot the ID of the city whose road gets longer
+     * @return the old distance of the given city, which is the smallest among the cities below it
+     */
+    private int repairLongerRoad(int subtreeRoot) {
+        int rootDistance = distances[subtreeRoot];
+        repairStamp++;
+        int subtreeSize = 0;
+        subtree[subtreeSize++] = subtreeRoot;
+        subtreeStamps[subtreeRoot] = repairStamp;
+        //Children of a city are its neighbors whose parent roads come from it
+        for (int i = 0; i < subtreeSize; i++) {
+            int city = subtree[i];
+            for (int edge = graph.getEdgeOffset(city); edge < graph.getEdgeOffset(city + 1); edge++) {
+                int nextCity = graph.getEdgeTarget(edge);
+                if (parentCities[nextCity] == city && parentRoads[nextCity] == graph.getEdgeRoad(edge) && subtreeStamps[nextCity] != repairStamp) {
+                    subtreeStamps[nextCity] = repairStamp;
+                    if (subtreeSize == subtree.length) {
+                        subtree = Arrays.copyOf(subtree, 2 * subtreeSize);
+                    }
+                    subtree[subtreeSize++] = nextCity;
+                }
+            }
+        }
+
+        possibleCities.clear();
+        for (int i = 0; i < subtreeSize; i++) {
+            int city = subtree[i];
+            distances[city] = UNREACHED;
+            parentRoads[city] = -1;
+            parentCities[city] = -1;
+        }
+        //Each lost city starts from its best road coming from the rest of the tree, if there is one
+        for (int i = 0; i < subtreeSize; i++) {
+            int city = subtree[i];
+            for (int edge = graph.getEdgeOffset(city); edge < graph.getEdgeOffset(city + 1); edge++) {
+                int previousCity = graph.getEdgeTarget(edge);
+                if (subtreeStamps[previousCity] == repairStamp || distances[previousCity] == UNREACHED) {
+                    continue;
+                }
+                int distance = distances[previousCity] + graph.getEdgeLength(edge);
+                if (distance < distances[city]) {
+                    distances[city] = distance;
+                    parentRoads[city] = graph.getEdgeRoad(edge);
+                    parentCities[city] = previousCity;
+                }
+            }
+            if (distances[city] != UNREACHED) {
+                possibleCities.insert(city, distances[city]);
+            }
+        }
+        search();
+        return rootDistance;
+    }
+
+    /**
+     * Visits the cities in the heap in ascending order of distance and carries shorter distances to their neighbors.
+     * Only cities whose distances become shorter are visited, so the search stays in the changed part of the tree.
+     * Counts of the search are added to {@code MetricsManager} when it ends.
+     */
+    private void search() {
+        int settledCityCount = 0;
+        int relaxedEdgeCount = 0;
+        int heapOperationCount = possibleCities.size(); //Cities inserted before the search
+        while (!possibleCities.isEmpty()) {
+            int city = possibleCities.pollMin();
+            settledCityCount++;
+            heapOperationCount++;
+            for (int edge = graph.getEdgeOffset(city); edge < graph.getEdgeOffset(city + 1); edge++) {
+                int nextCity = graph.getEdgeTarget(edge); //The other end (neighbor end)
+                int distance = distances[city] + graph.getEdgeLength(edge);
+                relaxedEdgeCount++;
+                if (distance >= distances[nextCity]) { //Neighbor already has a route not longer
+                    continue;
+                }
+                distances[nextCity] = distance;
+                parentRoads[nextCity] = graph.getEdgeRoad(edge);
+                parentCities[nextCity] = city;
+                if (possibleCities.contains(nextCity)) {
+                    possibleCities.decreaseKey(nextCity, distance);
+                } else {
+                    possibleCities.insert(nextCity, distance);
+                }
+                heapOperationCount++;
+            }
+        }
+        MetricsManager.addSearchCounts(settledCityCount, relaxedEdgeCount, heapOperationCount);
+    }
+
+    /**
+     * Returns the ID of the departure city of the tree.
+     *
+     * @return the ID of the departure city
+     */
+    public int getDeparture() {
+        return departure;
+    }
+
+    /**
+     * Returns the distance of the given city from departure city.
+     *
+     * @param city the ID of the city
+     * @return the distance of the city, Integer.MAX_VALUE if it cannot be reached
+     */
+    public int getDistance(int city) {
+        return distances[city];
+    }
+}
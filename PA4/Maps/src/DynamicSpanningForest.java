@@ -0,0 +1,392 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * This class keeps the barely connected map of a changing road map, as roads are added and closed one by one.
+ * Roads of the barely connected map are kept in a link-cut tree, where each road is a node between its two cities,
+ * so the longest road on the route between two cities is found in amortized O(log n).
+ * Other roads are kept as spare roads, and every open road is listed in both of its cities.
+ * An added road replaces the longest road of the cycle it creates if it is shorter (cycle property),
+ * and a closed road of the barely connected map is replaced by the shortest spare road connecting its two sides (cut property).
+ * Both sides are walked at the same time until the smaller side is walked completely, so only spare roads of
+ * the smaller side are searched, which is usually a small part of the map.
+ * Roads are compared by length, then by ID, then by order of being added, so the map is always the same one
+ * that {@code KruskalSpanningTreeBuilder} finds for the current roads.
+ */
+public class DynamicSpanningForest {
+    private static final int CLOSED = 0;
+    private static final int IN_FOREST = 1;
+    private static final int SPARE = 2;
+
+    private final ArrayList<String> cityNames = new ArrayList<>(); //City name of each city ID
+    private final HashMap<String, Integer> cityIds = new HashMap<>(); //City ID of each city name
+    private int[] cityNodes = new int[16]; //Link-cut tree node of each city
+    private int[][] cityRoads = new int[16][]; //Open roads of each city as (road index * 2 + end), end is 0 for first end
+    private int[] cityRoadCounts = new int[16];
+    private int[] sideStamps = new int[16]; //Last walk that reached each city, marks its side
+    private int walkStamp; //Cities of the first side of the last walk are marked with it, second side with one less
+    private final int[][] sides = {new int[16], new int[16]}; //Cities of both sides of the last walk, in order of being reached
+    private final int[] sideSizes = new int[2];
+
+    private int[] roadFirstEnds = new int[16];
+    private int[] roadSecondEnds = new int[16];
+    private int[] roadLengths = new int[16];
+    private int[] roadIds = new int[16];
+    private int[] roadNodes = new int[16]; //Link-cut tree node of each road
+    private int[] roadStates = new int[16]; //CLOSED, IN_FOREST or SPARE
+    private int[] roadPositions = new int[32]; //Position of each (road index * 2 + end) in the road list of its city
+    private int roadCount;
+    private final HashMap<Integer, Integer> openRoads = new HashMap<>(); //Road index of each open road ID
+
+    private final LinkCutTree forest = new LinkCutTree(this::selectLongerRoad);
+    private int[] forestRoads = new int[16]; //Roads of the barely connected map, in no order
+    private int[] forestPositions = new int[16]; //Position of each road of the barely connected map in forestRoads
+    private int forestRoadCount;
+
+    /**
+     * Constructs the barely connected map of the given graph, starting from its known barely connected roads.
+     * If roads of the graph share an ID, the first of them keeps it, and the later ones are closed at once,
+     * the same as an added road whose ID is already open is not added.
+     *
+     * @param graph                a graph containing all roads connecting the cities
+     * @param barelyConnectedRoads road indices of the barely connected map of the graph
+     */
+    public DynamicSpanningForest(RoadGraph graph, int[] barelyConnectedRoads) {
+        for (int city = 0; city < graph.getCityCount(); city++) {
+            addCity(graph.getCityName(city));
+        }
+        //Road indices are kept the same as the graph, so the roads are added in order
+        boolean[] isBarelyConnected = new boolean[graph.getRoadCount()];
+        for (int road : barelyConnectedRoads) {
+            isBarelyConnected[road] = true;
+        }
+        for (int road = 0; road < graph.getRoadCount(); road++) {
+            int newRoad = createRoad(graph.getRoadFirstEnd(road), graph.getRoadSecondEnd(road), graph.getRoadLength(road), graph.getRoadId(road));
+            if (isBarelyConnected[road]) {
+                linkRoad(newRoad);
+            } else {
+                roadStates[newRoad] = SPARE;
+            }
+        }
+        //Roads are closed after all of them are added, so a closed road of the barely connected map is replaced as usual
+        for (int road = 0; road < graph.getRoadCount(); road++) {
+            if (openRoads.get(roadIds[road]) != road) {
+                closeOpenRoad(road);
+            }
+        }
+    }
+
+    /**
+     * Adds a road between the given cities, cities are added too if they are not on the map.
+     * If the road closes a cycle of the barely connected map, it replaces the longest road of the cycle if it is shorter.
+     * A road is not added if there is already an open road with the same ID, since the older road could not be closed then.
+     *
+     * @param firstEnd  the name of the first endpoint of the road
+     * @param secondEnd the name of the second endpoint of the road
+     * @param length    the length of the road
+     * @param id        the unique identifier of the road
+     * @return true if the road is added, false if there is already an open road with the ID
+     */
+    public boolean addRoad(String firstEnd, String secondEnd, int length, int id) {
+        if (openRoads.containsKey(id)) {
+            return false;
+        }
+        int road = createRoad(addCity(firstEnd), addCity(secondEnd), length, id);
+        int firstNode = cityNodes[roadFirstEnds[road]];
+        int secondNode = cityNodes[roadSecondEnds[road]];
+
+        if (!forest.isConnected(firstNode, secondNode)) { //Road connects two separate parts
+            linkRoad(road);
+            return true;
+        }
+        int longestRoad = roadFirstEnds[road] == roadSecondEnds[road] ? -1 : forest.findGreatestValue(firstNode, secondNode);
+        if (longestRoad != -1 && compareRoads(road, longestRoad) < 0) { //Road is shorter than the longest road of the cycle
+            cutRoad(longestRoad);
+            roadStates[longestRoad] = SPARE;
+            linkRoad(road);
+        } else {
+            roadStates[road] = SPARE;
+        }
+        return true;
+    }
+
+    /**
+     * Closes the road with the given ID. If it is a road of the barely connected map,
+     * the shortest spare road connecting its two sides replaces it, if there is such a road.
+     *
+     * @param id the unique identifier of the road
+     * @return true if the road is closed, false if there is no open road with the ID
+     */
+    public boolean closeRoad(int id) {
+        Integer road = openRoads.remove(id);
+        if (road == null) {
+            return false;
+        }
+        closeOpenRoad(road);
+        return true;
+    }
+
+    /**
+     * Closes the given road, which is not closed yet. If it is a road of the barely connected map,
+     * the shortest spare road connecting its two sides replaces it, if there is such a road.
+     *
+     * @param road the index of the road
+     */
+    private void closeOpenRoad(int road) {
+        removeFromCities(road);
+        if (roadStates[road] == SPARE) { //Barely connected map does not change
+            roadStates[road] = CLOSED;
+            return;
+        }
+        cutRoad(road);
+        roadStates[road] = CLOSED;
+
+        int replacementRoad = findReplacementRoad(roadFirstEnds[road], roadSecondEnds[road]);
+        if (replacementRoad != -1) {
+            linkRoad(replacementRoad);
+        }
+    }
+
+    /**
+     * Finds the shortest spare road connecting the two sides of a closed road of the barely connected map.
+     * Both sides are walked over roads of the barely connected map one city at a time each,
+     * and when one side is walked completely, spare roads of that side leading out of it are searched.
+     *
+     * @param firstCity  the ID of the city on the first side
+     * @param secondCity the ID of the city on the second side
+     * @return the index of the shortest spare road between the sides, -1 if there is no such a road
+     */
+    private int findReplacementRoad(int firstCity, int secondCity) {
+        walkStamp += 2;
+        int[] walkedCounts = new int[2];
+        sideSizes[0] = 0;
+        sideSizes[1] = 0;
+        addToSide(0, firstCity);
+        addToSide(1, secondCity);
+        while (walkedCounts[0] < sideSizes[0] && walkedCounts[1] < sideSizes[1]) {
+            walkCity(0, walkedCounts[0]++);
+            walkCity(1, walkedCounts[1]++);
+        }
+        //Side whose walk is finished is not larger than the other side
+        int side = walkedCounts[0] == sideSizes[0] ? 0 : 1;
+
+        int replacementRoad = -1;
+        for (int i = 0; i < sideSizes[side]; i++) {
+            int city = sides[side][i];
+            for (int j = 0; j < cityRoadCounts[city]; j++) {
+                int road = cityRoads[city][j] >> 1;
+                if (roadStates[road] == SPARE && sideStamps[getOtherEnd(cityRoads[city][j])] != walkStamp - side
+                        && (replacementRoad == -1 || compareRoads(road, replacementRoad) < 0)) {
+                    replacementRoad = road;
+                }
+            }
+        }
+        return replacementRoad;
+    }
+
+    /**
+     * Walks a city of a side, adding its neighbors over roads of the barely connected map to the side.
+     *
+     * @param side  0 for the first side, 1 for the second side
+     * @param index the index of the city in the side
+     */
+    private void walkCity(int side, int index) {
+        int city = sides[side][index];
+        for (int j = 0; j < cityRoadCounts[city]; j++) {
+            int otherEnd = getOtherEnd(cityRoads[city][j]);
+            if (roadStates[cityRoads[city][j] >> 1] == IN_FOREST && sideStamps[otherEnd] != walkStamp - side) {
+                addToSide(side, otherEnd);
+            }
+        }
+    }
+
+    /**
+     * Adds a city to a side and marks it with the stamp of the side.
+     *
+     * @param side 0 for the first side, 1 for the second side
+     * @param city the ID of the city
+     */
+    private void addToSide(int side, int city) {
+        if (sideSizes[side] == sides[side].length) {
+            sides[side] = Arrays.copyOf(sides[side], 2 * sideSizes[side]);
+        }
+        sides[side][sideSizes[side]++] = city;
+        sideStamps[city] = walkStamp - side;
+    }
+
+    /**
+     * Returns the city at the other end of a road end.
+     *
+     * @param roadEnd the road index * 2 + end of the road
+     * @return the ID of the city at the other end
+     */
+    private int getOtherEnd(int roadEnd) {
+        int road = roadEnd >> 1;
+        return (roadEnd & 1) == 0 ? roadSecondEnds[road] : roadFirstEnds[road];
+    }
+
+    /**
+     * Returns the roads of the current barely connected map in ascending order of length and ID.
+     * Only roads of the barely connected map are visited, not the closed and spare roads.
+     *
+     * @return a new list of Road objects of the barely connected map
+     */
+    public ArrayList<Road> getBarelyConnectedRoads() {
+        Integer[] roads = new Integer[forestRoadCount];
+        for (int i = 0; i < forestRoadCount; i++) {
+            roads[i] = forestRoads[i];
+        }
+        Arrays.sort(roads, this::compareRoads);
+        ArrayList<Road> barelyConnectedRoads = new ArrayList<>(forestRoadCount);
+        for (int road : roads) {
+            barelyConnectedRoads.add(new Road(cityNames.get(roadFirstEnds[road]), cityNames.get(roadSecondEnds[road]), roadLengths[road], roadIds[road]));
+        }
+        return barelyConnectedRoads;
+    }
+
+    /**
+     * Returns the ID of the city with the given name, gives a new ID if the city is not on the map.
+     *
+     * @param cityName the name of the city
+     * @return the ID of the city
+     */
+    private int addCity(String cityName) {
+        Integer cityId = cityIds.get(cityName);
+        if (cityId == null) { //City is not added before
+            cityId = cityNames.size();
+            cityIds.put(cityName, cityId);
+            cityNames.add(cityName);
+            if (cityId == cityNodes.length) { //Arrays are full, doubles their capacity
+                cityNodes = Arrays.copyOf(cityNodes, 2 * cityId);
+                cityRoads = Arrays.copyOf(cityRoads, 2 * cityId);
+                cityRoadCounts = Arrays.copyOf(cityRoadCounts, 2 * cityId);
+                sideStamps = Arrays.copyOf(sideStamps, 2 * cityId);
+            }
+            cityNodes[cityId] = forest.addNode(-1);
+            cityRoads[cityId] = new int[4];
+        }
+        return cityId;
+    }
+
+    /**
+     * Creates a new open road between the given cities, which is neither in the forest nor spare yet.
+     *
+     * @param firstEnd  the ID of the first endpoint of the road
+     * @param secondEnd the ID of the second endpoint of the road
+     * @param length    the length of the road
+     * @param id        the unique identifier of the road
+     * @return the index of the road
+     */
+    private int createRoad(int firstEnd, int secondEnd, int length, int id) {
+        if (roadCount == roadLengths.length) { //Arrays are full, doubles their capacity
+            roadFirstEnds = Arrays.copyOf(roadFirstEnds, 2 * roadCount);
+            roadSecondEnds = Arrays.copyOf(roadSecondEnds, 2 * roadCount);
+            roadLengths = Arrays.copyOf(roadLengths, 2 * roadCount);
+            roadIds = Arrays.copyOf(roadIds, 2 * roadCount);
+            roadNodes = Arrays.copyOf(roadNodes, 2 * roadCount);
+            roadStates = Arrays.copyOf(roadStates, 2 * roadCount);
+            roadPositions = Arrays.copyOf(roadPositions, 4 * roadCount);
+            forestRoads = Arrays.copyOf(forestRoads, 2 * roadCount);
+            forestPositions = Arrays.copyOf(forestPositions, 2 * roadCount);
+        }
+        roadFirstEnds[roadCount] = firstEnd;
+        roadSecondEnds[roadCount] = secondEnd;
+        roadLengths[roadCount] = length;
+        roadIds[roadCount] = id;
+        roadNodes[roadCount] = forest.addNode(roadCount);
+        openRoads.putIfAbsent(id, roadCount); //An open road with the same ID keeps it
+        addToCity(firstEnd, 2 * roadCount);
+        addToCity(secondEnd, 2 * roadCount + 1);
+        return roadCount++;
+    }
+
+    /**
+     * Adds an end of a road to the road list of its city.
+     *
+     * @param city    the ID of the city
+     * @param roadEnd the road index * 2 + end of the road
+     */
+    private void addToCity(int city, int roadEnd) {
+        if (cityRoadCounts[city] == cityRoads[city].length) {
+            cityRoads[city] = Arrays.copyOf(cityRoads[city], 2 * cityRoadCounts[city]);
+        }
+        roadPositions[roadEnd] = cityRoadCounts[city];
+        cityRoads[city][cityRoadCounts[city]++] = roadEnd;
+    }
+
+    /**
+     * Removes both ends of a road from the road lists of its cities, the last road of a list takes the place of the removed one.
+     *
+     * @param road the index of the road
+     */
+    private void removeFromCities(int road) {
+        for (int end = 0; end < 2; end++) {
+            int roadEnd = 2 * road + end;
+            int city = end == 0 ? roadFirstEnds[road] : roadSecondEnds[road];
+            int lastRoadEnd = cityRoads[city][--cityRoadCounts[city]];
+            cityRoads[city][roadPositions[roadEnd]] = lastRoadEnd;
+            roadPositions[lastRoadEnd] = roadPositions[roadEnd];
+        }
+    }
+
+    /**
+     * Adds the given road to the barely connected map.
+     *
+     * @param road the index of the road
+     */
+    private void linkRoad(int road) {
+        forest.link(cityNodes[roadFirstEnds[road]], roadNodes[road]);
+        forest.link(roadNodes[road], cityNodes[roadSecondEnds[road]]);
+        roadStates[road] = IN_FOREST;
+        forestPositions[road] = forestRoadCount;
+        forestRoads[forestRoadCount++] = road;
+    }
+
+    /**
+     * Removes the given road from the barely connected map, the last road of the list takes the place of the removed one.
+     *
+     * @param road the index of the road
+     */
+    private void cutRoad(int road) {
+        forest.cut(cityNodes[roadFirstEnds[road]], roadNodes[road]);
+        forest.cut(roadNodes[road], cityNodes[roadSecondEnds[road]]);
+        int lastRoad = forestRoads[--forestRoadCount];
+        forestRoads[forestPositions[road]] = lastRoad;
+        forestPositions[lastRoad] = forestPositions[road];
+    }
+
+    /**
+     * Compares the given roads by length, then by ID, then by order of being added.
+     *
+     * @param firstRoad  the index of the first road
+     * @param secondRoad the index of the second road
+     * @return a negative number if first road comes first, a positive number if second road comes first, 0 if they are the same
+     */
+    private int compareRoads(int firstRoad, int secondRoad) {
+        if (roadLengths[firstRoad] != roadLengths[secondRoad]) {
+            return Integer.compare(roadLengths[firstRoad], roadLengths[secondRoad]);
+        }
+        if (roadIds[firstRoad] != roadIds[secondRoad]) {
+            return Integer.compare(roadIds[firstRoad], roadIds[secondRoad]);
+        }
+        return Integer.compare(firstRoad, secondRoad);
+    }
+
+    /**
+     * Selects the longer one of the given roads.
+     *
+     * @param firstRoad  the index of the first road, -1 if there is no road
+     * @param secondRoad the index of the second road, -1 if there is no road
+     * @return the index of the longer road, -1 if there is neither road
+     */
+    private int selectLongerRoad(int firstRoad, int secondRoad) {
+        if (firstRoad == -1) {
+            return secondRoad;
+        }
+        if (secondRoad == -1) {
+            return firstRoad;
+        }
+        return compareRoads(firstRoad, secondRoad) >= 0 ? firstRoad : secondRoad;
+    }
+}
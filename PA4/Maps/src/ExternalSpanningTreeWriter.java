@@ -0,0 +1,319 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.PriorityQueue;
+
+/**
+ * This class writes the barely connected map of an input file whose roads do not fit in memory, with Kruskal's algorithm
+ * over roads sorted in temporary files instead of a graph in memory.
+ * Road lines are read one by one, cities are interned to IDs, and roads are collected into runs of a fixed number
+ * of roads, each sorted by (length, ID) in memory and written to a temporary file. Runs are merged in ascending order
+ * of (length, ID), a road is taken if it connects two cities that are not connected yet, and taken roads are written
+ * to the output as soon as they are taken, which is already the order of the barely connected map.
+ * Only city names and a union-find over city IDs are kept for the whole input, so memory is O(cities + run size),
+ * and roads of equal length and ID are taken in input order, so the output is the same as of the graph in memory.
+ */
+public class ExternalSpanningTreeWriter {
+    private static final int MAX_MERGED_RUNS = 64; //Number of runs merged at once, more runs are merged into longer runs first
+    private static final int RUN_BUFFER_SIZE = 1 << 16; //Bytes buffered for each run file while reading or writing
+
+    private final int roadsPerRun;
+    private final ArrayList<String> cityNames = new ArrayList<>(); //City name of each city ID
+    private final HashMap<String, Integer> cityIds = new HashMap<>(); //City ID of each city name
+    private final int[] firstEnds; //Roads of the current run in input order
+    private final int[] secondEnds;
+    private final int[] lengths;
+    private final int[] ids;
+    private int runRoadCount;
+
+    /**
+     * Constructs a writer which sorts the given number of roads at once in memory.
+     *
+     * @param roadsPerRun the number of roads of each run
+     */
+    public ExternalSpanningTreeWriter(int roadsPerRun) {
+        this.roadsPerRun = Math.max(1, roadsPerRun);
+        firstEnds = new int[this.roadsPerRun];
+        secondEnds = new int[this.roadsPerRun];
+        lengths = new int[this.roadsPerRun];
+        ids = new int[this.roadsPerRun];
+    }
+
+    /**
+     * Reads the roads of the input file into sorted runs, merges them and writes the barely connected map to the output.
+     * Temporary files are deleted when they are merged, or when the program ends if it fails before.
+     *
+     * @param inputFilePath the path of the input file
+     * @param output        the output to write to
+     * @return the number of roads of the barely connected map
+     */
+    public int writeBarelyConnectedMap(String inputFilePath, OutputSink output) {
+        ArrayList<File> runs = new ArrayList<>();
+        try {
+            readRuns(inputFilePath, runs);
+            //Runs are merged into longer runs until they can be merged at once
+            while (runs.size() > MAX_MERGED_RUNS) {
+                ArrayList<File> mergedRuns = new ArrayList<>();
+                for (int start = 0; start < runs.size(); start += MAX_MERGED_RUNS) {
+                    mergedRuns.add(mergeIntoRun(new ArrayList<>(runs.subList(start, Math.min(runs.size(), start + MAX_MERGED_RUNS)))));
+                }
+                runs = mergedRuns;
+            }
+            return takeRoads(runs, output);
+
+        } catch (IOException e) {
+            e.printStackTrace();
+            return 0;
+        } finally {
+            for (File run : runs) {
+                run.delete();
+            }
+        }
+    }
+
+    /**
+     * Reads road lines of the input file in order, interning city names, and writes each full run to a temporary file.
+     * Lines are trimmed and empty lines are discarded, the first line is departure and arrival cities, which are not used.
+     *
+     * @param inputFilePath the path of the input file
+     * @param runs          the list to add the run files to, in input order
+     * @throws IOException if the input cannot be read or a run cannot be written
+     */
+    private void readRuns(String inputFilePath, ArrayList<File> runs) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(Paths.get(inputFilePath), StandardCharsets.UTF_8)) {
+            boolean isFirstLine = true;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty()) { //Discards empty lines
+                    continue;
+                }
+                if (isFirstLine) { //Departure and arrival cities
+                    isFirstLine = false;
+                    continue;
+                }
+                String[] lineContent = line.split("\t");
+                firstEnds[runRoadCount] = getCityId(lineContent[0]);
+                secondEnds[runRoadCount] = getCityId(lineContent[1]);
+                lengths[runRoadCount] = Integer.parseInt(lineContent[2]);
+                ids[runRoadCount++] = Integer.parseInt(lineContent[3]);
+                if (runRoadCount == roadsPerRun) { //Run is full, writes it sorted
+                    runs.add(writeRun());
+                }
+            }
+        }
+        if (runRoadCount > 0) { //Last run which is not full
+            runs.add(writeRun());
+        }
+    }
+
+    /**
+     * Returns the ID of the city with the given name, gives a new ID if the name is not found before.
+     *
+     * @param cityName the name of the city
+     * @return the ID of the city
+     */
+    private int getCityId(String cityName) {
+        Integer city = cityIds.get(cityName);
+        if (city == null) {
+            city = cityNames.size();
+            cityIds.put(cityName, city);
+            cityNames.add(cityName);
+        }
+        return city;
+    }
+
+    /**
+     * Sorts the roads of the current run by length, and by ID if lengths are equal, and writes them to a temporary file.
+     * Roads are first sorted by ID and then by length keeping the order of IDs, as in {@code RoadGraph},
+     * so roads having the same length and ID stay in input order.
+     *
+     * @return the run file
+     * @throws IOException if the run cannot be written
+     */
+    private File writeRun() throws IOException {
+        long[] keys = new long[runRoadCount];
+        for (int i = 0; i < runRoadCount; i++) {
+            keys[i] = ((long) ids[i] << 32) | i;
+        }
+        Arrays.parallelSort(keys);
+        int[] sortedById = new int[runRoadCount];
+        for (int i = 0; i < runRoadCount; i++) {
+            sortedById[i] = (int) keys[i];
+        }
+        for (int i = 0; i < runRoadCount; i++) {
+            keys[i] = ((long) lengths[sortedById[i]] << 32) | i;
+        }
+        Arrays.parallelSort(keys);
+
+        File run = createRunFile();
+        try (DataOutputStream runOutput = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(run), RUN_BUFFER_SIZE))) {
+            for (int i = 0; i < runRoadCount; i++) {
+                int road = sortedById[(int) keys[i]];
+                runOutput.writeInt(firstEnds[road]);
+                runOutput.writeInt(secondEnds[road]);
+                runOutput.writeInt(lengths[road]);
+                runOutput.writeInt(ids[road]);
+            }
+        }
+        runRoadCount = 0;
+        return run;
+    }
+
+    /**
+     * Merges the given runs into a single longer run and deletes them.
+     *
+     * @param runs the run files in input order
+     * @return the merged run file
+     * @throws IOException if a run cannot be read or the merged run cannot be written
+     */
+    private File mergeIntoRun(ArrayList<File> runs) throws IOException {
+        File mergedRun = createRunFile();
+        try (DataOutputStream runOutput = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(mergedRun), RUN_BUFFER_SIZE))) {
+            mergeRuns(runs, (firstEnd, secondEnd, length, id) -> {
+                runOutput.writeInt(firstEnd);
+                runOutput.writeInt(secondEnd);
+                runOutput.writeInt(length);
+                runOutput.writeInt(id);
+                return true;
+            });
+        }
+        for (File run : runs) {
+            run.delete();
+        }
+        return mergedRun;
+    }
+
+    /**
+     * Merges the given runs and takes each road connecting two cities that are not connected yet, writing it to the output.
+     * Merging stops when every city is connected, since no later road can be taken.
+     *
+     * @param runs   the run files in input order
+     * @param output the output to write to
+     * @return the number of taken roads
+     * @throws IOException if a run cannot be read
+     */
+    private int takeRoads(ArrayList<File> runs, OutputSink output) throws IOException {
+        UnionFind connectedCities = new UnionFind(cityNames.size());
+        int[] takenRoadCount = new int[1];
+        output.writeLine("Roads of Barely Connected Map is:");
+        mergeRuns(runs, (firstEnd, secondEnd, length, id) -> {
+            if (connectedCities.union(firstEnd, secondEnd)) { //Road connects two separate parts
+                output.writeLine(new Road(cityNames.get(firstEnd), cityNames.get(secondEnd), length, id).toString());
+                takenRoadCount[0]++;
+            }
+            return connectedCities.getSetCount() > 1;
+        });
+        return takenRoadCount[0];
+    }
+
+    /**
+     * Merges the given runs in ascending order of (length, ID), roads of equal length and ID in input order,
+     * and gives each road to the handler until the handler stops the merge.
+     *
+     * @param runs    the run files in input order
+     * @param handler the handler of merged roads
+     * @throws IOException if a run cannot be read, or the handler fails
+     */
+    private static void mergeRuns(ArrayList<File> runs, RoadHandler handler) throws IOException {
+        DataInputStream[] runInputs = new DataInputStream[runs.size()];
+        int[][] heads = new int[runs.size()][]; //Next road of each run, its two ends, length and ID
+        //Runs ordered by their next roads, runs earlier in input come first if roads are equal
+        PriorityQueue<Integer> nextRuns = new PriorityQueue<>(Math.max(1, runs.size()), (first, second) -> {
+            if (heads[first][2] != heads[second][2]) {
+                return Integer.compare(heads[first][2], heads[second][2]);
+            }
+            if (heads[first][3] != heads[second][3]) {
+                return Integer.compare(heads[first][3], heads[second][3]);
+            }
+            return Integer.compare(first, second);
+        });
+        try {
+            for (int run = 0; run < runs.size(); run++) {
+                runInputs[run] = new DataInputStream(new BufferedInputStream(new FileInputStream(runs.get(run)), RUN_BUFFER_SIZE));
+                heads[run] = new int[4];
+                if (readRoad(runInputs[run], heads[run])) {
+                    nextRuns.add(run);
+                }
+            }
+            while (!nextRuns.isEmpty()) {
+                int run = nextRuns.poll();
+                int[] road = heads[run];
+                if (!handler.handle(road[0], road[1], road[2], road[3])) {
+                    return;
+                }
+                if (readRoad(runInputs[run], road)) {
+                    nextRuns.add(run);
+                }
+            }
+        } finally {
+            for (DataInputStream runInput : runInputs) {
+                if (runInput != null) {
+                    runInput.close();
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads the next road of a run into the given array.
+     *
+     * @param runInput the input of the run file
+     * @param road     the array to read the two ends, length and ID of the road into
+     * @return true if a road is read, false if the run is finished
+     * @throws IOException if the run cannot be read
+     */
+    private static boolean readRoad(DataInputStream runInput, int[] road) throws IOException {
+        try {
+            road[0] = runInput.readInt();
+        } catch (EOFException e) {
+            return false;
+        }
+        road[1] = runInput.readInt();
+        road[2] = runInput.readInt();
+        road[3] = runInput.readInt();
+        return true;
+    }
+
+    /**
+     * Creates a temporary file for a run, which is deleted when the program ends if it is not deleted before.
+     *
+     * @return the run file
+     * @throws IOException if the file cannot be created
+     */
+    private static File createRunFile() throws IOException {
+        File run = File.createTempFile("roads", ".run");
+        run.deleteOnExit();
+        return run;
+    }
+
+    /**
+     * This interface handles the roads of a merge in order.
+     */
+    private interface RoadHandler {
+        /**
+         * Handles the next road of a merge.
+         *
+         * @param firstEnd  the ID of the first endpoint of the road
+         * @param secondEnd the ID of the second endpoint of the road
+         * @param length    the length of the road
+         * @param id        the unique identifier of the road
+         * @return true to continue the merge, false to stop it
+         * @throws IOException if the road cannot be handled
+         */
+        boolean handle(int firstEnd, int secondEnd, int length, int id) throws IOException;
+    }
+}
@@ -0,0 +1,125 @@
+/**
+ * This class is the base of route finders that direct the search towards the arrival city with a potential,
+ * a lower bound of the remaining distance from each city to the arrival city.
+ * Cities are visited in ascending order of (distance travelled + potential), so cities far from the arrival city
+ * are visited later or never, unlike the standard search which visits cities in every direction.
+ * Potentials must be consistent (potential of a city is at most the road length plus potential of its neighbor),
+ * so the distance of a city is exact when it is visited.
+ * Since cities are not visited in the standard order, the route is chosen by a {@code CanonicalRouteBuilder}
+ * among the visited cities, so that routes of equal length are chosen the same as the standard search.
+ */
+public abstract class GoalDirectedRouteFinder implements RouteFinder {
+    protected static final int UNREACHABLE = Integer.MAX_VALUE; //Potential of a city from which arrival city cannot be reached
+
+    protected final RoadGraph graph;
+    protected final ShortestPathTree tree;
+    protected final IndexedMinHeap possibleCities;
+    private final CanonicalRouteBuilder routeBuilder;
+    private final int[] visitedCities; //Cities visited by the last search in order
+    private final int[] visitedDistances; //Distance of each visited city in the same order
+    private int visitedCityCount;
+
+    /**
+     * Constructs a route finder over the given graph.
+     *
+     * @param graph a graph containing all roads connecting the cities
+     */
+    protected GoalDirectedRouteFinder(RoadGraph graph) {
+        this.graph = graph;
+        tree = new ShortestPathTree(graph.getCityCount());
+        possibleCities = new IndexedMinHeap(graph.getCityCount());
+        routeBuilder = new CanonicalRouteBuilder(graph);
+        visitedCities = new int[graph.getCityCount()];
+        visitedDistances = new int[graph.getCityCount()];
+    }
+
+    /**
+     * Returns a lower bound of the distance from the given city to the arrival city.
+     *
+     * @param city    the ID of the city
+     * @param arrival the ID of the arrival city
+     * @return the potential of the city, UNREACHABLE if arrival city cannot be reached from the city
+     */
+    protected abstract int getPotential(int city, int arrival);
+
+    /**
+     * Searches towards the arrival city, visiting cities in ascending order of (distance travelled + potential).
+     * Search continues after the arrival city is visited until every city that may be on a fastest route is visited,
+     * which are the cities whose (distance travelled + potential) is not more than the length of the fastest route.
+     * Counts of the search are added to {@code MetricsManager} when it ends.
+     *
+     * @param departure     the ID of the departure city
+     * @param arrival       the ID of the arrival city
+     * @param routeDistance the length of the fastest route if it is already known, Long.MAX_VALUE otherwise
+     * @return the fastest route, null if arrival city cannot be reached
+     */
+    protected Route searchWithPotential(int departure, int arrival, long routeDistance) {
+        tree.clear(departure);
+        possibleCities.clear();
+        visitedCityCount = 0;
+        if (!graph.getReachabilityIndex().isReachable(departure, arrival)) { //Arrival city cannot be reached
+            return null;
+        }
+        int departurePotential = getPotential(departure, arrival);
+        if (departurePotential == UNREACHABLE) {
+            return null;
+        }
+        possibleCities.insert(departure, departurePotential);
+        int relaxedEdgeCount = 0;
+        int heapOperationCount = 1;
+
+        while (!possibleCities.isEmpty() && possibleCities.peekKey() <= routeDistance) {
+            int city = possibleCities.pollMin();
+            tree.markReached(city);
+            heapOperationCount++;
+            visitedCities[visitedCityCount] = city;
+            visitedDistances[visitedCityCount++] = tree.getDistance(city);
+            if (city == arrival) { //Length of the fastest route is known, cities that may be on another equal route remain
+                routeDistance = tree.getDistance(city);
+            }
+
+            for (int edge = graph.getEdgeOffset(city); edge < graph.getEdgeOffset(city + 1); edge++) {
+                int nextCity = graph.getEdgeTarget(edge); //The other end (neighbor end)
+                if (tree.isReached(nextCity)) { //Neighbor is already visited
+                    continue;
+                }
+                int distance = tree.getDistance(city) + graph.getEdgeLength(edge);
+                relaxedEdgeCount++;
+
+                if (!possibleCities.contains(nextCity)) { //Neighbor is found for the first time
+                    int potential = getPotential(nextCity, arrival);
+                    if (potential == UNREACHABLE) { //Arrival city cannot be reached through the neighbor
+                        continue;
+                    }
+                    possibleCities.insert(nextCity, (long) distance + potential);
+                    tree.addCity(nextCity, distance, graph.getEdgeRoad(edge), city);
+                    heapOperationCount++;
+
+                } else if (distance < tree.getDistance(nextCity)) { //Neighbor is found with a shorter distance
+                    //Potential is taken back from the key instead of being calculated again
+                    long potential = possibleCities.getKey(nextCity) - tree.getDistance(nextCity);
+                    possibleCities.decreaseKey(nextCity, distance + potential);
+                    tree.setParent(nextCity, distance, graph.getEdgeRoad(edge), city);
+                    heapOperationCount++;
+                }
+            }
+        }
+        MetricsManager.addSearchCounts(visitedCityCount, relaxedEdgeCount, heapOperationCount);
+
+        if (!tree.isReached(arrival)) { //Cities are not connected
+            return null;
+        }
+        int[] roads = routeBuilder.buildRoute(departure, arrival, visitedCities, visitedDistances, visitedCityCount);
+        return new Route(tree.getDistance(arrival), roads);
+    }
+
+    /**
+     * Returns the number of cities visited by the last search towards the arrival city.
+     *
+     * @return the number of cities visited by the last search
+     */
+    @Override
+    public int getVisitedCityCount() {
+        return visitedCityCount;
+    }
+}
@@ -0,0 +1,277 @@
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+
+/**
+ * This class writes and opens binary graph files, which keep a road map in the same form as {@code RoadGraph}.
+ * A graph file is opened by mapping its sections into memory, nothing is parsed or copied,
+ * so a huge map is ready in milliseconds and processes opening the same file share its pages.
+ * All integers are little-endian. File layout is a 32 byte header followed by sections:
+ * <pre>
+ * header:   magic, version, city count, road count, name byte count, departure byte count, arrival byte count, 0
+ * strings:  UTF-8 bytes of departure and arrival city, padded to a multiple of 4 bytes
+ * integers: name offsets [cities + 1], cities sorted by name [cities],
+ *           road first ends, road second ends, road lengths, road IDs [roads each],
+ *           edge offsets [cities + 1], edge targets, edge lengths, edge roads [2 * roads each]
+ * names:    UTF-8 bytes of all city names
+ * </pre>
+ */
+public class GraphFile {
+    private static final int FILE_MAGIC = 0x48505247; //Marks a graph file, "GRPH" in ASCII as little-endian
+    private static final int FILE_VERSION = 1;
+    private static final int HEADER_SIZE = 32;
+
+    /**
+     * Returns whether the file at the given path is a graph file.
+     * Mark alone is not enough, since a text input may start with a city named "GRPH...",
+     * so the version and the unused header field must match too, and the sizes in the header must give the file size.
+     *
+     * @param path the path of the file
+     * @return true if the file has the header of a graph file of this version, false otherwise
+     */
+    public static boolean isGraphFile(String path) {
+        try (RandomAccessFile file = new RandomAccessFile(path, "r")) {
+            if (file.length() < HEADER_SIZE) {
+                return false;
+            }
+            byte[] headerBytes = new byte[HEADER_SIZE];
+            file.readFully(headerBytes);
+            ByteBuffer header = ByteBuffer.wrap(headerBytes).order(ByteOrder.LITTLE_ENDIAN);
+            int magic = header.getInt();
+            int version = header.getInt();
+            int cityCount = header.getInt();
+            int roadCount = header.getInt();
+            int nameByteCount = header.getInt();
+            int departureLength = header.getInt();
+            int arrivalLength = header.getInt();
+            int unused = header.getInt();
+            if (magic != FILE_MAGIC || version != FILE_VERSION || unused != 0
+                    || cityCount < 0 || roadCount < 0 || nameByteCount < 0 || departureLength < 0 || arrivalLength < 0) {
+                return false;
+            }
+            long fileSize = getIntegersStart(departureLength, arrivalLength) + 4 * getIntegerCount(cityCount, roadCount) + nameByteCount;
+            return file.length() == fileSize;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Writes the given graph and the departure and arrival cities to a graph file.
+     * Each section is mapped and filled in place, so the graph is not kept in memory twice.
+     *
+     * @param path          the path of the graph file
+     * @param departureCity the name of the departure city
+     * @param arrivalCity   the name of the arrival city
+     * @param graph         a graph containing all roads connecting the cities
+     */
+    public static void write(String path, String departureCity, String arrivalCity, RoadGraph graph) {
+        int cityCount = graph.getCityCount();
+        int roadCount = graph.getRoadCount();
+
+        //Names in byte form, and cities in ascending byte order of names for binary search
+        byte[][] names = new byte[cityCount][];
+        long nameByteCount = 0;
+        for (int city = 0; city < cityCount; city++) {
+            names[city] = graph.getCityName(city).getBytes(StandardCharsets.UTF_8);
+            nameByteCount += names[city].length;
+        }
+        if (nameByteCount > Integer.MAX_VALUE) {
+            System.out.printf("ERROR: City names of the map are too long for a graph file. Program is going to terminate!%n");
+            System.exit(1);
+        }
+        Integer[] sortedCities = new Integer[cityCount];
+        for (int city = 0; city < cityCount; city++) {
+            sortedCities[city] = city;
+        }
+        Arrays.sort(sortedCities, Comparator.comparing((Integer city) -> names[city], Arrays::compareUnsigned));
+
+        byte[] departure = departureCity.getBytes(StandardCharsets.UTF_8);
+        byte[] arrival = arrivalCity.getBytes(StandardCharsets.UTF_8);
+        long integersStart = getIntegersStart(departure.length, arrival.length);
+        long namesStart = integersStart + 4 * getIntegerCount(cityCount, roadCount);
+
+        try (RandomAccessFile file = new RandomAccessFile(path, "rw"); FileChannel channel = file.getChannel()) {
+            file.setLength(0);
+            file.setLength(namesStart + nameByteCount);
+
+            ByteBuffer header = map(channel, FileChannel.MapMode.READ_WRITE, 0, integersStart);
+            header.putInt(FILE_MAGIC).putInt(FILE_VERSION).putInt(cityCount).putInt(roadCount)
+                    .putInt((int) nameByteCount).putInt(departure.length).putInt(arrival.length).putInt(0);
+            header.put(departure).put(arrival);
+
+            long position = integersStart;
+            IntBuffer nameOffsets = mapIntegers(channel, FileChannel.MapMode.READ_WRITE, position, cityCount + 1);
+            int nameOffset = 0;
+            for (int city = 0; city < cityCount; city++) {
+                nameOffsets.put(nameOffset);
+                nameOffset += names[city].length;
+            }
+            nameOffsets.put(nameOffset);
+            position += 4L * (cityCount + 1);
+
+            IntBuffer sortedCityBuffer = mapIntegers(channel, FileChannel.MapMode.READ_WRITE, position, cityCount);
+            for (int city : sortedCities) {
+                sortedCityBuffer.put(city);
+            }
+            position += 4L * cityCount;
+
+            //Roads, one section for each road array
+            IntBuffer firstEnds = mapIntegers(channel, FileChannel.MapMode.READ_WRITE, position, roadCount);
+            IntBuffer secondEnds = mapIntegers(channel, FileChannel.MapMode.READ_WRITE, position + 4L * roadCount, roadCount);
+            IntBuffer lengths = mapIntegers(channel, FileChannel.MapMode.READ_WRITE, position + 8L * roadCount, roadCount);
+            IntBuffer ids = mapIntegers(channel, FileChannel.MapMode.READ_WRITE, position + 12L * roadCount, roadCount);
+            for (int road = 0; road < roadCount; road++) {
+                firstEnds.put(graph.getRoadFirstEnd(road));
+                secondEnds.put(graph.getRoadSecondEnd(road));
+                lengths.put(graph.getRoadLength(road));
+                ids.put(graph.getRoadId(road));
+            }
+            position += 16L * roadCount;
+
+            //Edge slices, already sorted by the graph
+            IntBuffer edgeOffsets = mapIntegers(channel, FileChannel.MapMode.READ_WRITE, position, cityCount + 1);
+            for (int city = 0; city <= cityCount; city++) {
+                edgeOffsets.put(graph.getEdgeOffset(city));
+            }
+            position += 4L * (cityCount + 1);
+            int edgeCount = 2 * roadCount;
+            IntBuffer edgeTargets = mapIntegers(channel, FileChannel.MapMode.READ_WRITE, position, edgeCount);
+            IntBuffer edgeLengths = mapIntegers(channel, FileChannel.MapMode.READ_WRITE, position + 4L * edgeCount, edgeCount);
+            IntBuffer edgeRoads = mapIntegers(channel, FileChannel.MapMode.READ_WRITE, position + 8L * edgeCount, edgeCount);
+            for (int edge = 0; edge < edgeCount; edge++) {
+                edgeTargets.put(graph.getEdgeTarget(edge));
+                edgeLengths.put(graph.getEdgeLength(edge));
+                edgeRoads.put(graph.getEdgeRoad(edge));
+            }
+
+            ByteBuffer nameBytes = map(channel, FileChannel.MapMode.READ_WRITE, namesStart, nameByteCount);
+            for (byte[] name : names) {
+                nameBytes.put(name);
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Opens a graph file by mapping its sections into memory.
+     * The returned HashMap has the same structure as {@code InputManager.readInput}.
+     * Terminates the program if the file is not a graph file of this version, or it cannot be read.
+     *
+     * @param path the path of the graph file
+     * @return a HashMap containing the departure city, the arrival city and the graph
+     */
+    public static HashMap<String, Object> read(String path) {
+        try (RandomAccessFile file = new RandomAccessFile(path, "r"); FileChannel channel = file.getChannel()) {
+            ByteBuffer header = map(channel, FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+            if (header.getInt() != FILE_MAGIC || header.getInt() != FILE_VERSION) { //Not a graph file, or an old one
+                System.out.printf("ERROR: \"%s\" is not a graph file of version %d. Program is going to terminate!%n", path, FILE_VERSION);
+                System.exit(1);
+                return null;
+            }
+            int cityCount = header.getInt();
+            int roadCount = header.getInt();
+            int nameByteCount = header.getInt();
+            int departureLength = header.getInt();
+            int arrivalLength = header.getInt();
+
+            ByteBuffer strings = map(channel, FileChannel.MapMode.READ_ONLY, HEADER_SIZE, departureLength + arrivalLength);
+            byte[] departure = new byte[departureLength];
+            byte[] arrival = new byte[arrivalLength];
+            strings.get(departure).get(arrival);
+
+            long position = getIntegersStart(departureLength, arrivalLength);
+            IntBuffer nameOffsets = mapIntegers(channel, FileChannel.MapMode.READ_ONLY, position, cityCount + 1);
+            position += 4L * (cityCount + 1);
+            IntBuffer sortedCities = mapIntegers(channel, FileChannel.MapMode.READ_ONLY, position, cityCount);
+            position += 4L * cityCount;
+            IntBuffer firstEnds = mapIntegers(channel, FileChannel.MapMode.READ_ONLY, position, roadCount);
+            IntBuffer secondEnds = mapIntegers(channel, FileChannel.MapMode.READ_ONLY, position + 4L * roadCount, roadCount);
+            IntBuffer lengths = mapIntegers(channel, FileChannel.MapMode.READ_ONLY, position + 8L * roadCount, roadCount);
+            IntBuffer ids = mapIntegers(channel, FileChannel.MapMode.READ_ONLY, position + 12L * roadCount, roadCount);
+            position += 16L * roadCount;
+            IntBuffer edgeOffsets = mapIntegers(channel, FileChannel.MapMode.READ_ONLY, position, cityCount + 1);
+            position += 4L * (cityCount + 1);
+            int edgeCount = 2 * roadCount;
+            IntBuffer edgeTargets = mapIntegers(channel, FileChannel.MapMode.READ_ONLY, position, edgeCount);
+            IntBuffer edgeLengths = mapIntegers(channel, FileChannel.MapMode.READ_ONLY, position + 4L * edgeCount, edgeCount);
+            IntBuffer edgeRoads = mapIntegers(channel, FileChannel.MapMode.READ_ONLY, position + 8L * edgeCount, edgeCount);
+            position += 12L * edgeCount;
+            ByteBuffer nameBytes = map(channel, FileChannel.MapMode.READ_ONLY, position, nameByteCount);
+
+            CityNameTable cityNames = new MappedCityNameTable(nameOffsets, sortedCities, nameBytes);
+            HashMap<String, Object> input = new HashMap<>(); //A hash-map to return
+            input.put("departure", new String(departure, StandardCharsets.UTF_8));
+            input.put("arrival", new String(arrival, StandardCharsets.UTF_8));
+            input.put("graph", new RoadGraph(cityNames, firstEnds, secondEnds, lengths, ids, edgeOffsets, edgeTargets, edgeLengths, edgeRoads));
+            return input;
+
+        } catch (IOException e) {
+            e.printStackTrace();
+            System.out.printf("ERROR: Graph file \"%s\" cannot be read. Program is going to terminate!%n", path);
+            System.exit(1);
+            return null;
+        }
+    }
+
+    /**
+     * Returns the position of the first integer section, after the header and the padded strings.
+     *
+     * @param departureLength the number of bytes of the departure city name
+     * @param arrivalLength   the number of bytes of the arrival city name
+     * @return the position of the first integer section in bytes
+     */
+    private static long getIntegersStart(int departureLength, int arrivalLength) {
+        return HEADER_SIZE + (departureLength + arrivalLength + 3) / 4 * 4L;
+    }
+
+    /**
+     * Returns the number of integers in all integer sections.
+     *
+     * @param cityCount the number of cities
+     * @param roadCount the number of roads
+     * @return the number of integers
+     */
+    private static long getIntegerCount(int cityCount, int roadCount) {
+        return 2L * (cityCount + 1) + cityCount + 4L * roadCount + 6L * roadCount;
+    }
+
+    /**
+     * Maps a section of the file into memory as little-endian bytes.
+     *
+     * @param channel  the channel of the file
+     * @param mode     read only or read and write
+     * @param position the position of the section in bytes
+     * @param size     the size of the section in bytes
+     * @return the mapped section
+     * @throws IOException if the section cannot be mapped
+     */
+    private static MappedByteBuffer map(FileChannel channel, FileChannel.MapMode mode, long position, long size) throws IOException {
+        MappedByteBuffer buffer = channel.map(mode, position, size);
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        return buffer;
+    }
+
+    /**
+     * Maps a section of integers of the file into memory.
+     *
+     * @param channel  the channel of the file
+     * @param mode     read only or read and write
+     * @param position the position of the section in bytes
+     * @param count    the number of integers in the section
+     * @return the mapped section as integers
+     * @throws IOException if the section cannot be mapped
+     */
+    private static IntBuffer mapIntegers(FileChannel channel, FileChannel.MapMode mode, long position, int count) throws IOException {
+        return map(channel, mode, position, 4L * count).asIntBuffer();
+    }
+}
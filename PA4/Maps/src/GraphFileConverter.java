@@ -0,0 +1,21 @@
+import java.util.HashMap;
+
+/**
+ * This class serves the main class of a converter from the tab-separated road map format to the binary graph file format.
+ */
+public class GraphFileConverter {
+    /**
+     * Main method of converter class.
+     * Pre-condition: There must be 2 arguments;
+     * args[0]: Input file in the tab-separated road map format
+     * args[1]: Graph file to write, it can be given to MapAnalyzer instead of the input file
+     *
+     * @param args the command line arguments
+     */
+    public static void main(String[] args) {
+        //Reads input file and pulls data
+        HashMap<String, Object> inputMap = InputManager.readInput(args[0]);
+        //Writes the same data as a graph file
+        GraphFile.write(args[1], (String) inputMap.get("departure"), (String) inputMap.get("arrival"), (RoadGraph) inputMap.get("graph"));
+    }
+}
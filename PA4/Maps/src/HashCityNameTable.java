@@ -0,0 +1,53 @@
+import java.util.HashMap;
+
+/**
+ * This class keeps city names in an array indexed by city ID and finds IDs of names with a hash map.
+ */
+public class HashCityNameTable implements CityNameTable {
+    private final String[] cityNames; //City name of each city ID
+    private final HashMap<String, Integer> cityIds; //City ID of each city name
+
+    /**
+     * Constructs a table of the given cities.
+     *
+     * @param cityNames city names indexed by city ID
+     * @param cityIds   a map of city names to their IDs
+     */
+    public HashCityNameTable(String[] cityNames, HashMap<String, Integer> cityIds) {
+        this.cityNames = cityNames;
+        this.cityIds = cityIds;
+    }
+
+    /**
+     * Returns the number of cities in the table.
+     *
+     * @return the number of cities
+     */
+    @Override
+    public int getCityCount() {
+        return cityNames.length;
+    }
+
+    /**
+     * Returns the name of the city with the given ID.
+     *
+     * @param city the ID of the city
+     * @return the name of the city
+     */
+    @Override
+    public String getCityName(int city) {
+        return cityNames[city];
+    }
+
+    /**
+     * Returns the ID of the city with the given name.
+     *
+     * @param cityName the name of the city
+     * @return the ID of the city, -1 if there is no such a city
+     */
+    @Override
+    public int getCityId(String cityName) {
+        Integer cityId = cityIds.get(cityName);
+        return cityId == null ? -1 : cityId;
+    }
+}
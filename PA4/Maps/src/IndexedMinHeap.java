@@ -0,0 +1,181 @@
+import java.util.Arrays;
+
+/**
+ * This class represents an indexed binary min-heap of integer indices in range [0, capacity).
+ * Every index can be in the heap at most once and keeps its own priority key,
+ * so the key of an index already in the heap can be decreased in O(log n) time.
+ */
+public class IndexedMinHeap {
+    private final int[] heap; //Heap array, keeps indices in heap order
+    private final int[] positions; //Position of each index in heap array, -1 if index is not in the heap
+    private final long[] keys; //Priority key of each index
+    private int size;
+
+    /**
+     * Constructs an empty heap which can hold indices in range [0, capacity).
+     *
+     * @param capacity the number of different indices the heap can hold
+     */
+    public IndexedMinHeap(int capacity) {
+        heap = new int[capacity];
+        positions = new int[capacity];
+        keys = new long[capacity];
+        Arrays.fill(positions, -1);
+    }
+
+    /**
+     * Returns whether the heap is empty.
+     *
+     * @return true if there is no index in the heap, false otherwise
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns the number of indices in the heap.
+     *
+     * @return the number of indices in the heap
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns whether the given index is currently in the heap.
+     *
+     * @param index the index to check
+     * @return true if index is in the heap, false otherwise
+     */
+    public boolean contains(int index) {
+        return positions[index] != -1;
+    }
+
+    /**
+     * Returns the priority key of the given index.
+     * Pre-condition: Index must be in the heap.
+     *
+     * @param index the index whose key is wanted
+     * @return the priority key of the index
+     */
+    public long getKey(int index) {
+        return keys[index];
+    }
+
+    /**
+     * Inserts the given index with the given key.
+     * Pre-condition: Index must not be in the heap.
+     *
+     * @param index the index to insert
+     * @param key   the priority key of the index
+     */
+    public void insert(int index, long key) {
+        keys[index] = key;
+        heap[size] = index;
+        positions[index] = size;
+        size++;
+        siftUp(size - 1);
+    }
+
+    /**
+     * Decreases the key of the given index to the given key.
+     * Pre-condition: Index must be in the heap and new key must not be greater than its current key.
+     *
+     * @param index the index whose key is going to be decreased
+     * @param key   the new priority key of the index
+     */
+    public void decreaseKey(int index, long key) {
+        keys[index] = key;
+        siftUp(positions[index]);
+    }
+
+    /**
+     * Removes all indices from the heap in O(size) time, so that the heap can be reused.
+     */
+    public void clear() {
+        for (int position = 0; position < size; position++) {
+            positions[heap[position]] = -1;
+        }
+        size = 0;
+    }
+
+    /**
+     * Returns the minimum key in the heap without removing its index.
+     * Pre-condition: Heap must not be empty.
+     *
+     * @return the minimum priority key in the heap
+     */
+    public long peekKey() {
+        return keys[heap[0]];
+    }
+
+    /**
+     * Removes the index with the minimum key from the heap and returns it.
+     * Pre-condition: Heap must not be empty.
+     *
+     * @return the index which had the minimum key
+     */
+    public int pollMin() {
+        int minIndex = heap[0];
+        size--;
+        if (size > 0) { //Moves last element to root and restores heap order
+            heap[0] = heap[size];
+            positions[heap[0]] = 0;
+            siftDown(0);
+        }
+        positions[minIndex] = -1;
+        return minIndex;
+    }
+
+    /**
+     * Moves the element at given position up until its parent has smaller key.
+     *
+     * @param position the position of the element in heap array
+     */
+    private void siftUp(int position) {
+        int index = heap[position];
+        long key = keys[index];
+        while (position > 0) {
+            int parentPosition = (position - 1) >>> 1;
+            int parentIndex = heap[parentPosition];
+            if (keys[parentIndex] <= key) { //Heap order is satisfied
+                break;
+            }
+            //Moves parent one level down
+            heap[position] = parentIndex;
+            positions[parentIndex] = position;
+            position = parentPosition;
+        }
+        heap[position] = index;
+        positions[index] = position;
+    }
+
+    /**
+     * Moves the element at given position down until its children have greater keys.
+     *
+     * @param position the position of the element in heap array
+     */
+    private void siftDown(int position) {
+        int index = heap[position];
+        long key = keys[index];
+        while (true) {
+            int childPosition = 2 * position + 1;
+            if (childPosition >= size) { //Element is a leaf
+                break;
+            }
+            if (childPosition + 1 < size && keys[heap[childPosition + 1]] < keys[heap[childPosition]]) { //Right child is smaller
+                childPosition++;
+            }
+            int childIndex = heap[childPosition];
+            if (key <= keys[childIndex]) { //Heap order is satisfied
+                break;
+            }
+            //Moves smaller child one level up
+            heap[position] = childIndex;
+            positions[childIndex] = position;
+            position = childPosition;
+        }
+        heap[position] = index;
+        positions[index] = position;
+    }
+}
@@ -0,0 +1,300 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * This class parses a range of road lines of an input file directly from its bytes.
+ * Tabs, line ends and digits are found by scanning bytes, so no regular expression is used and no string is created
+ * for a line; a string is created only once for each different city name in the range.
+ * City names are interned to local IDs in order of first appearance in the range, so ranges can be parsed in parallel
+ * and merged in file order into the same IDs a sequential reader gives.
+ * Lines are read the same way as {@code FileIO.readFile} with trimming and discarding empty lines: bytes up to space are
+ * trimmed from both ends, and both '\n' and '\r' end a line. A line that is not a plain road line, such as a number
+ * with other characters, is kept as a string and parsed by {@code InputManager} with the standard rules instead.
+ * A parser keeps its buffers between ranges, so it is used by a single thread and reused for all of its ranges.
+ */
+public class InputChunkParser {
+    private static final int MAX_DIGITS = 10; //Digits of the longest int, longer numbers are parsed by the standard rules
+
+    private byte[] bytes = new byte[1 << 16]; //Bytes of the current range
+    private int[] hashSlots = new int[1 << 10]; //Local city ID + 1 in each slot of open addressing, 0 if the slot is empty
+    private int[] nameStarts = new int[16]; //Position of the name of each local city in bytes
+    private int[] nameLengths = new int[16];
+    private int[] nameHashes = new int[16];
+
+    /**
+     * Reads the given range of the file and parses its road lines.
+     * Pre-condition: Range must start at the beginning of a line and end at the end of a line.
+     *
+     * @param channel the channel of the input file, it is read at absolute positions so it can be shared by threads
+     * @param start   the position of the first byte of the range
+     * @param end     the position after the last byte of the range
+     * @return the roads of the range with their local city IDs
+     * @throws IOException if the file cannot be read
+     */
+    public ParsedChunk parse(FileChannel channel, long start, long end) throws IOException {
+        int size = (int) (end - start);
+        if (bytes.length < size) {
+            bytes = new byte[size];
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes, 0, size);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, start + buffer.position()) == -1) { //File is shorter than expected
+                break;
+            }
+        }
+        return parse(buffer.position());
+    }
+
+    /**
+     * Parses the road lines in the first given number of bytes of the buffer.
+     *
+     * @param size the number of bytes read
+     * @return the roads of the range with their local city IDs
+     */
+    private ParsedChunk parse(int size) {
+        ParsedChunk chunk = new ParsedChunk(size / 32 + 16);
+        Arrays.fill(hashSlots, 0);
+        int[] tabs = new int[3];
+        int position = 0;
+        while (position < size) {
+            //Leading bytes up to space are trimmed, empty lines are skipped with them
+            if ((bytes[position] & 0xFF) <= ' ') {
+                position++;
+                continue;
+            }
+            int lineStart = position;
+            int tabCount = 0;
+            while (position < size && bytes[position] != '\n' && bytes[position] != '\r') {
+                if (bytes[position] == '\t' && tabCount < tabs.length) {
+                    tabs[tabCount++] = position;
+                }
+                position++;
+            }
+            int lineEnd = position;
+            while ((bytes[lineEnd - 1] & 0xFF) <= ' ') { //Trailing bytes up to space are trimmed
+                lineEnd--;
+            }
+            while (tabCount > 0 && tabs[tabCount - 1] >= lineEnd) { //Trimmed tabs do not separate fields
+                tabCount--;
+            }
+            addLine(chunk, lineStart, lineEnd, tabs, tabCount);
+        }
+        chunk.localNames = new String[chunk.localCityCount];
+        for (int city = 0; city < chunk.localCityCount; city++) {
+            chunk.localNames[city] = new String(bytes, nameStarts[city], nameLengths[city], StandardCharsets.UTF_8);
+            chunk.localNames[city].hashCode(); //Hash is kept by the string, so merging does not compute it again
+        }
+        return chunk;
+    }
+
+    /**
+     * Adds the road at a trimmed line to the chunk, or keeps the line as a string if it is not a plain road line.
+     *
+     * @param chunk     the chunk to add the road
+     * @param lineStart the position of the first byte of the line
+     * @param lineEnd   the position after the last byte of the line
+     * @param tabs      positions of the first tabs of the line
+     * @param tabCount  the number of tabs found in the line, at most 3
+     */
+    private void addLine(ParsedChunk chunk, int lineStart, int lineEnd, int[] tabs, int tabCount) {
+        if (tabCount == 3) {
+            //Fourth field ends at the next tab, the rest of the line is not used
+            int idEnd = tabs[2] + 1;
+            while (idEnd < lineEnd && bytes[idEnd] != '\t') {
+                idEnd++;
+            }
+            long length = parseInteger(tabs[1] + 1, tabs[2]);
+            long id = parseInteger(tabs[2] + 1, idEnd);
+            if (length != Long.MIN_VALUE && id != Long.MIN_VALUE) {
+                int firstEnd = internCity(chunk, lineStart, tabs[0]);
+                int secondEnd = internCity(chunk, tabs[0] + 1, tabs[1]);
+                chunk.addRoad(firstEnd, secondEnd, (int) length, (int) id);
+                return;
+            }
+        }
+        //Line is parsed by the standard rules, which also report it if it is not valid
+        chunk.addLine(new String(bytes, lineStart, lineEnd - lineStart, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Parses a decimal int with an optional sign from the given bytes.
+     *
+     * @param start the position of the first byte of the number
+     * @param end   the position after the last byte of the number
+     * @return the number, Long.MIN_VALUE if the bytes are not a plain decimal int
+     */
+    private long parseInteger(int start, int end) {
+        boolean isNegative = start < end && bytes[start] == '-';
+        if (start < end && (bytes[start] == '-' || bytes[start] == '+')) {
+            start++;
+        }
+        if (start == end || end - start > MAX_DIGITS) {
+            return Long.MIN_VALUE;
+        }
+        long value = 0;
+        for (int i = start; i < end; i++) {
+            int digit = bytes[i] - '0';
+            if (digit < 0 || digit > 9) {
+                return Long.MIN_VALUE;
+            }
+            value = 10 * value + digit;
+        }
+        value = isNegative ? -value : value;
+        return value < Integer.MIN_VALUE || value > Integer.MAX_VALUE ? Long.MIN_VALUE : value;
+    }
+
+    /**
+     * Returns the local ID of the city whose name is at the given bytes, gives a new ID if the name is not found before.
+     *
+     * @param chunk the chunk whose cities are interned
+     * @param start the position of the first byte of the name
+     * @param end   the position after the last byte of the name
+     * @return the local ID of the city
+     */
+    private int internCity(ParsedChunk chunk, int start, int end) {
+        int hash = 0;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + bytes[i];
+        }
+        int mask = hashSlots.length - 1;
+        int slot = mix(hash) & mask;
+        while (hashSlots[slot] != 0) {
+            int city = hashSlots[slot] - 1;
+            if (nameHashes[city] == hash && Arrays.equals(bytes, nameStarts[city], nameStarts[city] + nameLengths[city], bytes, start, end)) {
+                return city;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        int city = chunk.localCityCount++;
+        if (city == nameStarts.length) { //Arrays are full, doubles their capacity
+            nameStarts = Arrays.copyOf(nameStarts, 2 * city);
+            nameLengths = Arrays.copyOf(nameLengths, 2 * city);
+            nameHashes = Arrays.copyOf(nameHashes, 2 * city);
+        }
+        nameStarts[city] = start;
+        nameLengths[city] = end - start;
+        nameHashes[city] = hash;
+        hashSlots[slot] = city + 1;
+        if (2 * chunk.localCityCount > hashSlots.length) { //Table is half full, doubles its capacity
+            growHashSlots(chunk.localCityCount);
+        }
+        return city;
+    }
+
+    /**
+     * Doubles the capacity of the hash table and puts the cities found so far into it again.
+     *
+     * @param cityCount the number of local cities found so far
+     */
+    private void growHashSlots(int cityCount) {
+        hashSlots = new int[2 * hashSlots.length];
+        int mask = hashSlots.length - 1;
+        for (int city = 0; city < cityCount; city++) {
+            int slot = mix(nameHashes[city]) & mask;
+            while (hashSlots[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            hashSlots[slot] = city + 1;
+        }
+    }
+
+    /**
+     * Spreads the bits of a name hash, so that similar names fall into distant slots.
+     *
+     * @param hash the hash of a name
+     * @return the spread hash
+     */
+    private static int mix(int hash) {
+        hash *= 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * This class keeps the roads of a parsed range of lines, in the order of their lines, with local city IDs.
+     */
+    public static class ParsedChunk {
+        private String[] localNames; //City name of each local city ID
+        private int localCityCount;
+        private int[] firstEnds; //Local city ID of the first end of each road, -1 if the road is kept as a line
+        private int[] secondEnds;
+        private int[] lengths;
+        private int[] ids;
+        private int roadCount;
+        private final ArrayList<String> lines = new ArrayList<>(); //Lines that are not plain road lines, in order
+
+        /**
+         * Constructs an empty chunk with the given capacity.
+         *
+         * @param capacity the expected number of roads
+         */
+        private ParsedChunk(int capacity) {
+            firstEnds = new int[capacity];
+            secondEnds = new int[capacity];
+            lengths = new int[capacity];
+            ids = new int[capacity];
+        }
+
+        /**
+         * Adds a road between the cities with given local IDs.
+         *
+         * @param firstEnd  the local ID of the first endpoint of the road, -1 if the road is kept as a line
+         * @param secondEnd the local ID of the second endpoint of the road
+         * @param length    the length of the road
+         * @param id        the unique identifier of the road
+         */
+        private void addRoad(int firstEnd, int secondEnd, int length, int id) {
+            if (roadCount == firstEnds.length) { //Arrays are full, doubles their capacity
+                firstEnds = Arrays.copyOf(firstEnds, 2 * roadCount);
+                secondEnds = Arrays.copyOf(secondEnds, 2 * roadCount);
+                lengths = Arrays.copyOf(lengths, 2 * roadCount);
+                ids = Arrays.copyOf(ids, 2 * roadCount);
+            }
+            firstEnds[roadCount] = firstEnd;
+            secondEnds[roadCount] = secondEnd;
+            lengths[roadCount] = length;
+            ids[roadCount] = id;
+            roadCount++;
+        }
+
+        /**
+         * Adds a line which is parsed by the standard rules when the chunk is merged.
+         *
+         * @param line the trimmed line
+         */
+        private void addLine(String line) {
+            lines.add(line);
+            addRoad(-1, -1, 0, 0);
+        }
+
+        /**
+         * Adds the roads of the chunk to the graph builder in line order.
+         * Cities are added to the builder when they are first used by a road, so chunks merged in file order
+         * give every city the same ID as reading the file line by line.
+         *
+         * @param graphBuilder the builder of the graph to add the roads
+         */
+        public void mergeInto(RoadGraphBuilder graphBuilder) {
+            int[] cityIds = new int[localCityCount]; //City ID in the builder of each local city ID, -1 if not added yet
+            Arrays.fill(cityIds, -1);
+            int lineIndex = 0;
+            for (int road = 0; road < roadCount; road++) {
+                if (firstEnds[road] == -1) { //Line is parsed by the standard rules
+                    InputManager.addRoadFromInputLine(graphBuilder, lines.get(lineIndex++));
+                    continue;
+                }
+                if (cityIds[firstEnds[road]] == -1) {
+                    cityIds[firstEnds[road]] = graphBuilder.addCity(localNames[firstEnds[road]]);
+                }
+                if (cityIds[secondEnds[road]] == -1) {
+                    cityIds[secondEnds[road]] = graphBuilder.addCity(localNames[secondEnds[road]]);
+                }
+                graphBuilder.addRoad(cityIds[firstEnds[road]], cityIds[secondEnds[road]], lengths[road], ids[road]);
+            }
+        }
+    }
+}
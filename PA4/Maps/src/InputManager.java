@@ -1,58 +1,218 @@
-import java.util.ArrayList;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
 import java.util.HashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * This class handles reading input data from a file and
  * processing it into a structured format for use in a map analyzer application.
+ * Road lines are split into ranges of bytes on line boundaries, ranges are parsed from bytes in parallel,
+ * and their roads are merged into the graph builder in file order, so the graph is the same as reading line by line.
  */
 public class InputManager {
+    private static final int CHUNK_SIZE = 1 << 23; //Bytes of road lines parsed by a worker at once
+    private static final int CHUNKS_PER_WORKER = 4; //Number of chunks waiting to be merged per worker, bounds memory
+    private static final int SCAN_SIZE = 1 << 12; //Bytes read at once while looking for a line end
 
     /**
-     * Reads the input from the specified file and processes it into a HashMap.
-     * The HashMap contains the departure city, arrival city, a map of all cities
-     * and their connecting roads in an array-list.
+     * Reads the input from the specified file and processes it into a HashMap, parsing with a worker for each processor.
      *
      * @param filePath the path of the file to read the input from
      * @return a HashMap containing the processed input data
      */
     public static HashMap<String, Object> readInput(String filePath) {
+        return readInput(filePath, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Reads the input from the specified file and processes it into a HashMap.
+     * The HashMap contains the departure city, arrival city and a graph of all cities
+     * and their connecting roads.
+     * A binary graph file written by {@code GraphFileConverter} is opened by mapping it instead of being parsed.
+     * Terminates the program if the file cannot be read, or parsing is failed or interrupted.
+     *
+     * @param filePath    the path of the file to read the input from
+     * @param threadCount the number of worker threads parsing road lines
+     * @return a HashMap containing the processed input data
+     */
+    public static HashMap<String, Object> readInput(String filePath, int threadCount) {
+        if (GraphFile.isGraphFile(filePath)) { //Graph is already in binary form
+            return GraphFile.read(filePath);
+        }
+
+        try (FileChannel channel = FileChannel.open(Paths.get(filePath), StandardOpenOption.READ)) {
+            //First non-empty line
+            long[] roadsStart = new long[1];
+            String[] departureAndArrival = readFirstLine(channel, roadsStart).split("\t");
+            String departure = departureAndArrival[0];
+            String arrival = departureAndArrival[1];
+
+            //Builder of the graph of all cities and their connecting roads.
+            RoadGraphBuilder graphBuilder = new RoadGraphBuilder();
+            //Rest of the lines, city names are interned to IDs
+            addRoadsFromInput(graphBuilder, channel, roadsStart[0], threadCount);
+
+            HashMap<String, Object> input = new HashMap<>(); //A hash-map to return
+            input.put("departure", departure); //Includes departure city from the first line
+            input.put("arrival", arrival); //Includes arrival city from the first line
+            input.put("graph", graphBuilder.build()); //Includes graph created from the rest of lines
+
+            return input;
+
+        } catch (IOException e) { //Callers need the whole graph, so nothing can be done without it
+            e.printStackTrace();
+            System.out.printf("ERROR: Input file \"%s\" cannot be read. Program is going to terminate!%n", filePath);
+            System.exit(1);
+            return null;
+        }
+    }
+
+    /**
+     * Parses road lines of the file from the given position in chunks on worker threads and merges them in file order.
+     * Chunks are merged while later chunks are still being parsed, and a small file is parsed without any worker.
+     *
+     * @param graphBuilder the builder of the graph to add the roads
+     * @param channel      the channel of the input file
+     * @param start        the position of the first road line
+     * @param threadCount  the number of worker threads
+     * @throws IOException if the file cannot be read, or parsing is failed or interrupted
+     */
+    private static void addRoadsFromInput(RoadGraphBuilder graphBuilder, FileChannel channel, long start, int threadCount) throws IOException {
+        long fileSize = channel.size();
+        if (fileSize - start <= CHUNK_SIZE || threadCount <= 1) { //Parsed by this thread chunk by chunk
+            InputChunkParser parser = new InputChunkParser();
+            for (long chunkStart = start; chunkStart < fileSize; ) {
+                long chunkEnd = findLineBoundary(channel, chunkStart + CHUNK_SIZE, fileSize);
+                parser.parse(channel, chunkStart, chunkEnd).mergeInto(graphBuilder);
+                chunkStart = chunkEnd;
+            }
+            return;
+        }
 
-        String[] lines = FileIO.readFile(filePath, true, true);
-        String[] departureAndArrival = lines[0].split("\t"); //First line
-        String departure = departureAndArrival[0];
-        String arrival = departureAndArrival[1];
+        ExecutorService workers = Executors.newFixedThreadPool(threadCount);
+        //Parser of each worker thread, created once per thread and reused for all its chunks
+        ThreadLocal<InputChunkParser> parsers = ThreadLocal.withInitial(InputChunkParser::new);
+        //Chunks in file order, which are being parsed or waiting to be merged
+        ArrayDeque<Future<InputChunkParser.ParsedChunk>> pendingChunks = new ArrayDeque<>();
+        try {
+            for (long chunkStart = start; chunkStart < fileSize; ) {
+                long chunkEnd = findLineBoundary(channel, chunkStart + CHUNK_SIZE, fileSize);
+                long rangeStart = chunkStart;
+                pendingChunks.add(workers.submit(() -> parsers.get().parse(channel, rangeStart, chunkEnd)));
+                chunkStart = chunkEnd;
 
-        //A map of all cities and their connecting roads in an array-list.
-        HashMap<String, ArrayList<Road>> allRoadsOfCities = new HashMap<>();
+                //Merges the oldest chunks if too many chunks are waiting
+                while (pendingChunks.size() > CHUNKS_PER_WORKER * threadCount) {
+                    pendingChunks.poll().get().mergeInto(graphBuilder);
+                }
+            }
+            while (!pendingChunks.isEmpty()) { //Merges the rest of chunks in order
+                pendingChunks.poll().get().mergeInto(graphBuilder);
+            }
 
-        for (int i = 1; i < lines.length; i++) { //Rest of the lines
+        } catch (ExecutionException e) { //Reported by the caller like a failure of reading
+            throw new IOException(e.getCause());
+        } catch (InterruptedException e) { //Rest of the roads are not merged, so the graph would be partial
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        } finally {
+            workers.shutdownNow();
+        }
+    }
 
-            Road road = createRoadFromInputLine(lines[i]);
-            //Adds Road object just created into both ends of the road in map
-            MapManager.addRoadToCityMap(allRoadsOfCities, road);
+    /**
+     * Reads the first non-empty line of the file, trimmed. Both '\n' and '\r' end a line.
+     *
+     * @param channel the channel of the input file
+     * @param lineEnd a single element array to put the position of the end of the line into
+     * @return the first non-empty line, an empty string if there is none
+     * @throws IOException if the file cannot be read
+     */
+    private static String readFirstLine(FileChannel channel, long[] lineEnd) throws IOException {
+        long fileSize = channel.size();
+        long lineStart = -1; //Position of the first byte above space, -1 until it is found
+        for (long scanStart = 0; scanStart < fileSize; scanStart += SCAN_SIZE) {
+            byte[] scanned = readBytes(channel, scanStart, (int) Math.min(SCAN_SIZE, fileSize - scanStart));
+            for (int i = 0; i < scanned.length; i++) {
+                if (lineStart == -1 && (scanned[i] & 0xFF) > ' ') {
+                    lineStart = scanStart + i;
+                } else if (lineStart != -1 && (scanned[i] == '\n' || scanned[i] == '\r')) {
+                    lineEnd[0] = scanStart + i;
+                    return new String(readBytes(channel, lineStart, (int) (lineEnd[0] - lineStart)), StandardCharsets.UTF_8).trim();
+                }
+            }
         }
+        lineEnd[0] = fileSize;
+        return lineStart == -1 ? "" : new String(readBytes(channel, lineStart, (int) (fileSize - lineStart)), StandardCharsets.UTF_8).trim();
+    }
 
-        HashMap<String, Object> input = new HashMap<>(); //A hash-map to return
-        input.put("departure", departure); //Includes departure city from the first line
-        input.put("arrival", arrival); //Includes arrival city from the first line
-        input.put("allRoadsOfCities", allRoadsOfCities); //Includes map created from the rest of lines
+    /**
+     * Returns the first line boundary at or after the given position, which is a position right after a '\n' or the end of file.
+     *
+     * @param channel  the channel of the input file
+     * @param position the position to start looking from
+     * @param fileSize the size of the file
+     * @return the position of the line boundary
+     * @throws IOException if the file cannot be read
+     */
+    private static long findLineBoundary(FileChannel channel, long position, long fileSize) throws IOException {
+        if (position >= fileSize) {
+            return fileSize;
+        }
+        if (position == 0) {
+            position = 1; //A line cannot end before the first byte
+        }
+        //Position is a boundary if the byte before it is '\n'
+        for (long scanStart = position - 1; scanStart < fileSize; scanStart += SCAN_SIZE) {
+            byte[] scanned = readBytes(channel, scanStart, (int) Math.min(SCAN_SIZE, fileSize - scanStart));
+            for (int i = 0; i < scanned.length; i++) {
+                if (scanned[i] == '\n') {
+                    return scanStart + i + 1;
+                }
+            }
+        }
+        return fileSize;
+    }
 
-        return input;
+    /**
+     * Reads the given number of bytes of the file from the given position.
+     *
+     * @param channel  the channel of the input file
+     * @param position the position of the first byte
+     * @param count    the number of bytes
+     * @return the bytes read
+     * @throws IOException if the file cannot be read
+     */
+    private static byte[] readBytes(FileChannel channel, long position, int count) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(count);
+        while (buffer.hasRemaining() && channel.read(buffer, position + buffer.position()) != -1) {
+            //Reads until the buffer is full or the file ends
+        }
+        return buffer.array();
     }
 
     /**
-     * Creates a Road object from a line of input.
+     * Adds the road at a line of input to the graph builder.
+     * Lines which are not plain road lines are parsed here instead of by {@code InputChunkParser}, so all lines follow the same rules.
      *
-     * @param line the line of input at specified structure ("<FirstEnd>\t<SecondEnd>\t<Length>\t<ID>")
-     * @return a new Road object created from the input line
+     * @param graphBuilder the builder of the graph to add the road
+     * @param line         the line of input at specified structure ("<FirstEnd>\t<SecondEnd>\t<Length>\t<ID>")
      */
-    private static Road createRoadFromInputLine(String line) {
+    static void addRoadFromInputLine(RoadGraphBuilder graphBuilder, String line) {
         String[] lineContent = line.split("\t");
         String firstEnd = lineContent[0];
         String secondEnd = lineContent[1];
         int length = Integer.parseInt(lineContent[2]);
         int id = Integer.parseInt(lineContent[3]);
 
-        return new Road(firstEnd, secondEnd, length, id, line);
+        graphBuilder.addRoad(firstEnd, secondEnd, length, id);
     }
 }
@@ -0,0 +1,33 @@
+import java.util.Arrays;
+
+/**
+ * This class finds the barely connected map with Kruskal's algorithm.
+ * Roads are tried in ascending order of length and ID, and a road is taken
+ * if it connects two cities that are not connected yet by the taken roads.
+ */
+public class KruskalSpanningTreeBuilder implements SpanningTreeBuilder {
+
+    /**
+     * Finds the roads of the minimum spanning tree of the given graph, or of the minimum spanning forest if it is not connected.
+     *
+     * @param graph a graph containing all roads connecting the cities
+     * @return road indices of the roads that form the barely connected map
+     */
+    @Override
+    public int[] findSpanningTreeRoads(RoadGraph graph) {
+        UnionFind connectedCities = new UnionFind(graph.getCityCount());
+        //A spanning forest has one road less than its cities for each connected part
+        int[] spanningTreeRoads = new int[graph.getCityCount() - graph.getReachabilityIndex().getComponentCount()];
+        int roadCount = 0;
+
+        for (int road : graph.getRoadsSortedByLength()) {
+            if (roadCount == spanningTreeRoads.length) { //All cities of each part are connected
+                break;
+            }
+            if (connectedCities.union(graph.getRoadFirstEnd(road), graph.getRoadSecondEnd(road))) { //Road connects two separate parts
+                spanningTreeRoads[roadCount++] = road;
+            }
+        }
+        return Arrays.copyOf(spanningTreeRoads, roadCount);
+    }
+}
@@ -0,0 +1,119 @@
+/**
+ * This class keeps distances from a few landmark cities to every city, which give lower bounds of distances between cities.
+ * For any cities u and t and a landmark L, by the triangle inequality, distance(u, t) is at least |distance(L, u) - distance(L, t)|.
+ * Landmarks are chosen one by one as the city farthest from the landmarks chosen before, so they lie at the edges of the map.
+ * Index is only read after it is built, so it can be shared by route finders of several threads.
+ */
+public class LandmarkIndex {
+    private final int landmarkCount;
+    private final int[] landmarks; //City ID of each landmark
+    private final int[] distances; //Distances of city c are in range [c * landmarkCount, (c + 1) * landmarkCount), -1 if unreachable
+
+    /**
+     * Constructs an index with the given landmarks and distances.
+     *
+     * @param landmarks city IDs of the landmarks
+     * @param distances distances from each landmark to each city, grouped by city
+     */
+    private LandmarkIndex(int[] landmarks, int[] distances) {
+        this.landmarkCount = landmarks.length;
+        this.landmarks = landmarks;
+        this.distances = distances;
+    }
+
+    /**
+     * Chooses landmarks of the given graph and finds their distances to every city.
+     * A city that cannot be reached from any chosen landmark is farther than every reachable city,
+     * so every part of a disconnected map gets a landmark if there are enough landmarks.
+     *
+     * @param graph         a graph containing all roads connecting the cities
+     * @param landmarkCount the number of landmarks to choose
+     * @return the index of the chosen landmarks
+     */
+    public static LandmarkIndex build(RoadGraph graph, int landmarkCount) {
+        int cityCount = graph.getCityCount();
+        landmarkCount = Math.min(landmarkCount, cityCount);
+        int[] landmarks = new int[landmarkCount];
+        int[] distances = new int[cityCount * landmarkCount];
+        if (landmarkCount == 0) {
+            return new LandmarkIndex(landmarks, distances);
+        }
+
+        ShortestPathTree tree = new ShortestPathTree(cityCount);
+        IndexedMinHeap possibleCities = new IndexedMinHeap(cityCount);
+        long[] nearestDistances = new long[cityCount]; //Distance of each city to its nearest chosen landmark
+
+        //First landmark is the city farthest from the first city
+        MapManager.findShortestPathTree(graph, 0, -1, tree, possibleCities);
+        for (int city = 0; city < cityCount; city++) {
+            nearestDistances[city] = tree.isReached(city) ? tree.getDistance(city) : Long.MAX_VALUE;
+        }
+
+        for (int i = 0; i < landmarkCount; i++) {
+            int landmark = 0;
+            for (int city = 1; city < cityCount; city++) {
+                if (nearestDistances[city] > nearestDistances[landmark]) {
+                    landmark = city;
+                }
+            }
+            landmarks[i] = landmark;
+
+            MapManager.findShortestPathTree(graph, landmark, -1, tree, possibleCities);
+            for (int city = 0; city < cityCount; city++) {
+                int distance = tree.isReached(city) ? tree.getDistance(city) : -1;
+                distances[city * landmarkCount + i] = distance;
+                if (i == 0) { //Distances from the first city are not distances to a landmark
+                    nearestDistances[city] = distance == -1 ? Long.MAX_VALUE : distance;
+                } else if (distance != -1) {
+                    nearestDistances[city] = Math.min(nearestDistances[city], distance);
+                }
+            }
+        }
+        return new LandmarkIndex(landmarks, distances);
+    }
+
+    /**
+     * Returns a lower bound of the distance between the given cities.
+     * Lower bound is consistent, it changes at most by the length of a road between two neighbor cities.
+     *
+     * @param city   the ID of the city
+     * @param target the ID of the target city
+     * @return the lower bound of the distance, Integer.MAX_VALUE if cities are known not to be connected
+     */
+    public int getLowerBound(int city, int target) {
+        int lowerBound = 0;
+        int cityOffset = city * landmarkCount;
+        int targetOffset = target * landmarkCount;
+        for (int i = 0; i < landmarkCount; i++) {
+            int cityDistance = distances[cityOffset + i];
+            int targetDistance = distances[targetOffset + i];
+            if (cityDistance == -1 || targetDistance == -1) {
+                if (cityDistance != targetDistance) { //Only one of the cities is connected to the landmark
+                    return Integer.MAX_VALUE;
+                }
+                continue; //Landmark is in another part of the map
+            }
+            lowerBound = Math.max(lowerBound, Math.abs(cityDistance - targetDistance));
+        }
+        return lowerBound;
+    }
+
+    /**
+     * Returns the number of landmarks of the index.
+     *
+     * @return the number of landmarks
+     */
+    public int getLandmarkCount() {
+        return landmarkCount;
+    }
+
+    /**
+     * Returns the city ID of the given landmark.
+     *
+     * @param landmark the index of the landmark
+     * @return the ID of the landmark city
+     */
+    public int getLandmark(int landmark) {
+        return landmarks[landmark];
+    }
+}
@@ -0,0 +1,41 @@
+/**
+ * This class finds fastest routes with A* search, using lower bounds given by landmark distances as potentials (ALT).
+ */
+public class LandmarkRouteFinder extends GoalDirectedRouteFinder {
+    private final LandmarkIndex landmarks;
+
+    /**
+     * Constructs a route finder over the given graph using the given landmarks.
+     *
+     * @param graph     a graph containing all roads connecting the cities
+     * @param landmarks the landmark index of the same graph, it may be shared by several route finders
+     */
+    public LandmarkRouteFinder(RoadGraph graph, LandmarkIndex landmarks) {
+        super(graph);
+        this.landmarks = landmarks;
+    }
+
+    /**
+     * Finds the fastest route from the departure city to the arrival city.
+     *
+     * @param departure the ID of the departure city
+     * @param arrival   the ID of the arrival city
+     * @return the fastest route, null if arrival city cannot be reached
+     */
+    @Override
+    public Route findFastestRoute(int departure, int arrival) {
+        return searchWithPotential(departure, arrival, Long.MAX_VALUE);
+    }
+
+    /**
+     * Returns the landmark lower bound of the distance from the given city to the arrival city.
+     *
+     * @param city    the ID of the city
+     * @param arrival the ID of the arrival city
+     * @return the potential of the city, UNREACHABLE if arrival city cannot be reached from the city
+     */
+    @Override
+    protected int getPotential(int city, int arrival) {
+        return landmarks.getLowerBound(city, arrival);
+    }
+}
@@ -0,0 +1,262 @@
+import java.util.Arrays;
+import java.util.function.IntBinaryOperator;
+
+/**
+ * This class represents a forest of rooted trees which can be linked and cut, with link-cut trees.
+ * Each node has an integer value, and the greatest value on the path between two nodes is found.
+ * Each tree is kept as preferred paths, each path is a splay tree ordered by depth, and paths are joined by path-parent links.
+ * Every operation costs amortized O(log n).
+ */
+public class LinkCutTree {
+    private static final int NONE = -1;
+
+    private final IntBinaryOperator greaterValue; //Chooses the greater one of two values, NONE is smaller than every value
+    private int[] parents = new int[16]; //Parent in splay tree, or path-parent if node is the root of its splay tree
+    private int[] leftChildren = new int[16];
+    private int[] rightChildren = new int[16];
+    private boolean[] isReversed = new boolean[16]; //Whether children of the subtree are to be swapped
+    private int[] values = new int[16];
+    private int[] greatestValues = new int[16]; //Greatest value in the splay subtree of each node
+    private int nodeCount;
+    private int[] splayPath = new int[16]; //Nodes from a splay root down to the splayed node, reused by every splay
+
+    /**
+     * Constructs an empty forest.
+     *
+     * @param greaterValue the function returning the greater one of two values, NONE (-1) must be smaller than every value
+     */
+    public LinkCutTree(IntBinaryOperator greaterValue) {
+        this.greaterValue = greaterValue;
+    }
+
+    /**
+     * Adds a new node which is a tree on its own.
+     *
+     * @param value the value of the node, -1 for no value
+     * @return the ID of the node
+     */
+    public int addNode(int value) {
+        if (nodeCount == values.length) { //Arrays are full, doubles their capacity
+            parents = Arrays.copyOf(parents, 2 * nodeCount);
+            leftChildren = Arrays.copyOf(leftChildren, 2 * nodeCount);
+            rightChildren = Arrays.copyOf(rightChildren, 2 * nodeCount);
+            isReversed = Arrays.copyOf(isReversed, 2 * nodeCount);
+            values = Arrays.copyOf(values, 2 * nodeCount);
+            greatestValues = Arrays.copyOf(greatestValues, 2 * nodeCount);
+            splayPath = Arrays.copyOf(splayPath, 2 * nodeCount);
+        }
+        parents[nodeCount] = NONE;
+        leftChildren[nodeCount] = NONE;
+        rightChildren[nodeCount] = NONE;
+        values[nodeCount] = value;
+        greatestValues[nodeCount] = value;
+        return nodeCount++;
+    }
+
+    /**
+     * Links the given nodes with an edge.
+     * Pre-condition: Nodes must be in different trees.
+     *
+     * @param firstNode  the ID of the first node
+     * @param secondNode the ID of the second node
+     */
+    public void link(int firstNode, int secondNode) {
+        makeRoot(firstNode);
+        parents[firstNode] = secondNode;
+    }
+
+    /**
+     * Cuts the edge between the given nodes.
+     * Pre-condition: Nodes must be linked with an edge.
+     *
+     * @param firstNode  the ID of the first node
+     * @param secondNode the ID of the second node
+     */
+    public void cut(int firstNode, int secondNode) {
+        makeRoot(firstNode);
+        access(secondNode);
+        //Path is only the two nodes, first node is the left child of second node
+        leftChildren[secondNode] = NONE;
+        parents[firstNode] = NONE;
+        update(secondNode);
+    }
+
+    /**
+     * Returns whether the given nodes are in the same tree.
+     *
+     * @param firstNode  the ID of the first node
+     * @param secondNode the ID of the second node
+     * @return true if there is a path between the nodes, false otherwise
+     */
+    public boolean isConnected(int firstNode, int secondNode) {
+        return firstNode == secondNode || findRoot(firstNode) == findRoot(secondNode);
+    }
+
+    /**
+     * Finds the greatest value on the path between the given nodes.
+     * Pre-condition: Nodes must be in the same tree.
+     *
+     * @param firstNode  the ID of the first node
+     * @param secondNode the ID of the second node
+     * @return the greatest value on the path, including values of both nodes
+     */
+    public int findGreatestValue(int firstNode, int secondNode) {
+        makeRoot(firstNode);
+        access(secondNode);
+        return greatestValues[secondNode];
+    }
+
+    /**
+     * Makes the given node the root of its tree, by reversing the path from the old root to the node.
+     *
+     * @param node the ID of the node
+     */
+    private void makeRoot(int node) {
+        access(node);
+        isReversed[node] ^= true;
+        push(node);
+    }
+
+    /**
+     * Finds the root of the tree of the given node.
+     *
+     * @param node the ID of the node
+     * @return the ID of the root
+     */
+    private int findRoot(int node) {
+        access(node);
+        int root = node;
+        push(root);
+        while (leftChildren[root] != NONE) { //Root is the shallowest node of the path
+            root = leftChildren[root];
+            push(root);
+        }
+        splay(root);
+        return root;
+    }
+
+    /**
+     * Makes the path from the root of the tree to the given node preferred, and the node the root of its splay tree.
+     * Afterwards, the splay tree of the node contains exactly the path from the root to the node.
+     *
+     * @param node the ID of the node
+     */
+    private void access(int node) {
+        int previous = NONE;
+        for (int current = node; current != NONE; current = parents[current]) {
+            splay(current);
+            rightChildren[current] = previous; //Deeper part of the path is replaced by the path below
+            update(current);
+            previous = current;
+        }
+        splay(node);
+    }
+
+    /**
+     * Moves the given node to the root of its splay tree with rotations.
+     *
+     * @param node the ID of the node
+     */
+    private void splay(int node) {
+        //Pending reversals are pushed down from the splay root before rotating
+        int pathLength = 0;
+        splayPath[pathLength++] = node;
+        for (int current = node; !isSplayRoot(current); current = parents[current]) {
+            splayPath[pathLength++] = parents[current];
+        }
+        while (pathLength > 0) {
+            push(splayPath[--pathLength]);
+        }
+
+        while (!isSplayRoot(node)) {
+            int parent = parents[node];
+            if (!isSplayRoot(parent)) {
+                int grandparent = parents[parent];
+                boolean isZigZig = (leftChildren[grandparent] == parent) == (leftChildren[parent] == node);
+                rotate(isZigZig ? parent : node);
+            }
+            rotate(node);
+        }
+    }
+
+    /**
+     * Rotates the given node above its parent in their splay tree.
+     *
+     * @param node the ID of the node
+     */
+    private void rotate(int node) {
+        int parent = parents[node];
+        int grandparent = parents[parent];
+        if (!isSplayRoot(parent)) { //Node takes the place of its parent in grandparent
+            if (leftChildren[grandparent] == parent) {
+                leftChildren[grandparent] = node;
+            } else {
+                rightChildren[grandparent] = node;
+            }
+        }
+        parents[node] = grandparent; //Path-parent is kept if parent is the splay root
+        if (leftChildren[parent] == node) {
+            leftChildren[parent] = rightChildren[node];
+            if (rightChildren[node] != NONE) {
+                parents[rightChildren[node]] = parent;
+            }
+            rightChildren[node] = parent;
+        } else {
+            rightChildren[parent] = leftChildren[node];
+            if (leftChildren[node] != NONE) {
+                parents[leftChildren[node]] = parent;
+            }
+            leftChildren[node] = parent;
+        }
+        parents[parent] = node;
+        update(parent);
+        update(node);
+    }
+
+    /**
+     * Returns whether the given node is the root of its splay tree.
+     *
+     * @param node the ID of the node
+     * @return true if the node is not a child of its parent in a splay tree, false otherwise
+     */
+    private boolean isSplayRoot(int node) {
+        int parent = parents[node];
+        return parent == NONE || (leftChildren[parent] != node && rightChildren[parent] != node);
+    }
+
+    /**
+     * Applies the pending reversal of the given node to its children.
+     *
+     * @param node the ID of the node
+     */
+    private void push(int node) {
+        if (isReversed[node]) {
+            int leftChild = leftChildren[node];
+            leftChildren[node] = rightChildren[node];
+            rightChildren[node] = leftChild;
+            if (leftChildren[node] != NONE) {
+                isReversed[leftChildren[node]] ^= true;
+            }
+            if (rightChildren[node] != NONE) {
+                isReversed[rightChildren[node]] ^= true;
+            }
+            isReversed[node] = false;
+        }
+    }
+
+    /**
+     * Calculates the greatest value in the splay subtree of the given node from its children.
+     *
+     * @param node the ID of the node
+     */
+    private void update(int node) {
+        int greatestValue = values[node];
+        if (leftChildren[node] != NONE) {
+            greatestValue = greaterValue.applyAsInt(greatestValue, greatestValues[leftChildren[node]]);
+        }
+        if (rightChildren[node] != NONE) {
+            greatestValue = greaterValue.applyAsInt(greatestValue, greatestValues[rightChildren[node]]);
+        }
+        greatestValues[node] = greatestValue;
+    }
+}
@@ -1,4 +1,7 @@
+import java.io.File;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
 
 /**
  * This class serves the main class of a map analyzer application.
@@ -8,34 +11,463 @@ public class MapAnalyzer {
      * Main method of main class.
      * Contains necessary method calls of application
      * Pre-condition: There must be at least 2 argument and must start with;
-     * args[0]: Input file in specified format
+     * args[0]: Input file in specified format, or a graph file written by GraphFileConverter
      * args[1]: Output file
+     * Rest of the arguments are optional and are given as "--name=value";
+     * --mst: Algorithm to create barely connected map, "kruskal" (default) or "boruvka" (parallel)
+     * --external-mst: Writes only the barely connected map, sorting roads in temporary files instead of reading them into memory,
+     *                 for input files whose roads do not fit in memory
+     * --run-roads: Number of roads sorted at once in memory for --external-mst, 1048576 by default
+     * --queries: File of route queries ("<DepartureCity>\t<ArrivalCity>" per line), answers all of them instead of the analysis
+     * --longest-road-queries: File of queries in the same format, answers the longest road on the route of the barely connected map
+     *                         for each of them instead of the analysis
+     * --range-queries: File of range queries ("<DepartureCity>\t<MaxDistance>" per line), lists the cities within the distance
+     *                  of the departure city with their distances for each of them instead of the analysis
+     * --monitor: File of city pairs to monitor, in the same format as route queries, used with --length-updates
+     * --length-updates: File of road length updates ("<RoadID>\t<NewLength>" per line, batches separated by empty lines),
+     *                   writes routes of monitored pairs first and then each route again whenever it changes after a batch
+     * --road-events: File of road events ("ADD_ROAD\t<FirstEnd>\t<SecondEnd>\t<Length>\t<ID>" or "CLOSE_ROAD\t<ID>" per line,
+     *                batches separated by empty lines), writes the barely connected map after each batch instead of the analysis
+     * --matrix: File of depot cities (a city name per line), writes the matrix of fastest route lengths between them instead of the analysis
+     * --matrix-format: Format of the distance matrix, "csv" (default) or "binary"
+     * --threads: Number of worker threads for parsing input, queries, matrix rows, betweenness and "delta" route algorithm, number of available processors by default
+     * --cache-mb: Memory bound of the cache of complete shortest path trees of departure cities for queries, no cache by default,
+     *             trees are found with Dijkstra's algorithm, so it cannot be used with --route
+     * --route: Algorithm to find fastest routes of the original map, "dijkstra" (default), "bidirectional", "alt" (A* with landmarks),
+     *          "ch" (contraction hierarchy), "chain" (chains of pass-through cities collapsed) or "delta" (parallel delta-stepping)
+     * --landmarks: Number of landmarks for "alt" route algorithm, 8 by default
+     * --delta: Bucket width for "delta" route algorithm, a positive number, average road length by default
+     * --ch-index: Index file of the contraction hierarchy for "ch" route algorithm, it is built and written if it does not belong to the map
+     * --stretch-samples: Number of randomly sampled city pairs whose route lengths are compared between two maps after the analysis
+     * --betweenness: Ranks cities and roads by the number of fastest routes passing through them after the analysis,
+     *                "exact" to count routes from every city, or a number of randomly sampled cities to count routes from
+     * --betweenness-top: Number of cities and roads ranked by --betweenness, 10 by default
+     * --metrics: File to write the time of each phase and the counts of searches and output bytes of the run to, as JSON
      *
      * @param args the command line arguments
      */
     public static void main(String[] args) {
         Locale.setDefault(Locale.US);
 
-        //Either creates or cleans the file namely second argument of command line
-        FileIO.writeToFile(args[1], "", false, false);
+        //Reads optional arguments
+        HashMap<String, String> options = readOptions(args);
+        SpanningTreeBuilder spanningTreeBuilder = createSpanningTreeBuilder(options.getOrDefault("mst", "kruskal"));
 
-        //Reads input file and pulls data
-        HashMap<String, Object> inputMap = InputManager.readInput(args[0]);
+        //Either creates or cleans the file namely second argument of command line, it is kept open until the output is finished
+        OutputSink output = new OutputSink(args[1]);
+        try {
+            analyze(args[0], output, options, spanningTreeBuilder);
+        } finally {
+            long startTime = System.nanoTime();
+            output.close();
+            MetricsManager.addPhaseTime("output", startTime);
+        }
+        if (options.containsKey("metrics")) { //Writes where the time of the run is spent
+            MetricsManager.writeMetrics(options.get("metrics"), output.getByteCount());
+        }
+    }
+
+    /**
+     * Reads the input file and writes the output of the mode chosen by optional arguments.
+     * Output is flushed after each part of the analysis, so finished parts are in the file even if a later part fails.
+     * Time of each phase is added to {@code MetricsManager}, a mode other than the analysis is a single phase.
+     *
+     * @param inputFilePath       the path of the input file
+     * @param output              the output to write to
+     * @param options             a map of optional argument names to their values
+     * @param spanningTreeBuilder the algorithm to find roads of the barely connected map
+     */
+    private static void analyze(String inputFilePath, OutputSink output, HashMap<String, String> options, SpanningTreeBuilder spanningTreeBuilder) {
+        if (options.containsKey("external-mst")) { //Out-of-core mode, roads are never read into memory at once
+            if (GraphFile.isGraphFile(inputFilePath)) {
+                System.out.printf("ERROR: --external-mst needs an input file in specified format, not a graph file. Program is going to terminate!%n");
+                System.exit(1);
+            }
+            long startTime = System.nanoTime();
+            MapManager.createBarelyConnectedMapOutOfCore(output, inputFilePath, Integer.parseInt(options.getOrDefault("run-roads", "1048576")));
+            MetricsManager.addPhaseTime("barelyConnectedMap", startTime);
+            return;
+        }
+
+        int threadCount = Integer.parseInt(options.getOrDefault("threads", String.valueOf(Runtime.getRuntime().availableProcessors())));
+        //Workers relaxing roads of delta-stepping searches, shared by all route finders until the analysis is finished
+        ForkJoinPool routeWorkers = options.getOrDefault("route", "dijkstra").equals("delta") ? new ForkJoinPool(threadCount) : null;
+        try {
+            analyzeInput(inputFilePath, output, options, spanningTreeBuilder, threadCount, routeWorkers);
+        } finally {
+            if (routeWorkers != null) {
+                routeWorkers.shutdown();
+            }
+        }
+    }
+
+    /**
+     * Reads the input file, which is not read out of core, and writes the output of the mode chosen by optional arguments.
+     *
+     * @param inputFilePath       the path of the input file
+     * @param output              the output to write to
+     * @param options             a map of optional argument names to their values
+     * @param spanningTreeBuilder the algorithm to find roads of the barely connected map
+     * @param threadCount         the number of worker threads
+     * @param routeWorkers        the workers of delta-stepping route finders, null if another route algorithm is used
+     */
+    private static void analyzeInput(String inputFilePath, OutputSink output, HashMap<String, String> options, SpanningTreeBuilder spanningTreeBuilder,
+                                     int threadCount, ForkJoinPool routeWorkers) {
+        //Reads input file and pulls data, road lines are parsed in parallel
+        long startTime = System.nanoTime();
+        HashMap<String, Object> inputMap = InputManager.readInput(inputFilePath, threadCount);
         //Keeps departure city data
         String departureCity = (String) inputMap.get("departure");
         //Keeps arrival city data
         String arrivalCity = (String) inputMap.get("arrival");
-        //Keeps cities' and roads connects to them in map
-        HashMap<String, ArrayList<Road>> allRoadsOfCities = (HashMap<String, ArrayList<Road>>) inputMap.get("allRoadsOfCities");
+        //Keeps cities' and roads connects to them in graph
+        RoadGraph graph = (RoadGraph) inputMap.get("graph");
+        //Finds connected parts once, so that routes between different parts are rejected without searching
+        graph.getReachabilityIndex();
+        MetricsManager.addPhaseTime("parse", startTime);
+        startTime = System.nanoTime();
+
+        if (options.containsKey("queries")) { //Batch mode, answers all queries over the graph read once
+            ShortestPathTreeCache cache = null;
+            Supplier<RouteFinder> routeFinders;
+            if (options.containsKey("cache-mb")) { //Queries sharing a departure city use the same tree
+                if (options.containsKey("route")) { //Trees are complete Dijkstra searches, so another algorithm would be ignored
+                    System.out.printf("ERROR: --cache-mb keeps trees of Dijkstra's algorithm, it cannot be used with --route. Program is going to terminate!%n");
+                    System.exit(1);
+                }
+                ShortestPathTreeCache sharedCache = new ShortestPathTreeCache(graph, Long.parseLong(options.get("cache-mb")) * 1024 * 1024);
+                cache = sharedCache;
+                routeFinders = () -> new CachedRouteFinder(graph, sharedCache);
+            } else {
+                routeFinders = createRouteFinders(graph, options, routeWorkers);
+            }
+            BatchQueryManager.answerRouteQueries(graph, options.get("queries"), output, threadCount, routeFinders);
+            MetricsManager.addPhaseTime("queries", startTime);
+            if (cache != null) { //Reports how useful the cache was
+                System.out.printf("Shortest path tree cache: %d hits, %d misses, %d trees kept%n", cache.getHitCount(), cache.getMissCount(), cache.getTreeCount());
+            }
+            return;
+        }
+
+        if (options.containsKey("range-queries")) { //Batch mode, finds cities near each departure city
+            BatchQueryManager.answerRangeQueries(graph, options.get("range-queries"), output, threadCount);
+            MetricsManager.addPhaseTime("rangeQueries", startTime);
+            return;
+        }
+
+        if (options.containsKey("monitor")) { //Monitor mode, keeps routes of city pairs up to date over length updates
+            if (!options.containsKey("length-updates")) {
+                System.out.printf("ERROR: --monitor needs a file of length updates given with --length-updates. Program is going to terminate!%n");
+                System.exit(1);
+            }
+            RouteMonitorManager.monitorRoutes(graph, options.get("monitor"), options.get("length-updates"), output);
+            MetricsManager.addPhaseTime("monitor", startTime);
+            return;
+        }
+
+        if (options.containsKey("road-events")) { //Event mode, keeps barely connected map up to date over road events
+            RoadEventManager.applyRoadEvents(graph, spanningTreeBuilder.findSpanningTreeRoads(graph), options.get("road-events"), output);
+            MetricsManager.addPhaseTime("roadEvents", startTime);
+            return;
+        }
+
+        if (options.containsKey("matrix")) { //Matrix mode, writes distances between depot cities instead of the analysis
+            DistanceMatrixManager.writeDistanceMatrix(graph, options.get("matrix"), output, isBinaryMatrixFormat(options.getOrDefault("matrix-format", "csv")), threadCount);
+            MetricsManager.addPhaseTime("matrix", startTime);
+            return;
+        }
+
+        if (options.containsKey("longest-road-queries")) { //Batch mode over the barely connected map
+            RoadGraph barelyConnectedGraph = graph.createSubgraph(spanningTreeBuilder.findSpanningTreeRoads(graph));
+            BatchQueryManager.answerLongestRoadQueries(new SpanningTreeIndex(barelyConnectedGraph), options.get("longest-road-queries"), output, threadCount);
+            MetricsManager.addPhaseTime("longestRoadQueries", startTime);
+            return;
+        }
 
+        try (StageExecutor stages = new StageExecutor(threadCount)) {
+            analyzeMaps(output, graph, departureCity, arrivalCity, options, spanningTreeBuilder, stages, threadCount, routeWorkers);
+        }
+    }
+
+    /**
+     * Analyzes the original map and its barely connected map as stages, running stages that do not depend on each other
+     * at the same time over the same graph, which is only read. Stages and the stages they depend on are:
+     * <pre>
+     * route preparation:              none
+     * route of original map:          route preparation
+     * barely connected map:           none
+     * spanning tree index:            barely connected map
+     * route of barely connected map:  barely connected map, spanning tree index
+     * analyses and stretch:           all of the above
+     * betweenness:                    none
+     * </pre>
+     * Each stage writes its section of the output in memory, and sections are written to the output
+     * in the same order as the analysis done one stage after another, each as soon as it is ready.
+     * Each stage adds its time to {@code MetricsManager} as a single phase, including writing its section in memory,
+     * and only writing sections to the output is added as "output".
+     *
+     * @param output              the output to write to
+     * @param graph               a graph containing all roads connecting the cities
+     * @param departureCity       the name of the departure city
+     * @param arrivalCity         the name of the arrival city
+     * @param options             a map of optional argument names to their values
+     * @param spanningTreeBuilder the algorithm to find roads of the barely connected map
+     * @param stages              the executor to run the stages
+     * @param threadCount         the number of worker threads of a stage that runs on several threads
+     * @param routeWorkers        the workers of delta-stepping route finders, null if another route algorithm is used
+     */
+    private static void analyzeMaps(OutputSink output, RoadGraph graph, String departureCity, String arrivalCity, HashMap<String, String> options,
+                                    SpanningTreeBuilder spanningTreeBuilder, StageExecutor stages, int threadCount, ForkJoinPool routeWorkers) {
+        OutputSink routeSection = new OutputSink();
+        OutputSink barelyConnectedMapSection = new OutputSink();
+        OutputSink barelyConnectedRouteSection = new OutputSink();
+        OutputSink analysesSection = new OutputSink();
+        OutputSink betweennessSection = new OutputSink();
+
+        StageExecutor.Stage<RouteFinder> routeFinder = stages.addStage(() -> {
+            long startTime = System.nanoTime();
+            RouteFinder finder = createRouteFinders(graph, options, routeWorkers).get();
+            MetricsManager.addPhaseTime("routePreparation", startTime);
+            return finder;
+        });
         //Finds fastest route of original map, writes information about it to output and last, returns length of the route
-        int normalRouteDistance = MapManager.getFastestRoute(args[1], allRoadsOfCities, departureCity, arrivalCity, false);
+        StageExecutor.Stage<Integer> normalRouteDistance = stages.addStage(() -> {
+            long startTime = System.nanoTime();
+            int distance = MapManager.getFastestRoute(routeSection, graph, departureCity, arrivalCity, false, routeFinder.get());
+            MetricsManager.addPhaseTime("route", startTime);
+            return distance;
+        }, routeFinder);
         //Creates barely connected map, writes information about it to output and last, returns the map
-        HashMap<String, ArrayList<Road>> barelyConnectedRoadsOfCities = MapManager.createBarelyConnectedMap(args[1], allRoadsOfCities);
+        StageExecutor.Stage<RoadGraph> barelyConnectedGraph = stages.addStage(() -> {
+            long startTime = System.nanoTime();
+            RoadGraph barelyConnectedMap = MapManager.createBarelyConnectedMap(barelyConnectedMapSection, graph, spanningTreeBuilder);
+            MetricsManager.addPhaseTime("barelyConnectedMap", startTime);
+            return barelyConnectedMap;
+        });
+        //Barely connected map is a tree, so its only route between two cities is found without searching
+        StageExecutor.Stage<SpanningTreeIndex> treeIndex = stages.addStage(() -> {
+            long startTime = System.nanoTime();
+            SpanningTreeIndex index = new SpanningTreeIndex(barelyConnectedGraph.get());
+            MetricsManager.addPhaseTime("spanningTreeIndex", startTime);
+            return index;
+        }, barelyConnectedGraph);
         //Finds fastest route of barely connected map, writes information about it to output and last, returns length of the route
-        int barelyConnectedRouteDistance = MapManager.getFastestRoute(args[1], barelyConnectedRoadsOfCities, departureCity, arrivalCity, true);
-
+        StageExecutor.Stage<Integer> barelyConnectedRouteDistance = stages.addStage(() -> {
+            long startTime = System.nanoTime();
+            int distance = MapManager.getFastestRoute(barelyConnectedRouteSection, barelyConnectedGraph.get(), departureCity, arrivalCity, true,
+                    new TreeRouteFinder(treeIndex.get()));
+            MetricsManager.addPhaseTime("barelyConnectedRoute", startTime);
+            return distance;
+        }, barelyConnectedGraph, treeIndex);
         //Writes analyses are done from these two maps.
-        OutputManager.writeAnalyses(args[1], allRoadsOfCities, barelyConnectedRoadsOfCities, barelyConnectedRouteDistance, normalRouteDistance);
+        StageExecutor.Stage<Integer> analyses = stages.addStage(() -> {
+            long startTime = System.nanoTime();
+            OutputManager.writeAnalyses(analysesSection, graph, barelyConnectedGraph.get(), barelyConnectedRouteDistance.get(), normalRouteDistance.get());
+            MetricsManager.addPhaseTime("analyses", startTime);
+            if (options.containsKey("stretch-samples")) { //Compares routes of two maps between sampled cities, route finder is free after route of original map
+                startTime = System.nanoTime();
+                MapManager.analyzeRouteStretch(analysesSection, graph, treeIndex.get(), routeFinder.get(), Integer.parseInt(options.get("stretch-samples")));
+                MetricsManager.addPhaseTime("stretch", startTime);
+            }
+            return 0;
+        }, normalRouteDistance, barelyConnectedGraph, treeIndex, barelyConnectedRouteDistance);
+        //Ranks cities and roads by the fastest routes passing through them, only reads the original map
+        StageExecutor.Stage<Integer> betweenness = stages.addStage(() -> {
+            if (options.containsKey("betweenness")) {
+                long startTime = System.nanoTime();
+                MapManager.analyzeBetweenness(betweennessSection, graph, getBetweennessSampleCount(options.get("betweenness")),
+                        Integer.parseInt(options.getOrDefault("betweenness-top", "10")), threadCount);
+                MetricsManager.addPhaseTime("betweenness", startTime);
+            }
+            return 0;
+        });
+
+        //Sections in the order of the analysis
+        writeSection(output, routeSection, normalRouteDistance);
+        writeSection(output, barelyConnectedMapSection, barelyConnectedGraph);
+        writeSection(output, barelyConnectedRouteSection, barelyConnectedRouteDistance);
+        writeSection(output, analysesSection, analyses);
+        writeSection(output, betweennessSection, betweenness);
+    }
+
+    /**
+     * Returns the number of sampled source cities of the betweenness analysis with the given mode.
+     * Terminates the program if the mode is neither "exact" nor a positive number.
+     *
+     * @param mode "exact" to search from every city, or the number of sampled source cities
+     * @return the number of sampled source cities, 0 for the exact analysis
+     */
+    private static int getBetweennessSampleCount(String mode) {
+        if (mode.equals("exact")) {
+            return 0;
+        }
+        try {
+            int sampleCount = Integer.parseInt(mode);
+            if (sampleCount > 0) {
+                return sampleCount;
+            }
+        } catch (NumberFormatException e) {
+            //Reported below like a number which is not positive
+        }
+        System.out.printf("ERROR: \"%s\" is not a betweenness mode, it must be either \"exact\" or a positive number of sampled cities. Program is going to terminate!%n", mode);
+        System.exit(1);
+        return 0;
+    }
+
+    /**
+     * Returns the bucket width of "delta" route algorithm with the given value.
+     * Terminates the program if the value is not a positive number, since buckets are found by dividing distances by it.
+     *
+     * @param value the bucket width as text
+     * @return the bucket width, at least 1
+     */
+    private static int getDelta(String value) {
+        try {
+            int delta = Integer.parseInt(value);
+            if (delta > 0) {
+                return delta;
+            }
+        } catch (NumberFormatException e) {
+            //Reported below like a number which is not positive
+        }
+        System.out.printf("ERROR: \"%s\" is not a bucket width, --delta must be a positive number. Program is going to terminate!%n", value);
+        System.exit(1);
+        return 0;
+    }
+
+    /**
+     * Waits until the stage writing the given section is finished, then writes the section to the output and flushes it.
+     *
+     * @param output  the output to write to
+     * @param section the section written by the stage
+     * @param stage   the stage writing the section
+     */
+    private static void writeSection(OutputSink output, OutputSink section, StageExecutor.Stage<?> stage) {
+        stage.get();
+        long startTime = System.nanoTime();
+        section.writeTo(output);
+        output.flush();
+        MetricsManager.addPhaseTime("output", startTime);
+    }
+
+    /**
+     * Reads optional arguments coming after input and output files.
+     * An argument "--name=value" is read as name -> value, and "--name" is read as name -> "true".
+     *
+     * @param args the command line arguments
+     * @return a map of optional argument names to their values
+     */
+    private static HashMap<String, String> readOptions(String[] args) {
+        HashMap<String, String> options = new HashMap<>();
+        for (int i = 2; i < args.length; i++) {
+            if (!args[i].startsWith("--")) { //Not an optional argument
+                continue;
+            }
+            int separatorIndex = args[i].indexOf('=');
+            if (separatorIndex == -1) { //Flag without value
+                options.put(args[i].substring(2), "true");
+            } else {
+                options.put(args[i].substring(2, separatorIndex), args[i].substring(separatorIndex + 1));
+            }
+        }
+        return options;
+    }
+
+    /**
+     * Creates the algorithm to find roads of the barely connected map with the given name.
+     * Terminates the program if there is no such an algorithm.
+     *
+     * @param name the name of the algorithm, "kruskal" or "boruvka"
+     * @return the algorithm to create barely connected map
+     */
+    private static SpanningTreeBuilder createSpanningTreeBuilder(String name) {
+        switch (name) {
+            case "kruskal":
+                return new KruskalSpanningTreeBuilder();
+            case "boruvka":
+                return new BoruvkaSpanningTreeBuilder();
+            default:
+                System.out.printf("ERROR: \"%s\" is not a barely connected map algorithm, it must be either \"kruskal\" or \"boruvka\". Program is going to terminate!%n", name);
+                System.exit(1);
+                return null;
+        }
+    }
+
+    /**
+     * Returns whether the distance matrix format with the given name is binary.
+     * Terminates the program if there is no such a format.
+     *
+     * @param name the name of the format, "csv" or "binary"
+     * @return true if the format is binary, false if it is CSV
+     */
+    private static boolean isBinaryMatrixFormat(String name) {
+        switch (name) {
+            case "csv":
+                return false;
+            case "binary":
+                return true;
+            default:
+                System.out.printf("ERROR: \"%s\" is not a distance matrix format, it must be either \"csv\" or \"binary\". Program is going to terminate!%n", name);
+                System.exit(1);
+                return false;
+        }
+    }
+
+    /**
+     * Creates the creator of route finders with the algorithm named in optional arguments.
+     * Data shared by route finders, such as landmarks, is prepared once here.
+     * Terminates the program if there is no such an algorithm.
+     *
+     * @param graph        a graph containing all roads connecting the cities
+     * @param options      a map of optional argument names to their values
+     * @param routeWorkers the workers of delta-stepping route finders, null if another route algorithm is used
+     * @return the creator of a new route finder over the graph
+     */
+    private static Supplier<RouteFinder> createRouteFinders(RoadGraph graph, HashMap<String, String> options, ForkJoinPool routeWorkers) {
+        String name = options.getOrDefault("route", "dijkstra");
+        switch (name) {
+            case "dijkstra":
+                return () -> new DijkstraRouteFinder(graph);
+            case "bidirectional":
+                return () -> new BidirectionalRouteFinder(graph);
+            case "alt":
+                LandmarkIndex landmarks = LandmarkIndex.build(graph, Integer.parseInt(options.getOrDefault("landmarks", "8")));
+                return () -> new LandmarkRouteFinder(graph, landmarks);
+            case "ch":
+                ContractionHierarchy hierarchy = readContractionHierarchy(graph, options.get("ch-index"));
+                return () -> new ContractionHierarchyRouteFinder(graph, hierarchy);
+            case "chain":
+                ChainContraction contraction = ChainContraction.build(graph);
+                return () -> new ChainRouteFinder(graph, contraction);
+            case "delta":
+                int delta = options.containsKey("delta") ? getDelta(options.get("delta")) : DeltaSteppingRouteFinder.getDefaultDelta(graph);
+                return () -> new DeltaSteppingRouteFinder(graph, routeWorkers, delta);
+            default:
+                System.out.printf("ERROR: \"%s\" is not a route algorithm, it must be \"dijkstra\", \"bidirectional\", \"alt\", \"ch\", \"chain\" or \"delta\". Program is going to terminate!%n", name);
+                System.exit(1);
+                return null;
+        }
+    }
+
+    /**
+     * Reads the contraction hierarchy of the graph from the given index file.
+     * If there is no such a file, or it belongs to another map, the hierarchy is built and written to the file.
+     *
+     * @param graph     a graph containing all roads connecting the cities
+     * @param indexPath the path of the index file, null to build the hierarchy without writing it
+     * @return the contraction hierarchy of the graph
+     */
+    private static ContractionHierarchy readContractionHierarchy(RoadGraph graph, String indexPath) {
+        if (indexPath != null && new File(indexPath).isFile()) {
+            ContractionHierarchy hierarchy = ContractionHierarchy.readFromFile(indexPath);
+            if (hierarchy != null && hierarchy.isBuiltFor(graph)) { //Index is built before for the same map
+                return hierarchy;
+            }
+        }
+        ContractionHierarchy hierarchy = new ContractionHierarchyBuilder(graph).build();
+        if (indexPath != null) {
+            hierarchy.writeToFile(indexPath);
+        }
+        return hierarchy;
     }
 }
@@ -0,0 +1,170 @@
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Random;
+import java.util.function.LongSupplier;
+
+/**
+ * This class serves the main class of a benchmark of the phases of the map analyzer, measured one by one on a given map.
+ * Phases are parsing the input, finding fastest routes, creating the barely connected map and writing the output,
+ * so a regression in one of them is seen on its own instead of in the total time of the analyzer.
+ * Each phase is run a number of times without measuring first, so that it is compiled before it is measured,
+ * and each run returns a checksum of its results, so that its work cannot be skipped as unused.
+ * Maps of any size can be generated by {@code MapGenerator}.
+ */
+public class MapBenchmark {
+    private static final int ROUTE_SAMPLES = 16; //Number of city pairs whose fastest routes are found in a run of route phase
+    private static final long ROUTE_SAMPLE_SEED = 42; //Seed of city pairs, the same pairs are used in every run
+
+    /**
+     * Main method of benchmark class.
+     * Pre-condition: There must be at least 1 argument and must start with;
+     * args[0]: Input file in specified format, or a graph file written by GraphFileConverter
+     * args[1]: Number of measured runs of each phase, 10 by default
+     * args[2]: Number of runs of each phase before measuring, 5 by default
+     * args[3]: Number of worker threads for parsing input, number of available processors by default
+     *
+     * @param args the command line arguments
+     */
+    public static void main(String[] args) {
+        Locale.setDefault(Locale.US);
+        String inputFilePath = args[0];
+        int runCount = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        int warmupCount = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+        int threadCount = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+
+        //Input read once, later phases run over the same graph
+        HashMap<String, Object> inputMap = InputManager.readInput(inputFilePath, threadCount);
+        String departureCity = (String) inputMap.get("departure");
+        String arrivalCity = (String) inputMap.get("arrival");
+        RoadGraph graph = (RoadGraph) inputMap.get("graph");
+        int[] departures = new int[ROUTE_SAMPLES];
+        int[] arrivals = new int[ROUTE_SAMPLES];
+        Random random = new Random(ROUTE_SAMPLE_SEED);
+        for (int i = 0; i < ROUTE_SAMPLES; i++) {
+            departures[i] = random.nextInt(graph.getCityCount());
+            arrivals[i] = random.nextInt(graph.getCityCount());
+        }
+        //Results written by output phase
+        Route route = findRoute(graph, departureCity, arrivalCity);
+        int[] barelyConnectedRoads = new KruskalSpanningTreeBuilder().findSpanningTreeRoads(graph);
+        RoadGraph barelyConnectedGraph = graph.createSubgraph(barelyConnectedRoads);
+        Route barelyConnectedRoute = findRoute(barelyConnectedGraph, departureCity, arrivalCity);
+        File outputFile = createTemporaryFile();
+
+        System.out.printf("Map: %s, %d cities, %d roads%n", inputFilePath, graph.getCityCount(), graph.getRoadCount());
+        System.out.printf("%-8s %12s %12s %12s %20s%n", "Phase", "Mean (ms)", "Min (ms)", "Max (ms)", "Checksum");
+        measurePhase("parse", runCount, warmupCount, () -> {
+            RoadGraph parsedGraph = (RoadGraph) InputManager.readInput(inputFilePath, threadCount).get("graph");
+            return parsedGraph.getTotalRoadLength();
+        });
+        measurePhase("route", runCount, warmupCount, () -> {
+            RouteFinder routeFinder = new DijkstraRouteFinder(graph);
+            long checksum = 0;
+            for (int i = 0; i < ROUTE_SAMPLES; i++) {
+                if (graph.getReachabilityIndex().isReachable(departures[i], arrivals[i])) {
+                    checksum += routeFinder.findFastestRoute(departures[i], arrivals[i]).getDistance();
+                }
+            }
+            return checksum;
+        });
+        measurePhase("mst", runCount, warmupCount, () -> {
+            long checksum = 0;
+            for (int road : new KruskalSpanningTreeBuilder().findSpanningTreeRoads(graph)) {
+                checksum += graph.getRoadLength(road);
+            }
+            return checksum;
+        });
+        measurePhase("output", runCount, warmupCount, () -> {
+            try (OutputSink output = new OutputSink(outputFile.getPath())) {
+                writeRoute(output, graph, departureCity, arrivalCity, route, false);
+                OutputManager.writeBarelyConnectedMap(output, graph, barelyConnectedRoads);
+                writeRoute(output, barelyConnectedGraph, departureCity, arrivalCity, barelyConnectedRoute, true);
+                OutputManager.writeAnalyses(output, graph, barelyConnectedGraph,
+                        barelyConnectedRoute == null ? -1 : barelyConnectedRoute.getDistance(), route == null ? -1 : route.getDistance());
+            }
+            return outputFile.length();
+        });
+    }
+
+    /**
+     * Runs the phase without measuring, then measures its runs and prints their mean, minimum and maximum time.
+     *
+     * @param name        the name of the phase
+     * @param runCount    the number of measured runs
+     * @param warmupCount the number of runs before measuring
+     * @param phase       the phase to run, returns a checksum of its results
+     */
+    private static void measurePhase(String name, int runCount, int warmupCount, LongSupplier phase) {
+        long checksum = 0;
+        for (int i = 0; i < warmupCount; i++) {
+            checksum += phase.getAsLong();
+        }
+        long totalTime = 0;
+        long minTime = Long.MAX_VALUE;
+        long maxTime = 0;
+        for (int i = 0; i < runCount; i++) {
+            long startTime = System.nanoTime();
+            checksum += phase.getAsLong();
+            long time = System.nanoTime() - startTime;
+            totalTime += time;
+            minTime = Math.min(minTime, time);
+            maxTime = Math.max(maxTime, time);
+        }
+        System.out.printf("%-8s %12.3f %12.3f %12.3f %20d%n", name, totalTime / 1e6 / Math.max(1, runCount),
+                runCount == 0 ? 0 : minTime / 1e6, maxTime / 1e6, checksum);
+    }
+
+    /**
+     * Finds the fastest route between the given cities.
+     *
+     * @param graph         a graph containing all roads connecting the cities
+     * @param departureCity the name of the departure city
+     * @param arrivalCity   the name of the arrival city
+     * @return the fastest route, null if there is no route
+     */
+    private static Route findRoute(RoadGraph graph, String departureCity, String arrivalCity) {
+        int departure = graph.getCityId(departureCity);
+        int arrival = graph.getCityId(arrivalCity);
+        if (departure == -1 || arrival == -1 || !graph.getReachabilityIndex().isReachable(departure, arrival)) {
+            return null;
+        }
+        return new DijkstraRouteFinder(graph).findFastestRoute(departure, arrival);
+    }
+
+    /**
+     * Writes the information of the given route, or the reason why there is no route, as the analyzer does.
+     *
+     * @param output               the output to write to
+     * @param graph                the graph that route is found on
+     * @param departureCity        the name of the departure city
+     * @param arrivalCity          the name of the arrival city
+     * @param route                the fastest route, null if there is no route
+     * @param isBarelyConnectedMap boolean indicating if the route is on a barely connected map or original map
+     */
+    private static void writeRoute(OutputSink output, RoadGraph graph, String departureCity, String arrivalCity, Route route, boolean isBarelyConnectedMap) {
+        if (route == null) {
+            OutputManager.writeNoRouteInformationToFile(output, graph, departureCity, arrivalCity);
+        } else {
+            OutputManager.writeFastestRouteInformationToFile(output, graph, departureCity, arrivalCity, route.getDistance(), route.getRoads(), isBarelyConnectedMap);
+        }
+    }
+
+    /**
+     * Creates a temporary file for output phase, which is deleted when the benchmark ends.
+     *
+     * @return the temporary file
+     */
+    private static File createTemporaryFile() {
+        try {
+            File file = File.createTempFile("map-benchmark", ".txt");
+            file.deleteOnExit();
+            return file;
+        } catch (IOException e) {
+            e.printStackTrace();
+            System.exit(1);
+            return null;
+        }
+    }
+}
@@ -0,0 +1,441 @@
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * This class serves the main class of a differential check of the faster algorithms of the map analyzer against the
+ * plain ones, on small random maps full of ties, so a wrong choice among routes or roads of equal length is seen at once.
+ * Maps are written in the input format and read back as the analyzer reads them, and have roads of zero length,
+ * roads from a city to itself, parallel roads, chains of pass-through cities, rings and separate parts.
+ * Each map is checked as below, and the check stops at the first difference and prints it:
+ * <pre>
+ * --route:        every route algorithm gives the same route as Dijkstra's algorithm, for every pair of cities
+ * --mst:          Boruvka's algorithm finds the same roads as Kruskal's algorithm
+ * --external-mst: barely connected map written out of core is the same as the one written from Kruskal's algorithm
+ * --monitor:      routes kept up to date over length updates are the same as routes found again after each batch
+ * --road-events:  barely connected map kept up to date over road events is the same as Kruskal's algorithm after each batch
+ * </pre>
+ * Maps of the same arguments are always the same, so a failing map is found again by its seed.
+ */
+public class MapDifferentialCheck {
+    private static final int MAX_CHECKED_PAIRS = 2000; //City pairs whose routes are checked on a map, all pairs if there are fewer
+    private static final int LARGE_MAP_PERIOD = 10; //Every this many maps one has thousands of cities, enough for parallel delta-stepping
+    private static final int EXTERNAL_RUN_ROADS = 2; //Roads of a run of the out-of-core writer, small so that runs are merged in passes
+
+    private static int checkCount; //Number of comparisons made so far
+
+    /**
+     * Main method of differential check class.
+     * Arguments are optional;
+     * args[0]: Number of maps to check, 100 by default
+     * args[1]: Seed of the first map, 0 by default, map i has seed (args[1] + i)
+     *
+     * @param args the command line arguments
+     */
+    public static void main(String[] args) {
+        Locale.setDefault(Locale.US);
+        int mapCount = args.length > 0 ? Integer.parseInt(args[0]) : 100;
+        long firstSeed = args.length > 1 ? Long.parseLong(args[1]) : 0;
+        ForkJoinPool workers = new ForkJoinPool(4);
+        try {
+            for (int i = 0; i < mapCount; i++) {
+                long seed = firstSeed + i;
+                String failure = checkMap(seed, i % LARGE_MAP_PERIOD == LARGE_MAP_PERIOD - 1, workers);
+                if (failure != null) {
+                    System.out.printf("Map of seed %d: %s%n", seed, failure);
+                    System.exit(1);
+                }
+            }
+        } finally {
+            workers.shutdown();
+        }
+        System.out.printf("All %d maps are the same in %d checks.%n", mapCount, checkCount);
+    }
+
+    /**
+     * Generates the map of the given seed and checks every algorithm on it.
+     *
+     * @param seed    the seed of the map
+     * @param isLarge true to generate a map with thousands of cities, false for a map with tens of cities
+     * @param workers the pool of worker threads of delta-stepping
+     * @return the first difference found, null if there is no difference
+     */
+    private static String checkMap(long seed, boolean isLarge, ForkJoinPool workers) {
+        Random random = new Random(seed);
+        File inputFile = createTemporaryFile();
+        writeRandomMap(inputFile, random, isLarge ? 3000 : 2 + random.nextInt(50));
+        RoadGraph graph = (RoadGraph) InputManager.readInput(inputFile.getPath(), 1).get("graph");
+
+        String failure = checkRoutes(graph, random, workers);
+        if (failure == null) {
+            failure = checkBoruvka(graph);
+        }
+        if (failure == null) {
+            failure = checkExternalSpanningTree(graph, inputFile);
+        }
+        if (failure == null && !isLarge) {
+            failure = checkMonitor(graph, random);
+        }
+        if (failure == null && !isLarge) {
+            failure = checkRoadEvents(graph, random);
+        }
+        inputFile.delete();
+        return failure;
+    }
+
+    /**
+     * Writes a random map in the input format, either a connected map with many extra roads,
+     * or long paths broken into parts with few extra roads, parallel roads and maybe a separate ring.
+     * Road lengths are taken from a small range, often starting from zero, so many routes have equal lengths.
+     * Road IDs are unique, so each road can be found by its ID.
+     *
+     * @param file      the file to write the map to
+     * @param random    the source of the map
+     * @param cityCount the number of cities, not counting the cities of a separate ring
+     */
+    private static void writeRandomMap(File file, Random random, int cityCount) {
+        ArrayList<String> cities = new ArrayList<>();
+        for (int city = 0; city < cityCount; city++) {
+            cities.add("C" + city);
+        }
+        Collections.shuffle(cities, random);
+        ArrayList<String[]> roads = new ArrayList<>();
+        if (random.nextBoolean()) { //Connected map, a random tree and extra roads
+            for (int city = 1; city < cityCount; city++) {
+                roads.add(new String[]{cities.get(city), cities.get(random.nextInt(city))});
+            }
+            for (int i = random.nextInt(3 * cityCount + 1); i > 0; i--) {
+                roads.add(new String[]{cities.get(random.nextInt(cityCount)), cities.get(random.nextInt(cityCount))});
+            }
+        } else { //Paths of pass-through cities, broken into parts
+            for (int city = 0; city + 1 < cityCount; city++) {
+                roads.add(new String[]{cities.get(city), cities.get(city + 1)});
+                if (random.nextInt(10) == 0) {
+                    city++;
+                }
+            }
+            for (int i = random.nextInt(cityCount / 4 + 1); i > 0; i--) {
+                roads.add(new String[]{cities.get(random.nextInt(cityCount)), cities.get(random.nextInt(cityCount))});
+            }
+            for (int i = random.nextInt(cityCount / 4 + 1); i > 0 && !roads.isEmpty(); i--) { //Parallel roads
+                roads.add(roads.get(random.nextInt(roads.size())).clone());
+            }
+            if (random.nextInt(10) < 3) { //Ring without any city of more than two roads
+                int ringSize = 3 + random.nextInt(4);
+                for (int i = 0; i < ringSize; i++) {
+                    roads.add(new String[]{"R" + i, "R" + (i + 1) % ringSize});
+                }
+                cities.add("R0");
+            }
+        }
+        Collections.shuffle(roads, random);
+
+        int[] maxLengths = {1, 2, 3, 5, 20, 1000};
+        int maxLength = maxLengths[random.nextInt(maxLengths.length)];
+        int minLength = random.nextInt(4) == 0 ? 0 : 1;
+        int[] ids = new int[roads.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = i + 1;
+        }
+        for (int i = ids.length - 1; i > 0; i--) { //Shuffles IDs, so ID order is not input order
+            int j = random.nextInt(i + 1);
+            int id = ids[i];
+            ids[i] = ids[j];
+            ids[j] = id;
+        }
+        try (OutputSink output = new OutputSink(file.getPath())) {
+            output.writeLine(cities.get(random.nextInt(cities.size())) + "\t" + cities.get(random.nextInt(cities.size())));
+            for (int i = 0; i < roads.size(); i++) {
+                String[] road = roads.get(i);
+                boolean isReversed = random.nextBoolean();
+                output.writeLine(road[isReversed ? 1 : 0] + "\t" + road[isReversed ? 0 : 1] + "\t"
+                        + (minLength + random.nextInt(maxLength - minLength + 1)) + "\t" + ids[i]);
+            }
+        }
+    }
+
+    /**
+     * Checks every route algorithm against Dijkstra's algorithm, for every pair of cities or for random pairs on a large map.
+     *
+     * @param graph   a graph containing all roads connecting the cities
+     * @param random  the source of city pairs
+     * @param workers the pool of worker threads of delta-stepping
+     * @return the first difference found, null if there is no difference
+     */
+    private static String checkRoutes(RoadGraph graph, Random random, ForkJoinPool workers) {
+        int cityCount = graph.getCityCount();
+        LinkedHashMap<String, RouteFinder> routeFinders = new LinkedHashMap<>();
+        routeFinders.put("bidirectional", new BidirectionalRouteFinder(graph));
+        routeFinders.put("alt", new LandmarkRouteFinder(graph, LandmarkIndex.build(graph, 1 + random.nextInt(8))));
+        routeFinders.put("ch", new ContractionHierarchyRouteFinder(graph, new ContractionHierarchyBuilder(graph).build()));
+        routeFinders.put("chain", new ChainRouteFinder(graph, ChainContraction.build(graph)));
+        routeFinders.put("delta", new DeltaSteppingRouteFinder(graph, workers, DeltaSteppingRouteFinder.getDefaultDelta(graph)));
+        routeFinders.put("delta=1", new DeltaSteppingRouteFinder(graph, workers, 1));
+        RouteFinder dijkstra = new DijkstraRouteFinder(graph);
+
+        boolean isAllPairs = (long) cityCount * cityCount <= MAX_CHECKED_PAIRS;
+        int pairCount = isAllPairs ? cityCount * cityCount : MAX_CHECKED_PAIRS;
+        for (int pair = 0; pair < pairCount; pair++) {
+            int departure = isAllPairs ? pair / cityCount : random.nextInt(cityCount);
+            int arrival = isAllPairs ? pair % cityCount : random.nextInt(cityCount);
+            String expected = describeRoute(graph, dijkstra.findFastestRoute(departure, arrival));
+            for (Map.Entry<String, RouteFinder> routeFinder : routeFinders.entrySet()) {
+                String actual = describeRoute(graph, routeFinder.getValue().findFastestRoute(departure, arrival));
+                checkCount++;
+                if (!actual.equals(expected)) {
+                    return String.format("--route=%s from %s to %s gives %s instead of %s", routeFinder.getKey(),
+                            graph.getCityName(departure), graph.getCityName(arrival), actual, expected);
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns a text of the given route, its length and the IDs of its roads in order.
+     *
+     * @param graph the graph that route is found on
+     * @param route the route, null if there is no route
+     * @return the text of the route
+     */
+    private static String describeRoute(RoadGraph graph, Route route) {
+        if (route == null) {
+            return "no route";
+        }
+        StringBuilder text = new StringBuilder().append(route.getDistance()).append(" through roads");
+        for (int road : route.getRoads()) {
+            text.append(' ').append(graph.getRoadId(road));
+        }
+        return text.toString();
+    }
+
+    /**
+     * Checks Boruvka's algorithm against Kruskal's algorithm, the roads of both are compared in the order they are written.
+     *
+     * @param graph a graph containing all roads connecting the cities
+     * @return the difference found, null if there is no difference
+     */
+    private static String checkBoruvka(RoadGraph graph) {
+        int[] kruskalRoads = graph.sortRoadIndicesByLength(new KruskalSpanningTreeBuilder().findSpanningTreeRoads(graph));
+        int[] boruvkaRoads = graph.sortRoadIndicesByLength(new BoruvkaSpanningTreeBuilder().findSpanningTreeRoads(graph));
+        checkCount++;
+        return Arrays.equals(kruskalRoads, boruvkaRoads) ? null : "--mst=boruvka finds different roads than Kruskal's algorithm";
+    }
+
+    /**
+     * Checks the barely connected map written out of core from the input file against Kruskal's algorithm.
+     *
+     * @param graph     a graph containing all roads connecting the cities, read from the input file
+     * @param inputFile the input file of the map
+     * @return the difference found, null if there is no difference
+     */
+    private static String checkExternalSpanningTree(RoadGraph graph, File inputFile) {
+        File expectedFile = createTemporaryFile();
+        File actualFile = createTemporaryFile();
+        try (OutputSink output = new OutputSink(expectedFile.getPath())) {
+            OutputManager.writeBarelyConnectedMap(output, graph, new KruskalSpanningTreeBuilder().findSpanningTreeRoads(graph));
+        }
+        try (OutputSink output = new OutputSink(actualFile.getPath())) {
+            new ExternalSpanningTreeWriter(EXTERNAL_RUN_ROADS).writeBarelyConnectedMap(inputFile.getPath(), output);
+        }
+        checkCount++;
+        String failure = isSameFile(expectedFile, actualFile) ? null : "--external-mst writes a different barely connected map than Kruskal's algorithm";
+        expectedFile.delete();
+        actualFile.delete();
+        return failure;
+    }
+
+    /**
+     * Checks the route monitor against Dijkstra's algorithm on a copy of the graph whose lengths are changed the same,
+     * writing a route whenever its length or roads differ from the last one written, as the monitor does.
+     *
+     * @param graph  a graph containing all roads connecting the cities
+     * @param random the source of city pairs and length updates
+     * @return the first difference found, null if there is no difference
+     */
+    private static String checkMonitor(RoadGraph graph, Random random) {
+        File pairFile = createTemporaryFile();
+        File updateFile = createTemporaryFile();
+        File expectedFile = createTemporaryFile();
+        File actualFile = createTemporaryFile();
+        int[] roads = new int[graph.getRoadCount()];
+        for (int road = 0; road < roads.length; road++) {
+            roads[road] = road;
+        }
+        RoadGraph changingGraph = graph.createSubgraph(roads);
+        RouteFinder dijkstra = new DijkstraRouteFinder(changingGraph);
+        int[] departures = new int[1 + random.nextInt(20)];
+        int[] arrivals = new int[departures.length];
+        String[] lastRoutes = new String[departures.length];
+
+        try (OutputSink pairs = new OutputSink(pairFile.getPath()); OutputSink expected = new OutputSink(expectedFile.getPath())) {
+            StringBuilder text = new StringBuilder();
+            for (int i = 0; i < departures.length; i++) {
+                departures[i] = random.nextInt(graph.getCityCount());
+                arrivals[i] = random.nextInt(graph.getCityCount());
+                pairs.writeLine(graph.getCityName(departures[i]) + "\t" + graph.getCityName(arrivals[i]));
+                Route route = dijkstra.findFastestRoute(departures[i], arrivals[i]);
+                lastRoutes[i] = describeRoute(changingGraph, route);
+                appendRoute(text, changingGraph, departures[i], arrivals[i], route);
+            }
+            expected.write(text.toString());
+
+            try (OutputSink updates = new OutputSink(updateFile.getPath())) {
+                for (int batch = random.nextInt(15); batch > 0 && roads.length > 0; batch--) {
+                    for (int update = 1 + random.nextInt(4); update > 0; update--) {
+                        int road = random.nextInt(roads.length);
+                        int length = random.nextInt(13);
+                        updates.writeLine(changingGraph.getRoadId(road) + "\t" + length);
+                        changingGraph.setRoadLength(road, length);
+                    }
+                    updates.writeLine("");
+                    text.setLength(0);
+                    for (int i = 0; i < departures.length; i++) {
+                        if (!changingGraph.getReachabilityIndex().isReachable(departures[i], arrivals[i])) { //Written only once
+                            continue;
+                        }
+                        Route route = dijkstra.findFastestRoute(departures[i], arrivals[i]);
+                        String description = describeRoute(changingGraph, route);
+                        if (!description.equals(lastRoutes[i])) {
+                            lastRoutes[i] = description;
+                            appendRoute(text, changingGraph, departures[i], arrivals[i], route);
+                        }
+                    }
+                    expected.write(text.toString());
+                }
+            }
+        }
+        try (OutputSink output = new OutputSink(actualFile.getPath())) {
+            RouteMonitorManager.monitorRoutes(graph, pairFile.getPath(), updateFile.getPath(), output);
+        }
+        checkCount++;
+        String failure = isSameFile(expectedFile, actualFile) ? null : "--monitor writes different routes than Dijkstra's algorithm after the updates";
+        pairFile.delete();
+        updateFile.delete();
+        expectedFile.delete();
+        actualFile.delete();
+        return failure;
+    }
+
+    /**
+     * Appends the information of the given route, or the reason why there is no route, as the route monitor does.
+     *
+     * @param text      the text to append to
+     * @param graph     the graph that route is found on
+     * @param departure the ID of the departure city
+     * @param arrival   the ID of the arrival city
+     * @param route     the fastest route, null if there is no route
+     */
+    private static void appendRoute(StringBuilder text, RoadGraph graph, int departure, int arrival, Route route) {
+        if (route == null) {
+            OutputManager.appendNoRouteInformation(text, graph, graph.getCityName(departure), graph.getCityName(arrival));
+        } else {
+            OutputManager.appendFastestRouteInformation(text, graph, graph.getCityName(departure), graph.getCityName(arrival),
+                    route.getDistance(), route.getRoads(), false);
+        }
+    }
+
+    /**
+     * Checks the barely connected map kept over road events against Kruskal's algorithm on the open roads after each batch.
+     * Events add roads with new IDs, add roads with IDs which are already open, and close open and unknown IDs.
+     *
+     * @param graph  a graph containing all roads connecting the cities
+     * @param random the source of road events
+     * @return the first difference found, null if there is no difference
+     */
+    private static String checkRoadEvents(RoadGraph graph, Random random) {
+        File eventFile = createTemporaryFile();
+        File expectedFile = createTemporaryFile();
+        File actualFile = createTemporaryFile();
+        LinkedHashMap<Integer, Road> openRoads = new LinkedHashMap<>(); //Open roads in order of being added, by ID
+        for (int road = 0; road < graph.getRoadCount(); road++) {
+            openRoads.put(graph.getRoadId(road), graph.getRoad(road));
+        }
+        int nextId = graph.getRoadCount() + 1;
+
+        try (OutputSink events = new OutputSink(eventFile.getPath()); OutputSink expected = new OutputSink(expectedFile.getPath())) {
+            for (int batch = 1 + random.nextInt(10); batch > 0; batch--) {
+                for (int event = 1 + random.nextInt(5); event > 0; event--) {
+                    ArrayList<Integer> openIds = new ArrayList<>(openRoads.keySet());
+                    int kind = random.nextInt(10);
+                    if (kind < 5 || openIds.isEmpty()) { //Adds a road, maybe to a new city
+                        String firstEnd = random.nextInt(10) == 0 ? "N" + nextId : graph.getCityName(random.nextInt(graph.getCityCount()));
+                        String secondEnd = graph.getCityName(random.nextInt(graph.getCityCount()));
+                        Road road = new Road(firstEnd, secondEnd, random.nextInt(6), nextId++);
+                        events.writeLine("ADD_ROAD\t" + firstEnd + "\t" + secondEnd + "\t" + road.getLength() + "\t" + road.getId());
+                        openRoads.put(road.getId(), road);
+                    } else if (kind < 6) { //Adds a road whose ID is already open
+                        int id = openIds.get(random.nextInt(openIds.size()));
+                        events.writeLine("ADD_ROAD\t" + graph.getCityName(0) + "\t" + graph.getCityName(0) + "\t0\t" + id);
+                        expected.writeLine(String.format("There is already an open road with ID %d!", id));
+                    } else if (kind < 9) { //Closes an open road
+                        int id = openIds.get(random.nextInt(openIds.size()));
+                        events.writeLine("CLOSE_ROAD\t" + id);
+                        openRoads.remove(id);
+                    } else { //Closes a road which is not open
+                        events.writeLine("CLOSE_ROAD\t" + nextId);
+                        expected.writeLine(String.format("There is no open road with ID %d!", nextId));
+                    }
+                }
+                events.writeLine("");
+
+                RoadGraphBuilder graphBuilder = new RoadGraphBuilder();
+                for (Road road : openRoads.values()) {
+                    graphBuilder.addRoad(road.getFirstEnd(), road.getSecondEnd(), road.getLength(), road.getId());
+                }
+                RoadGraph openGraph = graphBuilder.build();
+                OutputManager.writeBarelyConnectedMap(expected, openGraph, new KruskalSpanningTreeBuilder().findSpanningTreeRoads(openGraph));
+            }
+        }
+        try (OutputSink output = new OutputSink(actualFile.getPath())) {
+            RoadEventManager.applyRoadEvents(graph, new KruskalSpanningTreeBuilder().findSpanningTreeRoads(graph), eventFile.getPath(), output);
+        }
+        checkCount++;
+        String failure = isSameFile(expectedFile, actualFile) ? null : "--road-events keeps a different barely connected map than Kruskal's algorithm";
+        eventFile.delete();
+        expectedFile.delete();
+        actualFile.delete();
+        return failure;
+    }
+
+    /**
+     * Returns whether the given files have the same bytes.
+     *
+     * @param expectedFile the file of expected output
+     * @param actualFile   the file of actual output
+     * @return true if files are the same, false otherwise
+     */
+    private static boolean isSameFile(File expectedFile, File actualFile) {
+        try {
+            return Arrays.equals(Files.readAllBytes(expectedFile.toPath()), Files.readAllBytes(actualFile.toPath()));
+        } catch (IOException e) {
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    /**
+     * Creates a temporary file, which is deleted when the check ends if it is not deleted before.
+     *
+     * @return the temporary file
+     */
+    private static File createTemporaryFile() {
+        try {
+            File file = File.createTempFile("map-check", ".txt");
+            file.deleteOnExit();
+            return file;
+        } catch (IOException e) {
+            e.printStackTrace();
+            System.exit(1);
+            return null;
+        }
+    }
+}
@@ -0,0 +1,207 @@
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * This class serves the main class of a generator of synthetic road maps in the tab-separated input format.
+ * Maps of three shapes can be generated at any size, so that route and barely connected map algorithms
+ * are measured on maps much larger than the samples:
+ * <pre>
+ * grid:      cities on a square grid, each connected to its right and lower neighbors, like streets of a city
+ * geometric: cities at random points of a square, each connected to the cities closer than a radius, like rural roads
+ * scalefree: cities added one by one, each connected to cities chosen in proportion to their number of roads, like airlines
+ * </pre>
+ * Departure city is the first city and arrival city is the last city. Maps of the same arguments are always the same.
+ */
+public class MapGenerator {
+    private static final int MAX_LENGTH = 1000; //Longest road of grid and scale-free maps
+    private static final int DEFAULT_DEGREE = 6; //Average number of roads of a city for geometric and scale-free maps
+
+    /**
+     * Main method of generator class.
+     * Pre-condition: There must be at least 3 arguments and must start with;
+     * args[0]: Shape of the map, "grid", "geometric" or "scalefree"
+     * args[1]: Number of cities, a grid map has the largest square number of cities not more than it
+     * args[2]: Input file to write
+     * args[3]: Seed of random lengths and positions, 0 by default
+     * args[4]: Average number of roads of a city for "geometric" and "scalefree" maps, 6 by default
+     *
+     * @param args the command line arguments
+     */
+    public static void main(String[] args) {
+        int cityCount = Integer.parseInt(args[1]);
+        long seed = args.length > 3 ? Long.parseLong(args[3]) : 0;
+        int degree = args.length > 4 ? Integer.parseInt(args[4]) : DEFAULT_DEGREE;
+        Random random = new Random(seed);
+
+        try (OutputSink output = new OutputSink(args[2])) {
+            switch (args[0]) {
+                case "grid":
+                    writeGridMap(output, cityCount, random);
+                    break;
+                case "geometric":
+                    writeGeometricMap(output, cityCount, degree, random);
+                    break;
+                case "scalefree":
+                    writeScaleFreeMap(output, cityCount, degree, random);
+                    break;
+                default:
+                    System.out.printf("ERROR: \"%s\" is not a map shape, it must be \"grid\", \"geometric\" or \"scalefree\". Program is going to terminate!%n", args[0]);
+                    System.exit(1);
+            }
+        }
+    }
+
+    /**
+     * Writes a square grid map whose roads have random lengths.
+     *
+     * @param output    the output to write the map to
+     * @param cityCount the number of cities, rounded down to a square number
+     * @param random    the source of road lengths
+     */
+    private static void writeGridMap(OutputSink output, int cityCount, Random random) {
+        int side = Math.max(1, (int) Math.sqrt(cityCount));
+        output.writeLine(getCityName(0) + "\t" + getCityName(side * side - 1));
+        int roadId = 1;
+        for (int row = 0; row < side; row++) {
+            for (int column = 0; column < side; column++) {
+                int city = row * side + column;
+                if (column + 1 < side) { //Road to the right neighbor
+                    writeRoad(output, city, city + 1, 1 + random.nextInt(MAX_LENGTH), roadId++);
+                }
+                if (row + 1 < side) { //Road to the lower neighbor
+                    writeRoad(output, city, city + side, 1 + random.nextInt(MAX_LENGTH), roadId++);
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes a random geometric map, whose cities are at random points of a square and whose roads connect cities closer
+     * than a radius chosen for the given average degree. Road length is the distance between its ends.
+     * Cities are put into cells as large as the radius, so only cities of neighboring cells are compared.
+     *
+     * @param output    the output to write the map to
+     * @param cityCount the number of cities
+     * @param degree    the average number of roads of a city
+     * @param random    the source of city positions
+     */
+    private static void writeGeometricMap(OutputSink output, int cityCount, int degree, Random random) {
+        double size = Math.sqrt(cityCount) * MAX_LENGTH; //Side of the square, one city per MAX_LENGTH x MAX_LENGTH on average
+        double radius = Math.sqrt(degree / Math.PI) * MAX_LENGTH;
+        int cellsPerSide = Math.max(1, (int) (size / radius));
+        double[] x = new double[cityCount];
+        double[] y = new double[cityCount];
+        //Cities of each cell one after another, in the order of cells
+        int[] cellOffsets = new int[cellsPerSide * cellsPerSide + 1];
+        int[] cells = new int[cityCount];
+        for (int city = 0; city < cityCount; city++) {
+            x[city] = random.nextDouble() * size;
+            y[city] = random.nextDouble() * size;
+            cells[city] = getCell(x[city], y[city], size, cellsPerSide);
+            cellOffsets[cells[city] + 1]++;
+        }
+        for (int cell = 0; cell < cellsPerSide * cellsPerSide; cell++) {
+            cellOffsets[cell + 1] += cellOffsets[cell];
+        }
+        int[] cellCities = new int[cityCount];
+        int[] nextPositions = Arrays.copyOf(cellOffsets, cellOffsets.length - 1);
+        for (int city = 0; city < cityCount; city++) {
+            cellCities[nextPositions[cells[city]]++] = city;
+        }
+
+        output.writeLine(getCityName(0) + "\t" + getCityName(cityCount - 1));
+        int roadId = 1;
+        for (int city = 0; city < cityCount; city++) {
+            int cellRow = cells[city] / cellsPerSide;
+            int cellColumn = cells[city] % cellsPerSide;
+            for (int row = Math.max(0, cellRow - 1); row <= Math.min(cellsPerSide - 1, cellRow + 1); row++) {
+                for (int column = Math.max(0, cellColumn - 1); column <= Math.min(cellsPerSide - 1, cellColumn + 1); column++) {
+                    int cell = row * cellsPerSide + column;
+                    for (int i = cellOffsets[cell]; i < cellOffsets[cell + 1]; i++) {
+                        int nextCity = cellCities[i];
+                        double distance = Math.hypot(x[city] - x[nextCity], y[city] - y[nextCity]);
+                        if (nextCity > city && distance < radius) { //Each road is written once, from its smaller city
+                            writeRoad(output, city, nextCity, 1 + (int) distance, roadId++);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes a scale-free map with preferential attachment. Each new city is connected to half of the average degree
+     * of earlier cities, chosen in proportion to their number of roads, so a few cities become hubs with many roads.
+     *
+     * @param output    the output to write the map to
+     * @param cityCount the number of cities
+     * @param degree    the average number of roads of a city
+     * @param random    the source of connections and road lengths
+     */
+    private static void writeScaleFreeMap(OutputSink output, int cityCount, int degree, Random random) {
+        int roadsPerCity = Math.max(1, degree / 2);
+        //Each road puts both of its ends here, so a city is chosen in proportion to its number of roads
+        int[] roadEnds = new int[2 * roadsPerCity * cityCount];
+        int roadEndCount = 0;
+        int[] chosenCities = new int[roadsPerCity];
+
+        output.writeLine(getCityName(0) + "\t" + getCityName(cityCount - 1));
+        int roadId = 1;
+        for (int city = 1; city < cityCount; city++) {
+            int chosenCount = 0;
+            while (chosenCount < Math.min(roadsPerCity, city)) {
+                int nextCity = roadEndCount == 0 ? 0 : roadEnds[random.nextInt(roadEndCount)];
+                boolean isChosen = false;
+                for (int i = 0; i < chosenCount; i++) {
+                    isChosen |= chosenCities[i] == nextCity;
+                }
+                if (!isChosen) { //Cities are connected by a single road
+                    chosenCities[chosenCount++] = nextCity;
+                }
+            }
+            for (int i = 0; i < chosenCount; i++) {
+                writeRoad(output, chosenCities[i], city, 1 + random.nextInt(MAX_LENGTH), roadId++);
+                roadEnds[roadEndCount++] = chosenCities[i];
+                roadEnds[roadEndCount++] = city;
+            }
+        }
+    }
+
+    /**
+     * Returns the cell of the point, cells are numbered row by row.
+     *
+     * @param x            the horizontal position of the point
+     * @param y            the vertical position of the point
+     * @param size         the side of the square
+     * @param cellsPerSide the number of cells in a row
+     * @return the cell of the point
+     */
+    private static int getCell(double x, double y, double size, int cellsPerSide) {
+        int row = Math.min(cellsPerSide - 1, (int) (y / size * cellsPerSide));
+        int column = Math.min(cellsPerSide - 1, (int) (x / size * cellsPerSide));
+        return row * cellsPerSide + column;
+    }
+
+    /**
+     * Writes a road line at structure ("<FirstEnd>\t<SecondEnd>\t<Length>\t<ID>").
+     *
+     * @param output    the output to write to
+     * @param firstEnd  the first endpoint of the road
+     * @param secondEnd the second endpoint of the road
+     * @param length    the length of the road
+     * @param id        the unique identifier of the road
+     */
+    private static void writeRoad(OutputSink output, int firstEnd, int secondEnd, int length, int id) {
+        output.writeLine(getCityName(firstEnd) + "\t" + getCityName(secondEnd) + "\t" + length + "\t" + id);
+    }
+
+    /**
+     * Returns the name of the city with the given number.
+     *
+     * @param city the number of the city
+     * @return the name of the city
+     */
+    private static String getCityName(int city) {
+        return "City" + city;
+    }
+}
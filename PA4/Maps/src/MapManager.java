@@ -1,190 +1,310 @@
-import java.util.*;
+import java.util.Random;
+import java.util.function.IntPredicate;
 
 /**
  * This class provides methods to calculate the fastest route between cities for the given map
  * and to create a barely connected map using the provided road data.
  */
 public class MapManager {
+    private static final long STRETCH_SAMPLE_SEED = 42; //Seed of city pairs sampled for stretch analysis
 
     /**
      * Calculates the fastest route's length from the departure city to the arrival city.
-     * Writes the fastest route information to the specified output file.
+     * Writes the fastest route information to the specified output.
      *
-     * @param outputFilePath       the path of the file to write the output to
-     * @param allRoadsOfCities     a map containing all roads connecting the cities
+     * @param output               the output to write to
+     * @param graph                a graph containing all roads connecting the cities
      * @param departureCity        the name of the departure city
      * @param arrivalCity          the name of the arrival city
      * @param isBarelyConnectedMap boolean indicating if the calculation is for a barely connected map or original map
-     * @return the distance travelled for the fastest route
+     * @return the distance travelled for the fastest route, -1 if there is no route
      */
-    public static int getFastestRoute(String outputFilePath, HashMap<String, ArrayList<Road>> allRoadsOfCities, String departureCity, String arrivalCity, boolean isBarelyConnectedMap) {
-
-        ArrayList<Point> possiblePoints = new ArrayList<>();
-        //First possible point is starting city
-        possiblePoints.add(new Point(departureCity, null, null));
-        HashMap<String, Point> pointsVisited = new HashMap<>();
-
-        while (!pointsVisited.containsKey(arrivalCity)) { //While arrival-city haven't been visited (Route is not finished)
-            //Sorts the possible points' list by the total distance needed to go to reach that points
-            sortPointsListByDistanceTravelled(possiblePoints);
+    public static int getFastestRoute(OutputSink output, RoadGraph graph, String departureCity, String arrivalCity, boolean isBarelyConnectedMap) {
+        return getFastestRoute(output, graph, departureCity, arrivalCity, isBarelyConnectedMap, new DijkstraRouteFinder(graph));
+    }
 
-            //Moves to the point has the least total distance and deletes this point from possible-points list
-            //Then adds all unvisited neighbors of this new point as possible points
-            moveNextPoint(allRoadsOfCities, possiblePoints, pointsVisited);
+    /**
+     * Calculates the fastest route's length from the departure city to the arrival city with the given route finder.
+     * Writes the fastest route information to the specified output.
+     *
+     * @param output               the output to write to
+     * @param graph                a graph containing all roads connecting the cities
+     * @param departureCity        the name of the departure city
+     * @param arrivalCity          the name of the arrival city
+     * @param isBarelyConnectedMap boolean indicating if the calculation is for a barely connected map or original map
+     * @param routeFinder          the algorithm to find the fastest route over the same graph
+     * @return the distance travelled for the fastest route, -1 if there is no route
+     */
+    public static int getFastestRoute(OutputSink output, RoadGraph graph, String departureCity, String arrivalCity, boolean isBarelyConnectedMap, RouteFinder routeFinder) {
+        int departure = graph.getCityId(departureCity);
+        int arrival = graph.getCityId(arrivalCity);
+        //Cities in different parts of the map are rejected without searching
+        if (departure == -1 || arrival == -1 || !graph.getReachabilityIndex().isReachable(departure, arrival)) {
+            OutputManager.writeNoRouteInformationToFile(output, graph, departureCity, arrivalCity);
+            return -1;
         }
+        //Searches until fastest route to arrival city is found
+        Route route = routeFinder.findFastestRoute(departure, arrival);
+
         //Fastest route is found
-        OutputManager.writeFastestRouteInformationToFile(outputFilePath, departureCity, arrivalCity, pointsVisited, isBarelyConnectedMap);
+        OutputManager.writeFastestRouteInformationToFile(output, graph, departureCity, arrivalCity, route.getDistance(), route.getRoads(), isBarelyConnectedMap);
         //Returns the length of fastest route
-        return pointsVisited.get(arrivalCity).getDistanceTravelled();
+        return route.getDistance();
     }
 
     /**
-     * Creates a barely connected map from the given input data and writes the results to the specified output file.
-     * Returns a map representing the barely connected roads of the cities.
+     * Finds fastest routes from the departure city to other cities, in ascending order of their length.
+     * Search stops when the fastest route to arrival city is found, or continues to all reachable cities if arrival is -1.
      *
-     * @param outputFilePath   the path of the file to write the output to
-     * @param allRoadsOfCities a map containing all roads connecting the cities
-     * @return a map representing the barely connected roads of the cities
+     * @param graph     a graph containing all roads connecting the cities
+     * @param departure the ID of the departure city
+     * @param arrival   the ID of the arrival city, -1 to find routes to all reachable cities
+     * @return the tree of fastest routes found from departure city
      */
-    public static HashMap<String, ArrayList<Road>> createBarelyConnectedMap(String outputFilePath, HashMap<String, ArrayList<Road>> allRoadsOfCities) {
-        //Sorts all cities alphabetically and chooses the minimum one to start
-        String startingCity = new TreeSet<>(allRoadsOfCities.keySet()).first();
-
-        ArrayList<Point> possiblePoints = new ArrayList<>();
-        //First possible point is starting city
-        possiblePoints.add(new Point(startingCity, null, null));
-        HashMap<String, Point> pointsVisited = new HashMap<>();
-
-        while (pointsVisited.size() != allRoadsOfCities.keySet().size()) { //While all cities cannot linked to map
-            //Sorts points by the roads, which connects current point to them, length
-            sortPointsListByComingRoadLength(possiblePoints);
+    public static ShortestPathTree findShortestPathTree(RoadGraph graph, int departure, int arrival) {
+        ShortestPathTree tree = new ShortestPathTree(graph.getCityCount());
+        findShortestPathTree(graph, departure, arrival, tree, new IndexedMinHeap(graph.getCityCount()));
+        return tree;
+    }
 
-            //Moves to the point has the least connecting road length and deletes this point from possible-points list
-            //Then adds all unvisited neighbors of this new point as possible points
-            moveNextPoint(allRoadsOfCities, possiblePoints, pointsVisited);
+    /**
+     * Finds fastest routes from the departure city to other cities, in ascending order of their length, into the given tree.
+     * Search stops when the fastest route to arrival city is found, or continues to all reachable cities if arrival is -1.
+     * If arrival city is in another part of the map, nothing is searched and arrival city is not reached.
+     *
+     * @param graph          a graph containing all roads connecting the cities
+     * @param departure      the ID of the departure city
+     * @param arrival        the ID of the arrival city, -1 to find routes to all reachable cities
+     * @param tree           the tree to write fastest routes into
+     * @param possibleCities the heap to keep cities that can be visited next
+     */
+    public static void findShortestPathTree(RoadGraph graph, int departure, int arrival, ShortestPathTree tree, IndexedMinHeap possibleCities) {
+        if (arrival != -1 && !graph.getReachabilityIndex().isReachable(departure, arrival)) { //Arrival city cannot be reached
+            tree.clear(departure);
+            possibleCities.clear();
+            return;
         }
+        findShortestPathTree(graph, departure, tree, possibleCities, city -> city == arrival);
+    }
 
-        //Barely connected map is found
-        Set<String> setOfVisitedPoints = pointsVisited.keySet(); //Set consisting of city names
+    /**
+     * Finds fastest routes from the departure city to other cities, in ascending order of their length, into the given tree.
+     * Search stops right after the city the given condition is true for is reached, or continues to all reachable cities.
+     * Distances are carried from each city to its neighbors, so reaching a city costs O(1) regardless of route length.
+     * If fastest routes are equal in length, the route whose last road is found earlier is kept,
+     * roads of a city are found in ascending order of length, and of ID if lengths are equal.
+     * Tree and heap are cleared before the search, so they can be reused by a thread for many searches.
+     * Counts of the search are added to {@code MetricsManager} when it ends.
+     *
+     * @param graph          a graph containing all roads connecting the cities
+     * @param departure      the ID of the departure city
+     * @param tree           the tree to write fastest routes into
+     * @param possibleCities the heap to keep cities that can be visited next
+     * @param isLastCity     the condition checked for each reached city in order, true to stop the search
+     */
+    public static void findShortestPathTree(RoadGraph graph, int departure, ShortestPathTree tree, IndexedMinHeap possibleCities, IntPredicate isLastCity) {
+        //First possible point is starting city
+        tree.clear(departure);
+        possibleCities.clear();
+        int insertionOrder = 0;
+        possibleCities.insert(departure, createPriorityKey(0, insertionOrder++));
+        int settledCityCount = 0;
+        int relaxedEdgeCount = 0;
+        int decreaseKeyCount = 0;
+
+        while (!possibleCities.isEmpty()) {
+            //Moves to the city has the least total distance, cities found earlier come first if distances are equal
+            int city = possibleCities.pollMin();
+            tree.markReached(city);
+            settledCityCount++;
+            if (isLastCity.test(city)) { //Route to the last city is finished
+                break;
+            }
 
-        ArrayList<Road> barelyConnectedRoads = new ArrayList<>(); //Array-list to keep all barely connected roads
+            //Roads of each city are already sorted by length, and by ID if lengths are equal
+            for (int edge = graph.getEdgeOffset(city); edge < graph.getEdgeOffset(city + 1); edge++) {
+                int nextCity = graph.getEdgeTarget(edge); //The other end (neighbor end)
+                if (tree.isReached(nextCity)) { //Neighbor is already visited
+                    continue;
+                }
+                int distance = tree.getDistance(city) + graph.getEdgeLength(edge);
+                long key = createPriorityKey(distance, insertionOrder++);
+                relaxedEdgeCount++;
 
-        //Hash-map to keep barely connecting roads of cities
-        HashMap<String, ArrayList<Road>> barelyConnectedRoadsOfCities = new HashMap<>();
+                if (!possibleCities.contains(nextCity)) { //Neighbor is found for the first time
+                    possibleCities.insert(nextCity, key);
+                    tree.addCity(nextCity, distance, graph.getEdgeRoad(edge), city);
 
-        for (String visitedPoint : setOfVisitedPoints) { //For cities
-            if (pointsVisited.get(visitedPoint).getRoadComesThisPoint() != null) { //If city is not the starting point
-                //Gets road comes this point
-                Road road = pointsVisited.get(visitedPoint).getRoadComesThisPoint();
-                //Adds road to list
-                barelyConnectedRoads.add(road);
-                //Adds road for both of its ends in a map
-                addRoadToCityMap(barelyConnectedRoadsOfCities, road);
+                } else if (key < possibleCities.getKey(nextCity)) { //Neighbor is found with a shorter distance
+                    possibleCities.decreaseKey(nextCity, key);
+                    tree.setParent(nextCity, distance, graph.getEdgeRoad(edge), city);
+                    decreaseKeyCount++;
+                }
             }
         }
-        //Writes roads in ascending order of length to output file
-        OutputManager.writeBarelyConnectedMap(outputFilePath, barelyConnectedRoads);
-
-        //Returns Barely Connected Map [(City Name: String) -> roads: ArrayList<Road>]
-        return barelyConnectedRoadsOfCities;
+        //Each city is inserted once, and inserted cities are either polled (settled) or left in the heap
+        int insertCount = settledCityCount + possibleCities.size();
+        MetricsManager.addSearchCounts(settledCityCount, relaxedEdgeCount, insertCount + settledCityCount + decreaseKeyCount);
     }
 
     /**
-     * Moves to the next point in the route calculation, updating the list of possible points and points visited.
-     * Pre-condition: List must be provided sorted by the wanted priority
+     * Finds every city whose fastest route from the departure city is not longer than the given distance.
+     * Each city is given to the listener as soon as its fastest route is found, in the same order as the standard search
+     * reaches them, and cities farther than the distance are never added to the search, so the search stops at the border.
+     * State of the search is kept only for the cities it touches, in the given search space, which is cleared before
+     * the search, so a thread reusing it for many searches allocates only for its largest region.
+     * Counts of the search are added to {@code MetricsManager} when it ends.
      *
-     * @param cities         a map containing all roads connecting the cities
-     * @param possiblePoints a list of possible points to visit next
-     * @param pointsVisited  a map of points that have already been visited
+     * @param graph       a graph containing all roads connecting the cities
+     * @param departure   the ID of the departure city
+     * @param maxDistance the longest distance of a reached city
+     * @param searchSpace the search space to keep the state of the search
+     * @param listener    the listener to give each reached city with its distance
+     * @return the number of reached cities
      */
-    private static void moveNextPoint(HashMap<String, ArrayList<Road>> cities, ArrayList<Point> possiblePoints, HashMap<String, Point> pointsVisited) {
-        for (Point possiblePoint : possiblePoints) { //Trys until finding a proper point to move
-            if (!pointsVisited.containsKey(possiblePoint.getName())) { //If possible point is not visited already
-                //Visit possible point
-                pointsVisited.put(possiblePoint.getName(), possiblePoint);
-                possiblePoints.remove(possiblePoint);
-
-                sortRoadsListByLength(cities.get(possiblePoint.getName()));
-                for (Road road : cities.get(possiblePoint.getName())) { //For roads go to neighbors of current point
-                    //The other end's (neighbor end) name
-                    String nextPointName = (road.getFirstEnd()).equals(possiblePoint.getName()) ? road.getSecondEnd() : road.getFirstEnd();
-                    //Adds all neighbors if not visited already as possible points
-                    possiblePoints.add(new Point(nextPointName, possiblePoint, road));
+    public static int findCitiesWithin(RoadGraph graph, int departure, int maxDistance, RegionSearchSpace searchSpace, ReachedCityListener listener) {
+        searchSpace.clear();
+        if (maxDistance < 0) { //Even departure city is too far
+            return 0;
+        }
+        int insertionOrder = 0;
+        searchSpace.offer(searchSpace.getSlot(departure), 0, createPriorityKey(0, insertionOrder++));
+        int settledCityCount = 0;
+        int relaxedEdgeCount = 0;
+        int offerCount = 1;
+
+        int slot;
+        while ((slot = searchSpace.pollReached()) != -1) {
+            int city = searchSpace.getCity(slot);
+            int cityDistance = searchSpace.getDistance(slot);
+            settledCityCount++;
+            listener.cityReached(city, cityDistance);
+
+            for (int edge = graph.getEdgeOffset(city); edge < graph.getEdgeOffset(city + 1); edge++) {
+                long distance = (long) cityDistance + graph.getEdgeLength(edge);
+                if (distance > maxDistance) { //Roads are sorted by length, so the rest of the roads are longer
+                    break;
+                }
+                relaxedEdgeCount++;
+                int nextSlot = searchSpace.getSlot(graph.getEdgeTarget(edge));
+                if (searchSpace.offer(nextSlot, (int) distance, createPriorityKey((int) distance, insertionOrder++))) {
+                    offerCount++;
                 }
-                break; //Break for loop as moving is done
             }
         }
+        MetricsManager.addSearchCounts(settledCityCount, relaxedEdgeCount, offerCount + settledCityCount);
+        return settledCityCount;
     }
 
     /**
-     * Adds a road to the map of cities -> their connecting roads.
+     * Creates a barely connected map from the given input data with Kruskal's algorithm and writes the results to the specified output.
+     * Returns a graph representing the barely connected roads of the cities.
      *
-     * @param cities a map containing roads connecting the cities [(City Name: String) -> roads: ArrayList<Road>]
-     * @param road   the road to be added to the map
+     * @param output         the output to write to
+     * @param graph          a graph containing all roads connecting the cities
+     * @return a graph representing the barely connected roads of the cities
      */
-    public static void addRoadToCityMap(HashMap<String, ArrayList<Road>> cities, Road road) {
-        String firstEnd = road.getFirstEnd();
-        String secondEnd = road.getSecondEnd();
-
-        Set<String> cityNames = cities.keySet();
-        if (!cityNames.contains(firstEnd)) { //City is not added before
-            ArrayList<Road> roads = new ArrayList<>();
-            roads.add(road);
-            cities.put(firstEnd, roads); //City is firstly added  with the road
-
-        } else { //City is already added by another road
-            cities.get(firstEnd).add(road); //Road added to the city
-        }
-        if (!cityNames.contains(secondEnd)) { //City is not added before
-            ArrayList<Road> roads = new ArrayList<>();
-            roads.add(road);
-            cities.put(secondEnd, roads); //City is firstly added with the road
-
-        } else { //City is already added by another road
-            cities.get(secondEnd).add(road); //Road added to the city
-        }
+    public static RoadGraph createBarelyConnectedMap(OutputSink output, RoadGraph graph) {
+        return createBarelyConnectedMap(output, graph, new KruskalSpanningTreeBuilder());
     }
 
     /**
-     * Sorts a list of points by the distance travelled until reach that point.
+     * Creates a barely connected map from the given input data with the given algorithm and writes the results to the specified output.
+     * Returns a graph representing the barely connected roads of the cities.
+     * If the map has several connected parts, barely connected map is a spanning forest connecting each part on its own.
      *
-     * @param possiblePoints the list of points to be sorted
+     * @param output              the output to write to
+     * @param graph               a graph containing all roads connecting the cities
+     * @param spanningTreeBuilder the algorithm to find roads of the barely connected map
+     * @return a graph representing the barely connected roads of the cities
      */
-    private static void sortPointsListByDistanceTravelled(ArrayList<Point> possiblePoints) {
-        possiblePoints.sort(Comparator.comparingInt(Point::getDistanceTravelled));
+    public static RoadGraph createBarelyConnectedMap(OutputSink output, RoadGraph graph, SpanningTreeBuilder spanningTreeBuilder) {
+        //Barely connected map is found
+        int[] barelyConnectedRoads = spanningTreeBuilder.findSpanningTreeRoads(graph);
+
+        //Writes roads in ascending order of length to output file
+        OutputManager.writeBarelyConnectedMap(output, graph, barelyConnectedRoads);
+
+        //Returns Barely Connected Map, it has the same city IDs with the original map
+        return graph.createSubgraph(barelyConnectedRoads);
     }
 
+    /**
+     * Creates the barely connected map of the given input file without reading its roads into memory,
+     * and writes the results to the specified output in the same format as {@code createBarelyConnectedMap}.
+     * Roads are sorted in temporary files of the given number of roads each and merged, so memory grows with the number
+     * of cities and not with the number of roads, for maps whose roads do not fit in memory.
+     *
+     * @param output        the output to write to
+     * @param inputFilePath the path of the input file in specified format
+     * @param roadsPerRun   the number of roads sorted at once in memory
+     * @return the number of roads of the barely connected map
+     */
+    public static int createBarelyConnectedMapOutOfCore(OutputSink output, String inputFilePath, int roadsPerRun) {
+        return new ExternalSpanningTreeWriter(roadsPerRun).writeBarelyConnectedMap(inputFilePath, output);
+    }
 
     /**
-     * Sorts a list of points by the length of the road they are connected by.
+     * Compares routes of the barely connected map with fastest routes of the original map between randomly sampled cities,
+     * and writes the average and maximum ratio of their lengths (stretch) to the specified output.
+     * Routes of the barely connected map are answered by its spanning tree index in O(log n), so the cost of sampling
+     * is the route finder of the original map. Samples are the same on every run, cities in different parts of the map
+     * and routes of zero length are skipped.
      *
-     * @param possiblePoints the list of points to be sorted
+     * @param output         the output to write to
+     * @param graph          a graph containing all roads connecting the cities
+     * @param treeIndex      the spanning tree index of the barely connected map of the graph
+     * @param routeFinder    the algorithm to find fastest routes of the original map
+     * @param sampleCount    the number of city pairs to sample
      */
-    private static void sortPointsListByComingRoadLength(ArrayList<Point> possiblePoints) {
-        possiblePoints.sort((p1, p2) -> {
-            int result = Integer.compare(p1.getRoadComesThisPoint().getLength(), p2.getRoadComesThisPoint().getLength());
-            if (result == 0) { //If lengths are equal
-                return Integer.compare(p1.getRoadComesThisPoint().getId(), p2.getRoadComesThisPoint().getId());
-            } else {
-                return result;
+    public static void analyzeRouteStretch(OutputSink output, RoadGraph graph, SpanningTreeIndex treeIndex, RouteFinder routeFinder, int sampleCount) {
+        Random random = new Random(STRETCH_SAMPLE_SEED);
+        int routeCount = 0;
+        double totalStretch = 0;
+        double maxStretch = 0;
+        for (int i = 0; i < sampleCount; i++) {
+            int departure = random.nextInt(graph.getCityCount());
+            int arrival = random.nextInt(graph.getCityCount());
+            if (!treeIndex.isConnected(departure, arrival)) { //Cities are in different parts of the map
+                continue;
+            }
+            Route route = routeFinder.findFastestRoute(departure, arrival);
+            if (route.getDistance() == 0) { //Stretch is undefined
+                continue;
             }
-        });
+            double stretch = (double) treeIndex.getDistance(departure, arrival) / route.getDistance();
+            totalStretch += stretch;
+            maxStretch = Math.max(maxStretch, stretch);
+            routeCount++;
+        }
+        OutputManager.writeStretchAnalysis(output, routeCount, routeCount == 0 ? 0 : totalStretch / routeCount, maxStretch);
     }
 
+    /**
+     * Finds the betweenness centrality of cities and roads of the original map with Brandes' algorithm,
+     * and writes the ones the most fastest routes pass through to the specified output.
+     * Exact centrality searches from every city, so sampling is used for large maps.
+     *
+     * @param output      the output to write to
+     * @param graph       a graph containing all roads connecting the cities
+     * @param sampleCount the number of sampled source cities, 0 for the exact centrality
+     * @param topCount    the number of cities and roads to write
+     * @param threadCount the number of worker threads
+     */
+    public static void analyzeBetweenness(OutputSink output, RoadGraph graph, int sampleCount, int topCount, int threadCount) {
+        BetweennessCentrality centrality = BetweennessCentrality.compute(graph, sampleCount, threadCount);
+        OutputManager.writeBetweennessAnalysis(output, graph, centrality, centrality.getSourceCount() == graph.getCityCount(), topCount);
+    }
 
     /**
-     * Sorts a list of roads by their length, and by their ID if lengths are equal.
+     * Creates the priority key of a possible city for the fastest route calculation.
+     * Cities are ordered by the distance travelled, and by the order they are found if distances are equal.
      *
-     * @param roads the list of roads to be sorted
+     * @param distanceTravelled the total distance needed to go to reach the city
+     * @param insertionOrder    the order of the city among all cities found
+     * @return the priority key of the city, smaller key has higher priority
      */
-    public static void sortRoadsListByLength(ArrayList<Road> roads) {
-        roads.sort((r1, r2) -> {
-            int result = Integer.compare(r1.getLength(), r2.getLength());
-            if (result == 0) { //If lengths are equal
-                return Integer.compare(r1.getId(), r2.getId());
-            } else {
-                return result;
-            }
-        });
+    private static long createPriorityKey(int distanceTravelled, int insertionOrder) {
+        return ((long) distanceTravelled << 32) | insertionOrder;
     }
-}
\ No newline at end of file
+}
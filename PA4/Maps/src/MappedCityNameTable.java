@@ -0,0 +1,98 @@
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * This class reads city names directly from a memory-mapped graph file, without creating a string for every city.
+ * Names are kept as UTF-8 bytes one after another, and city IDs are also kept in ascending byte order of their names,
+ * so the ID of a name is found by binary search instead of a hash map built at startup.
+ */
+public class MappedCityNameTable implements CityNameTable {
+    private final IntBuffer nameOffsets; //Name bytes of city c are in range [nameOffsets[c], nameOffsets[c + 1])
+    private final IntBuffer sortedCities; //City IDs in ascending unsigned byte order of their names
+    private final ByteBuffer nameBytes; //UTF-8 bytes of all city names
+
+    /**
+     * Constructs a table over the given buffers of a graph file.
+     *
+     * @param nameOffsets  offsets of names of cities in name bytes
+     * @param sortedCities city IDs in ascending byte order of their names
+     * @param nameBytes    UTF-8 bytes of all city names
+     */
+    public MappedCityNameTable(IntBuffer nameOffsets, IntBuffer sortedCities, ByteBuffer nameBytes) {
+        this.nameOffsets = nameOffsets;
+        this.sortedCities = sortedCities;
+        this.nameBytes = nameBytes;
+    }
+
+    /**
+     * Returns the number of cities in the table.
+     *
+     * @return the number of cities
+     */
+    @Override
+    public int getCityCount() {
+        return sortedCities.limit();
+    }
+
+    /**
+     * Returns the name of the city with the given ID, decoded from its bytes.
+     *
+     * @param city the ID of the city
+     * @return the name of the city
+     */
+    @Override
+    public String getCityName(int city) {
+        int offset = nameOffsets.get(city);
+        byte[] name = new byte[nameOffsets.get(city + 1) - offset];
+        for (int i = 0; i < name.length; i++) {
+            name[i] = nameBytes.get(offset + i);
+        }
+        return new String(name, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Returns the ID of the city with the given name by binary search over names in byte order.
+     *
+     * @param cityName the name of the city
+     * @return the ID of the city, -1 if there is no such a city
+     */
+    @Override
+    public int getCityId(String cityName) {
+        byte[] name = cityName.getBytes(StandardCharsets.UTF_8);
+        int low = 0;
+        int high = sortedCities.limit() - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int city = sortedCities.get(middle);
+            int comparison = compareName(city, name);
+            if (comparison < 0) {
+                low = middle + 1;
+            } else if (comparison > 0) {
+                high = middle - 1;
+            } else {
+                return city;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Compares the name of the given city with the given name, byte by byte as unsigned values.
+     *
+     * @param city the ID of the city
+     * @param name UTF-8 bytes of the name
+     * @return a negative number, zero or a positive number if city's name comes before, is equal to or comes after the name
+     */
+    private int compareName(int city, byte[] name) {
+        int offset = nameOffsets.get(city);
+        int length = nameOffsets.get(city + 1) - offset;
+        for (int i = 0; i < Math.min(length, name.length); i++) {
+            int comparison = Integer.compare(nameBytes.get(offset + i) & 0xFF, name[i] & 0xFF);
+            if (comparison != 0) {
+                return comparison;
+            }
+        }
+        return Integer.compare(length, name.length);
+    }
+}
@@ -0,0 +1,72 @@
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This class collects metrics of a run of the map analyzer and writes them to a JSON file.
+ * Time of each phase (parsing, routing, building the barely connected map, writing output and others) is added up
+ * over the run, so a slow run shows which phase the time was spent in.
+ * Each phase is timed once, by {@code MapAnalyzer} around a whole stage or mode, and "output" is only the time of writing
+ * to the output file. Stages run at the same time, so phase times may add up to more than the time of the run.
+ * Every search over the map counts cities settled, roads relaxed and heap operations, whichever route algorithm,
+ * distance matrix, betweenness or tree repair runs it, and searches building indexes such as landmarks are counted too.
+ * Counts are added once per search, so counting does not slow down the search and searches of many threads can be counted.
+ */
+public class MetricsManager {
+    private static final Map<String, Long> phaseTimes = new LinkedHashMap<>(); //Total nanoseconds of each phase, in order of first use
+    private static final LongAdder settledCityCount = new LongAdder();
+    private static final LongAdder relaxedEdgeCount = new LongAdder();
+    private static final LongAdder heapOperationCount = new LongAdder();
+
+    /**
+     * Adds the time passed since the given start time to the phase with the given name.
+     *
+     * @param phase     the name of the phase
+     * @param startTime the value of {@code System.nanoTime()} when the phase started
+     */
+    public static void addPhaseTime(String phase, long startTime) {
+        long time = System.nanoTime() - startTime;
+        synchronized (phaseTimes) {
+            phaseTimes.merge(phase, time, Long::sum);
+        }
+    }
+
+    /**
+     * Adds the counts of a single search.
+     *
+     * @param settledCities  the number of cities whose fastest routes are found
+     * @param relaxedEdges   the number of roads followed to a city whose fastest route is not found yet
+     * @param heapOperations the number of insert, decrease key and poll operations of the heap
+     */
+    public static void addSearchCounts(int settledCities, int relaxedEdges, int heapOperations) {
+        settledCityCount.add(settledCities);
+        relaxedEdgeCount.add(relaxedEdges);
+        heapOperationCount.add(heapOperations);
+    }
+
+    /**
+     * Writes the metrics collected so far to the file at the given path as a JSON object.
+     * Phase times are in milliseconds.
+     *
+     * @param path         the path of the metrics file
+     * @param bytesWritten the number of bytes written to the output
+     */
+    public static void writeMetrics(String path, long bytesWritten) {
+        StringBuilder json = new StringBuilder();
+        json.append("{\n  \"phases\": {");
+        synchronized (phaseTimes) {
+            String separator = "\n";
+            for (Map.Entry<String, Long> phase : phaseTimes.entrySet()) {
+                json.append(separator).append(String.format("    \"%s\": %.3f", phase.getKey(), phase.getValue() / 1e6));
+                separator = ",\n";
+            }
+        }
+        json.append("\n  },\n  \"counters\": {\n");
+        json.append(String.format("    \"citiesSettled\": %d,\n", settledCityCount.sum()));
+        json.append(String.format("    \"edgesRelaxed\": %d,\n", relaxedEdgeCount.sum()));
+        json.append(String.format("    \"heapOperations\": %d,\n", heapOperationCount.sum()));
+        json.append(String.format("    \"bytesWritten\": %d\n", bytesWritten));
+        json.append("  }\n}");
+        FileIO.writeToFile(path, json.toString(), false, true);
+    }
+}
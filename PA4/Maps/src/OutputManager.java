@@ -1,98 +1,199 @@
-import java.util.*;
-
 /**
  * This class handles writing map analyzing methods' outputs(such as informative messages) to a file,
  */
 public class OutputManager {
 
     /**
-     * Writes the listed roads, which creates a barely connected map, to the specified output file.
+     * Writes the listed roads, which creates a barely connected map, to the specified output.
      *
-     * @param outputFilePath       the path of the file to write the output to
-     * @param barelyConnectedRoads the list of roads that form the barely connected map
+     * @param output               the output to write to
+     * @param graph                the graph that roads belong to
+     * @param barelyConnectedRoads the road indices of roads that form the barely connected map
      */
-    public static void writeBarelyConnectedMap(String outputFilePath, ArrayList<Road> barelyConnectedRoads) {
-        FileIO.writeToFile(outputFilePath, "Roads of Barely Connected Map is:", true, true);
-        //Sorts the roads given in list by their own length (short to long)
-        MapManager.sortRoadsListByLength(barelyConnectedRoads);
-        for (Road road : barelyConnectedRoads) {
+    public static void writeBarelyConnectedMap(OutputSink output, RoadGraph graph, int[] barelyConnectedRoads) {
+        output.writeLine("Roads of Barely Connected Map is:");
+        //Sorts the roads given in array by their own length (short to long)
+        graph.sortRoadIndicesByLength(barelyConnectedRoads);
+        for (int road : barelyConnectedRoads) {
             //toString() method is overridden to give an informative message of the road
-            FileIO.writeToFile(outputFilePath, road.toString(), true, true);
+            output.writeLine(graph.getRoad(road).toString());
         }
     }
 
     /**
-     * Writes the fastest route information to the specified output file.
+     * Writes the fastest route information to the specified output.
+     *
+     * @param output               the output to write to
+     * @param graph                the graph that route is found on
+     * @param departureCity        the name of the departure city
+     * @param arrivalCity          the name of the arrival city
+     * @param routeDistance        the total distance of the fastest route
+     * @param route                road indices of the fastest route in order from departure to arrival
+     * @param isBarelyConnectedMap a boolean indicating whether the route is for the barely connected map or original map
+     */
+    public static void writeFastestRouteInformationToFile(OutputSink output, RoadGraph graph, String departureCity, String arrivalCity, int routeDistance, int[] route, boolean isBarelyConnectedMap) {
+        StringBuilder routeInformation = new StringBuilder();
+        appendFastestRouteInformation(routeInformation, graph, departureCity, arrivalCity, routeDistance, route, isBarelyConnectedMap);
+        output.write(routeInformation.toString());
+    }
+
+    /**
+     * Appends the fastest route information to the given text, each line ends with a new line.
      *
-     * @param outputFilePath       the path of the file to write the output to
+     * @param text                 the text to append the information to
+     * @param graph                the graph that route is found on
      * @param departureCity        the name of the departure city
      * @param arrivalCity          the name of the arrival city
-     * @param pointsVisited        a map of points that have been visited, keyed by city name
+     * @param routeDistance        the total distance of the fastest route
+     * @param route                road indices of the fastest route in order from departure to arrival
      * @param isBarelyConnectedMap a boolean indicating whether the route is for the barely connected map or original map
      */
-    public static void writeFastestRouteInformationToFile(String outputFilePath, String departureCity, String arrivalCity, HashMap<String, Point> pointsVisited, boolean isBarelyConnectedMap) {
+    public static void appendFastestRouteInformation(StringBuilder text, RoadGraph graph, String departureCity, String arrivalCity, int routeDistance, int[] route, boolean isBarelyConnectedMap) {
 
         if (isBarelyConnectedMap) { //Message for barely connected map
-            //Point vector keeps the distance travelled to reach it, for its unique route.
-            int fastestRouteForBarelyConnectedMap = pointsVisited.get(arrivalCity).getDistanceTravelled();
-            FileIO.writeToFile(outputFilePath, String.format("Fastest Route from %s to %s on Barely Connected Map (%d KM):", departureCity, arrivalCity, fastestRouteForBarelyConnectedMap), true, true);
-            //Writes track of the roads to reach arrival-city, recursively
-            writeFastestRouteStops(pointsVisited.get(arrivalCity), outputFilePath);
+            text.append(String.format("Fastest Route from %s to %s on Barely Connected Map (%d KM):", departureCity, arrivalCity, routeDistance)).append('\n');
 
         } else { //Message for original map
-            //Point vector keeps the distance travelled to reach it, for its unique route.
-            int fastestRouteForOriginalMap = pointsVisited.get(arrivalCity).getDistanceTravelled();
-            FileIO.writeToFile(outputFilePath, String.format("Fastest Route from %s to %s (%d KM):", departureCity, arrivalCity, fastestRouteForOriginalMap), true, true);
-            //Writes track of the roads to reach arrival-city, recursively
-            writeFastestRouteStops(pointsVisited.get(arrivalCity), outputFilePath);
+            text.append(String.format("Fastest Route from %s to %s (%d KM):", departureCity, arrivalCity, routeDistance)).append('\n');
+        }
+        //Appends track of the roads to reach arrival-city
+        for (int road : route) {
+            //toString() method is overridden to give an informative message of the road
+            text.append(graph.getRoad(road)).append('\n');
         }
     }
 
     /**
-     * Writes analysis of construction material usage and route distances among two map to the specified output file.
+     * Appends the longest road on the route of the barely connected map to the given text, each line ends with a new line.
      *
-     * @param outputFilePath               the path of the file to write the output to
-     * @param allRoadsOfCities             a map of cities and an array-list of all roads connecting them [(City Name: String) -> roads: ArrayList<Road>]
-     * @param barelyConnectedRoadsOfCities a map of cities and an array-list of barely roads connecting them [(City Name: String) -> roads: ArrayList<Road>]
-     * @param barelyConnectedRouteDistance the total distance of the fastest route in the barely connected map
-     * @param normalConnectedRouteDistance the total distance of the fastest route in the original map
+     * @param text          the text to append the information to
+     * @param graph         the graph of the barely connected map
+     * @param departureCity the name of the departure city
+     * @param arrivalCity   the name of the arrival city
+     * @param longestRoad   the road index of the longest road on the route, -1 if the route has no road
      */
-    public static void writeAnalyses(String outputFilePath, HashMap<String, ArrayList<Road>> allRoadsOfCities, HashMap<String, ArrayList<Road>> barelyConnectedRoadsOfCities, int barelyConnectedRouteDistance, int normalConnectedRouteDistance) {
-
-        //Calculation of total length of all roads for both maps.
-        //Result will be double of the actual one since map holds same road for both ends of it
-        //However, thanks to we use just ratio of them it is unnecessary to divide both of them by 2
-        int constructionLengthForBarelyConnectedRoads = 0;
-        int constructionLengthForAllRoads = 0;
-        for (ArrayList<Road> roads : allRoadsOfCities.values()) { //For all cities of original map
-            for (Road road : roads) { //For all roads connecting to the city
-                constructionLengthForAllRoads += road.getLength(); //Adds length of road
-            }
+    public static void appendLongestRoadInformation(StringBuilder text, RoadGraph graph, String departureCity, String arrivalCity, int longestRoad) {
+        text.append(String.format("Longest Road from %s to %s on Barely Connected Map:", departureCity, arrivalCity)).append('\n');
+        if (longestRoad != -1) { //Route has at least one road
+            text.append(graph.getRoad(longestRoad)).append('\n');
         }
-        for (ArrayList<Road> roads : barelyConnectedRoadsOfCities.values()) { //For all cities of map
-            for (Road road : roads) { //For barely roads connecting to the city
-                constructionLengthForBarelyConnectedRoads += road.getLength(); //Adds length of road
-            }
+    }
+
+    /**
+     * Appends the title of the cities within the given distance of the departure city to the given text, which ends with a new line.
+     *
+     * @param text          the text to append the title to
+     * @param departureCity the name of the departure city
+     * @param maxDistance   the longest distance of a listed city
+     */
+    public static void appendCitiesWithinTitle(StringBuilder text, String departureCity, int maxDistance) {
+        text.append(String.format("Cities within %d KM of %s:", maxDistance, departureCity)).append('\n');
+    }
+
+    /**
+     * Appends a city reached within the distance with the length of its fastest route at structure ("<City>\t<Distance>"),
+     * which ends with a new line.
+     *
+     * @param text     the text to append the city to
+     * @param graph    the graph that cities are searched on
+     * @param city     the ID of the city
+     * @param distance the length of the fastest route to the city
+     */
+    public static void appendReachedCity(StringBuilder text, RoadGraph graph, int city, int distance) {
+        text.append(graph.getCityName(city)).append('\t').append(distance).append('\n');
+    }
+
+    /**
+     * Writes the reason why there is no route between the given cities to the specified output.
+     *
+     * @param output         the output to write to
+     * @param graph          the graph that route is searched on
+     * @param departureCity  the name of the departure city
+     * @param arrivalCity    the name of the arrival city
+     */
+    public static void writeNoRouteInformationToFile(OutputSink output, RoadGraph graph, String departureCity, String arrivalCity) {
+        StringBuilder routeInformation = new StringBuilder();
+        appendNoRouteInformation(routeInformation, graph, departureCity, arrivalCity);
+        output.write(routeInformation.toString());
+    }
+
+    /**
+     * Appends the reason why there is no route between the given cities to the given text, which ends with a new line.
+     * Either one of the cities is not on the map, or cities are in different parts of the map.
+     *
+     * @param text          the text to append the information to
+     * @param graph         the graph that route is searched on
+     * @param departureCity the name of the departure city
+     * @param arrivalCity   the name of the arrival city
+     */
+    public static void appendNoRouteInformation(StringBuilder text, RoadGraph graph, String departureCity, String arrivalCity) {
+        if (graph.getCityId(departureCity) == -1) { //Departure city is not on the map
+            text.append(String.format("There is no city named %s!", departureCity)).append('\n');
+        } else if (graph.getCityId(arrivalCity) == -1) { //Arrival city is not on the map
+            text.append(String.format("There is no city named %s!", arrivalCity)).append('\n');
+        } else {
+            text.append(String.format("There is no route from %s to %s!", departureCity, arrivalCity)).append('\n');
         }
+    }
+
+    /**
+     * Writes analysis of construction material usage and route distances among two map to the specified output.
+     *
+     * @param output                       the output to write to
+     * @param graph                        a graph of cities and all roads connecting them
+     * @param barelyConnectedGraph         a graph of cities and barely roads connecting them
+     * @param barelyConnectedRouteDistance the total distance of the fastest route in the barely connected map, -1 if there is no route
+     * @param normalConnectedRouteDistance the total distance of the fastest route in the original map, -1 if there is no route
+     */
+    public static void writeAnalyses(OutputSink output, RoadGraph graph, RoadGraph barelyConnectedGraph, int barelyConnectedRouteDistance, int normalConnectedRouteDistance) {
+
+        //Calculation of total length of all roads for both maps.
+        long constructionLengthForBarelyConnectedRoads = barelyConnectedGraph.getTotalRoadLength();
+        long constructionLengthForAllRoads = graph.getTotalRoadLength();
+
+        //Route ratio is undefined if there is no route, barely connected map keeps the same parts so both have no route
+        String routeRatio = normalConnectedRouteDistance == -1 ? "undefined" : String.format("%.2f", (float) barelyConnectedRouteDistance / normalConnectedRouteDistance);
 
-        FileIO.writeToFile(outputFilePath, String.format("Analysis:\n" +
+        output.write(String.format("Analysis:\n" +
                 "Ratio of Construction Material Usage Between Barely Connected and Original Map: %.2f\n" +
-                "Ratio of Fastest Route Between Barely Connected and Original Map: %.2f", (float) constructionLengthForBarelyConnectedRoads / constructionLengthForAllRoads, (float) barelyConnectedRouteDistance / normalConnectedRouteDistance), true, false);
+                "Ratio of Fastest Route Between Barely Connected and Original Map: %s", (float) constructionLengthForBarelyConnectedRoads / constructionLengthForAllRoads, routeRatio));
     }
 
     /**
-     * Recursively writes track of the roads which reach arrival-city by using the fastest route
+     * Writes the stretch analysis of routes of the barely connected map over sampled routes to the specified output.
      *
-     * @param point          the current point in the route
-     * @param outputFilePath the path of the file to write the output to
+     * @param output         the output to write to
+     * @param routeCount     the number of sampled routes compared
+     * @param averageStretch the average ratio of route lengths between barely connected and original map
+     * @param maxStretch     the maximum ratio of route lengths between barely connected and original map
      */
-    private static void writeFastestRouteStops(Point point, String outputFilePath) {
-        //Stops if point comes before parameter point is null (Reached starting point)
-        if (point.getPointComesBeforeThisPoint() != null) {
-            //Recursive call
-            writeFastestRouteStops(point.getPointComesBeforeThisPoint(), outputFilePath);
-            //toString() method is overridden to give an informative message of the road
-            FileIO.writeToFile(outputFilePath, point.getRoadComesThisPoint().toString(), true, true);
+    public static void writeStretchAnalysis(OutputSink output, int routeCount, double averageStretch, double maxStretch) {
+        output.write(String.format("\n" +
+                "Average Ratio of %d Sampled Routes Between Barely Connected and Original Map: %.2f\n" +
+                "Maximum Ratio of %d Sampled Routes Between Barely Connected and Original Map: %.2f", routeCount, averageStretch, routeCount, maxStretch));
+    }
+
+    /**
+     * Writes the cities and roads with the highest betweenness, which the most fastest routes pass through, to the specified output.
+     * Each city is written at structure ("<City>\t<Betweenness>") and each road as in input followed by its betweenness.
+     *
+     * @param output      the output to write to
+     * @param graph       a graph containing all roads connecting the cities
+     * @param centrality  the betweenness centrality of the graph
+     * @param isExact     whether the centrality is found from every city or from sampled cities
+     * @param topCount    the number of cities and roads to write
+     */
+    public static void writeBetweennessAnalysis(OutputSink output, RoadGraph graph, BetweennessCentrality centrality, boolean isExact, int topCount) {
+        String mode = isExact ? "exact" : String.format("approximate from %d sampled cities", centrality.getSourceCount());
+        StringBuilder text = new StringBuilder();
+        text.append(String.format("\nMost Critical Cities by Betweenness (%s):", mode));
+        for (int city : centrality.getTopCities(topCount)) {
+            text.append(String.format("\n%s\t%.2f", graph.getCityName(city), centrality.getCityScore(city)));
+        }
+        text.append(String.format("\nMost Critical Roads by Betweenness (%s):", mode));
+        for (int road : centrality.getTopRoads(topCount)) {
+            text.append(String.format("\n%s\t%.2f", graph.getRoad(road), centrality.getRoadScore(road)));
         }
+        output.write(text.toString());
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,130 @@
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+
+/**
+ * This class writes the output of the application to a file which is kept open until the output is finished.
+ * Text is collected in a buffer and written to the file when the buffer is full or at explicit flush points,
+ * so writing costs in proportion to the output size instead of opening and closing the file for every line.
+ * Text is encoded with the default charset, the same as {@code FileIO.writeToFile}.
+ * A sink can also be kept in memory as a section of the output, which is written by a stage running at the same time
+ * with others, and then written to the file in the order of sections.
+ * A sink is written by a single thread at a time.
+ */
+public class OutputSink implements AutoCloseable {
+    private static final int BUFFER_SIZE = 1 << 16; //Bytes collected before they are written to the file
+
+    private final Charset charset = Charset.defaultCharset();
+    private OutputStream stream;
+    private ByteArrayOutputStream section; //Bytes of a sink kept in memory, null if the sink writes to a file
+    private long byteCount; //Number of bytes written so far
+
+    /**
+     * Opens the file at the given path, either creating it or cleaning it.
+     *
+     * @param path the path of the output file
+     */
+    public OutputSink(String path) {
+        try {
+            stream = new BufferedOutputStream(new FileOutputStream(path), BUFFER_SIZE);
+        } catch (FileNotFoundException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Constructs a sink kept in memory, which is written to another sink later by {@code writeTo}.
+     */
+    public OutputSink() {
+        section = new ByteArrayOutputStream();
+        stream = section;
+    }
+
+    /**
+     * Writes all bytes written to this sink kept in memory to the given sink.
+     *
+     * @param output the sink to write to
+     */
+    public void writeTo(OutputSink output) {
+        output.write(section.toByteArray());
+    }
+
+    /**
+     * Writes the given text.
+     *
+     * @param content the text to write
+     */
+    public void write(String content) {
+        write(content.getBytes(charset));
+    }
+
+    /**
+     * Writes the given text followed by a new line.
+     *
+     * @param content the text to write
+     */
+    public void writeLine(String content) {
+        write(content + "\n");
+    }
+
+    /**
+     * Writes the given bytes as they are.
+     *
+     * @param content the bytes to write
+     */
+    public void write(byte[] content) {
+        if (stream == null) { //File could not be opened, its error is already reported
+            return;
+        }
+        try {
+            stream.write(content);
+            byteCount += content.length;
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Returns the number of bytes written so far, including the ones not flushed yet.
+     *
+     * @return the number of bytes written
+     */
+    public long getByteCount() {
+        return byteCount;
+    }
+
+    /**
+     * Writes all collected text to the file, so that the output so far is complete even if the program stops later.
+     */
+    public void flush() {
+        if (stream == null) {
+            return;
+        }
+        try {
+            stream.flush();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Writes all collected text to the file and closes it.
+     */
+    @Override
+    public void close() {
+        if (stream == null) {
+            return;
+        }
+        try {
+            stream.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        } finally {
+            stream = null;
+        }
+    }
+}
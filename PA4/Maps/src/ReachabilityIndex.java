@@ -0,0 +1,89 @@
+/**
+ * This class keeps the connected part of the map each city belongs to, so whether a city can be reached
+ * from another one is answered in O(1) without searching. Parts are found once with union-find over all roads.
+ * Index is only read after it is built, so it can be shared by several threads.
+ */
+public class ReachabilityIndex {
+    private final int[] components; //Connected part of each city, parts are numbered in order of their first city
+    private final int[] componentSizes; //Number of cities in each connected part
+
+    /**
+     * Constructs an index with the given parts.
+     *
+     * @param components     connected part of each city
+     * @param componentSizes number of cities in each connected part
+     */
+    private ReachabilityIndex(int[] components, int[] componentSizes) {
+        this.components = components;
+        this.componentSizes = componentSizes;
+    }
+
+    /**
+     * Finds connected parts of the given graph by merging the two ends of every road.
+     *
+     * @param graph a graph containing all roads connecting the cities
+     * @return the index of connected parts of the graph
+     */
+    public static ReachabilityIndex build(RoadGraph graph) {
+        int cityCount = graph.getCityCount();
+        UnionFind connectedCities = new UnionFind(cityCount);
+        for (int road = 0; road < graph.getRoadCount(); road++) {
+            connectedCities.union(graph.getRoadFirstEnd(road), graph.getRoadSecondEnd(road));
+        }
+
+        //Numbers parts in order of their first city
+        int[] components = new int[cityCount];
+        int[] rootComponents = new int[cityCount]; //Part number of each root city plus one, zero if not numbered yet
+        int[] componentSizes = new int[connectedCities.getSetCount()];
+        int componentCount = 0;
+        for (int city = 0; city < cityCount; city++) {
+            int root = connectedCities.find(city);
+            if (rootComponents[root] == 0) { //First city of a new part
+                rootComponents[root] = ++componentCount;
+            }
+            components[city] = rootComponents[root] - 1;
+            componentSizes[components[city]]++;
+        }
+        return new ReachabilityIndex(components, componentSizes);
+    }
+
+    /**
+     * Returns whether there is a route between the given cities.
+     *
+     * @param firstCity  the ID of the first city
+     * @param secondCity the ID of the second city
+     * @return true if both cities are in the same connected part, false otherwise
+     */
+    public boolean isReachable(int firstCity, int secondCity) {
+        return components[firstCity] == components[secondCity];
+    }
+
+    /**
+     * Returns the connected part the given city belongs to.
+     *
+     * @param city the ID of the city
+     * @return the part number of the city, in range [0, getComponentCount())
+     */
+    public int getComponent(int city) {
+        return components[city];
+    }
+
+    /**
+     * Returns the number of connected parts of the map, a connected map has one part.
+     *
+     * @return the number of connected parts
+     */
+    public int getComponentCount() {
+        return componentSizes.length;
+    }
+
+    /**
+     * Returns the number of cities in the given connected part.
+     *
+     * @param component the part number
+     * @return the number of cities in the part
+     */
+    public int getComponentSize(int component) {
+        return componentSizes[component];
+    }
+}
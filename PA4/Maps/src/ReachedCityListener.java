@@ -0,0 +1,14 @@
+/**
+ * This interface is notified of each city a bounded search reaches, as soon as its fastest route is found,
+ * so cities are handled while the search goes on instead of after it is finished.
+ */
+public interface ReachedCityListener {
+    /**
+     * Handles a city whose fastest route from the departure city is found.
+     * Cities are given in ascending order of distance, departure city first.
+     *
+     * @param city     the ID of the city
+     * @param distance the length of the fastest route to the city
+     */
+    void cityReached(int city, int distance);
+}
@@ -0,0 +1,212 @@
+import java.util.Arrays;
+
+/**
+ * This class keeps the state of a bounded search only for the cities it touches, not for every city of the map.
+ * Each touched city gets a slot in order of being found, through a hash table with open addressing,
+ * and distance, priority key and state of the city are kept by slot. Cities that can be visited next are kept in a heap
+ * of (priority key, slot) entries, and an entry whose key is not the current key of its city is skipped when polled,
+ * so a shorter distance adds a new entry instead of moving the old one.
+ * All arrays double their capacity when they are full and are kept between searches, so a thread that reuses
+ * a search space for many searches allocates only for its largest region, and clearing costs O(touched).
+ */
+public class RegionSearchSpace {
+    private static final int INITIAL_CAPACITY = 16;
+
+    private int[] hashSlots = new int[2 * INITIAL_CAPACITY]; //Slot + 1 of the city in each entry of open addressing, 0 if the entry is empty
+    private int[] cities = new int[INITIAL_CAPACITY]; //City ID of each slot
+    private int[] distances = new int[INITIAL_CAPACITY]; //Distance of each slot found so far
+    private long[] keys = new long[INITIAL_CAPACITY]; //Current priority key of each slot
+    private boolean[] isReached = new boolean[INITIAL_CAPACITY]; //Whether the fastest route to the city of each slot is found
+    private int cityCount;
+    private long[] heapKeys = new long[INITIAL_CAPACITY]; //Priority key of each heap entry, in heap order
+    private int[] heapSlots = new int[INITIAL_CAPACITY]; //Slot of each heap entry, same order
+    private int heapSize;
+
+    /**
+     * Clears the search space for a new search, only the entries written by the last search.
+     */
+    public void clear() {
+        int mask = hashSlots.length - 1;
+        for (int slot = 0; slot < cityCount; slot++) {
+            //Probes past entries already cleared, the entry of the slot is still ahead
+            int entry = mix(cities[slot]) & mask;
+            while (hashSlots[entry] != slot + 1) {
+                entry = (entry + 1) & mask;
+            }
+            hashSlots[entry] = 0;
+        }
+        cityCount = 0;
+        heapSize = 0;
+    }
+
+    /**
+     * Returns the number of cities touched by the current search.
+     *
+     * @return the number of touched cities
+     */
+    public int getCityCount() {
+        return cityCount;
+    }
+
+    /**
+     * Returns the slot of the given city, adding the city with a new slot if it is not touched yet.
+     *
+     * @param city the ID of the city
+     * @return the slot of the city
+     */
+    public int getSlot(int city) {
+        int mask = hashSlots.length - 1;
+        int entry = mix(city) & mask;
+        while (hashSlots[entry] != 0) {
+            if (cities[hashSlots[entry] - 1] == city) {
+                return hashSlots[entry] - 1;
+            }
+            entry = (entry + 1) & mask;
+        }
+
+        int slot = cityCount++;
+        if (slot == cities.length) { //Arrays are full, doubles their capacity
+            cities = Arrays.copyOf(cities, 2 * slot);
+            distances = Arrays.copyOf(distances, 2 * slot);
+            keys = Arrays.copyOf(keys, 2 * slot);
+            isReached = Arrays.copyOf(isReached, 2 * slot);
+        }
+        cities[slot] = city;
+        keys[slot] = Long.MAX_VALUE;
+        isReached[slot] = false;
+        hashSlots[entry] = slot + 1;
+        if (2 * cityCount > hashSlots.length) { //Table is half full, doubles its capacity
+            growHashSlots();
+        }
+        return slot;
+    }
+
+    /**
+     * Doubles the capacity of the hash table and puts the touched cities into it again.
+     */
+    private void growHashSlots() {
+        hashSlots = new int[2 * hashSlots.length];
+        int mask = hashSlots.length - 1;
+        for (int slot = 0; slot < cityCount; slot++) {
+            int entry = mix(cities[slot]) & mask;
+            while (hashSlots[entry] != 0) {
+                entry = (entry + 1) & mask;
+            }
+            hashSlots[entry] = slot + 1;
+        }
+    }
+
+    /**
+     * Spreads the bits of a city ID, so that consecutive IDs fall into distant entries.
+     *
+     * @param city the ID of the city
+     * @return the spread hash of the city
+     */
+    private static int mix(int city) {
+        int hash = city * 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * Returns the city of the given slot.
+     *
+     * @param slot the slot of the city
+     * @return the ID of the city
+     */
+    public int getCity(int slot) {
+        return cities[slot];
+    }
+
+    /**
+     * Returns the distance of the city of the given slot found so far.
+     *
+     * @param slot the slot of the city
+     * @return the distance of the city
+     */
+    public int getDistance(int slot) {
+        return distances[slot];
+    }
+
+    /**
+     * Returns whether the fastest route to the city of the given slot is found.
+     *
+     * @param slot the slot of the city
+     * @return true if the city is reached, false otherwise
+     */
+    public boolean isReached(int slot) {
+        return isReached[slot];
+    }
+
+    /**
+     * Sets the distance of the city of the given slot and adds it to the heap, if the key is smaller than its current key.
+     *
+     * @param slot     the slot of the city
+     * @param distance the distance of the city
+     * @param key      the priority key of the city, smaller key has higher priority
+     * @return true if the city is added to the heap, false if its current key is not larger
+     */
+    public boolean offer(int slot, int distance, long key) {
+        if (isReached[slot] || key >= keys[slot]) {
+            return false;
+        }
+        distances[slot] = distance;
+        keys[slot] = key;
+        if (heapSize == heapKeys.length) { //Heap is full, doubles its capacity
+            heapKeys = Arrays.copyOf(heapKeys, 2 * heapSize);
+            heapSlots = Arrays.copyOf(heapSlots, 2 * heapSize);
+        }
+        //Moves the new entry up until its parent has a smaller key
+        int position = heapSize++;
+        while (position > 0 && heapKeys[(position - 1) / 2] > key) {
+            heapKeys[position] = heapKeys[(position - 1) / 2];
+            heapSlots[position] = heapSlots[(position - 1) / 2];
+            position = (position - 1) / 2;
+        }
+        heapKeys[position] = key;
+        heapSlots[position] = slot;
+        return true;
+    }
+
+    /**
+     * Removes the city with the smallest key from the heap and marks it as reached.
+     * Entries of cities that are reached before or whose keys are decreased after are skipped.
+     *
+     * @return the slot of the reached city, -1 if no city is left
+     */
+    public int pollReached() {
+        while (heapSize > 0) {
+            long key = heapKeys[0];
+            int slot = heapSlots[0];
+            removeMin();
+            if (!isReached[slot] && keys[slot] == key) {
+                isReached[slot] = true;
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Removes the entry at the top of the heap, moving the last entry down from the top.
+     */
+    private void removeMin() {
+        heapSize--;
+        long key = heapKeys[heapSize];
+        int slot = heapSlots[heapSize];
+        int position = 0;
+        while (2 * position + 1 < heapSize) {
+            int child = 2 * position + 1;
+            if (child + 1 < heapSize && heapKeys[child + 1] < heapKeys[child]) {
+                child++;
+            }
+            if (heapKeys[child] >= key) {
+                break;
+            }
+            heapKeys[position] = heapKeys[child];
+            heapSlots[position] = heapSlots[child];
+            position = child;
+        }
+        heapKeys[position] = key;
+        heapSlots[position] = slot;
+    }
+}
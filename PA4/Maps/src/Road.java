@@ -1,28 +1,26 @@
 /**
- * This class represents a road with two endpoints, a length, an ID, and a string representation message.
+ * This class represents a road with two endpoints, a length and an ID.
+ * It is created from a {@code RoadGraph} when a road is going to be written to output.
  */
 public class Road {
     private final String firstEnd;
     private final String secondEnd;
     private final int length;
     private final int id;
-    private final String toStr;
 
     /**
-     * Constructs a new Road object with the specified endpoints, length, ID, and string representation message.
+     * Constructs a new Road object with the specified endpoints, length and ID.
      *
      * @param firstEnd  the name of the first endpoint of the road
      * @param secondEnd the name of the second endpoint of the road
      * @param length    the length of the road
      * @param id        the unique identifier of the road
-     * @param toStr     the string representation of the road
      */
-    Road(String firstEnd, String secondEnd, int length, int id, String toStr) {
+    Road(String firstEnd, String secondEnd, int length, int id) {
         this.firstEnd = firstEnd;
         this.secondEnd = secondEnd;
         this.length = length;
         this.id = id;
-        this.toStr = toStr;
     }
 
     /**
@@ -62,12 +60,12 @@ public class Road {
     }
 
     /**
-     * Returns the string representation of the road.
+     * Returns the string representation of the road, in the same format as the input lines.
      *
-     * @return the string representation of the road
+     * @return the string representation of the road ("<FirstEnd>\t<SecondEnd>\t<Length>\t<ID>")
      */
     @Override
     public String toString() {
-        return toStr;
+        return firstEnd + "\t" + secondEnd + "\t" + length + "\t" + id;
     }
 }
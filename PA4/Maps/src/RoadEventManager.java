@@ -0,0 +1,93 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+/**
+ * This class keeps the barely connected map up to date over a stream of road events, without creating it again.
+ * Events are read from a file line by line, and lines are grouped into batches separated by empty lines.
+ * Each event line is at structure ("ADD_ROAD\t<FirstEnd>\t<SecondEnd>\t<Length>\t<ID>") or ("CLOSE_ROAD\t<ID>"),
+ * and the roads of the barely connected map are written to the output after each batch.
+ */
+public class RoadEventManager {
+
+    /**
+     * Applies the road events in the event file to the barely connected map of the graph,
+     * and writes the barely connected map to the output after each batch, flushing the output at the end of each batch.
+     *
+     * @param graph                a graph containing all roads connecting the cities
+     * @param barelyConnectedRoads road indices of the barely connected map of the graph
+     * @param eventFilePath        the path of the file to read the events from
+     * @param output               the output to write the barely connected maps to
+     */
+    public static void applyRoadEvents(RoadGraph graph, int[] barelyConnectedRoads, String eventFilePath, OutputSink output) {
+        DynamicSpanningForest forest = new DynamicSpanningForest(graph, barelyConnectedRoads);
+
+        try (BufferedReader reader = Files.newBufferedReader(Paths.get(eventFilePath))) {
+
+            boolean isBatchEmpty = true;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.trim().isEmpty()) { //End of a batch
+                    if (!isBatchEmpty) {
+                        writeBarelyConnectedMap(output, forest);
+                        isBatchEmpty = true;
+                    }
+                    continue;
+                }
+                applyRoadEvent(output, forest, line.trim());
+                isBatchEmpty = false;
+            }
+            if (!isBatchEmpty) { //Last batch which is not followed by an empty line
+                writeBarelyConnectedMap(output, forest);
+            }
+
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Applies a single road event to the barely connected map.
+     * Events that cannot be applied are reported to the output instead.
+     *
+     * @param output the output to write to
+     * @param forest the barely connected map to update
+     * @param event  the event line
+     */
+    private static void applyRoadEvent(OutputSink output, DynamicSpanningForest forest, String event) {
+        String[] fields = event.split("\t");
+        try {
+            if (fields[0].equals("ADD_ROAD") && fields.length == 5) {
+                if (!forest.addRoad(fields[1], fields[2], Integer.parseInt(fields[3]), Integer.parseInt(fields[4]))) {
+                    output.writeLine(String.format("There is already an open road with ID %s!", fields[4]));
+                }
+                return;
+            }
+            if (fields[0].equals("CLOSE_ROAD") && fields.length == 2) {
+                if (!forest.closeRoad(Integer.parseInt(fields[1]))) {
+                    output.writeLine(String.format("There is no open road with ID %s!", fields[1]));
+                }
+                return;
+            }
+        } catch (NumberFormatException e) { //Reported as an invalid event below
+        }
+        output.writeLine(String.format("Invalid road event: %s", event));
+    }
+
+    /**
+     * Writes the roads of the barely connected map, in the same format as {@code OutputManager.writeBarelyConnectedMap},
+     * and flushes the output so that the map of each batch is complete in the file.
+     *
+     * @param output the output to write to
+     * @param forest the barely connected map
+     */
+    private static void writeBarelyConnectedMap(OutputSink output, DynamicSpanningForest forest) {
+        output.writeLine("Roads of Barely Connected Map is:");
+        for (Road road : forest.getBarelyConnectedRoads()) {
+            //toString() method is overridden to give an informative message of the road
+            output.writeLine(road.toString());
+        }
+        output.flush();
+    }
+}
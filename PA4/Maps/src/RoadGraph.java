@@ -0,0 +1,397 @@
+import java.nio.IntBuffer;
+import java.util.Arrays;
+
+/**
+ * This class represents a road map in compressed sparse row form.
+ * Every city name is kept once and is given an integer ID in order of first appearance.
+ * Roads are kept in integer buffers indexed by road index (order of being added),
+ * and roads connecting each city are kept as an edge slice of integer buffers,
+ * sorted by road length, and by road ID if lengths are equal.
+ * Buffers either wrap arrays of a graph built in memory, or are mapped from a graph file without being copied.
+ */
+public class RoadGraph {
+    private final CityNameTable cityNames; //City name of each city ID and city ID of each city name
+
+    private final IntBuffer roadFirstEnds; //First end city ID of each road
+    private final IntBuffer roadSecondEnds; //Second end city ID of each road
+    private final IntBuffer roadLengths; //Length of each road
+    private final IntBuffer roadIds; //Unique identifier of each road
+
+    private final IntBuffer edgeOffsets; //Edges of city c are in range [edgeOffsets[c], edgeOffsets[c + 1])
+    private final IntBuffer edgeTargets; //City ID at the other end of each edge
+    private final IntBuffer edgeLengths; //Length of the road of each edge
+    private final IntBuffer edgeRoads; //Road index of each edge
+
+    private volatile ReachabilityIndex reachabilityIndex; //Connected parts of the graph, built on first use
+
+    /**
+     * Constructs a graph from the given cities and roads, and creates sorted edge slices of cities.
+     *
+     * @param cityNames      city names and IDs of cities
+     * @param roadFirstEnds  first end city IDs of roads
+     * @param roadSecondEnds second end city IDs of roads
+     * @param roadLengths    lengths of roads
+     * @param roadIds        unique identifiers of roads
+     */
+    RoadGraph(CityNameTable cityNames, int[] roadFirstEnds, int[] roadSecondEnds, int[] roadLengths, int[] roadIds) {
+        this.cityNames = cityNames;
+        this.roadFirstEnds = IntBuffer.wrap(roadFirstEnds);
+        this.roadSecondEnds = IntBuffer.wrap(roadSecondEnds);
+        this.roadLengths = IntBuffer.wrap(roadLengths);
+        this.roadIds = IntBuffer.wrap(roadIds);
+
+        int cityCount = cityNames.getCityCount();
+        int roadCount = roadLengths.length;
+
+        //Counts roads connecting to each city, a road is counted for both of its ends
+        int[] offsets = new int[cityCount + 1];
+        for (int road = 0; road < roadCount; road++) {
+            offsets[roadFirstEnds[road] + 1]++;
+            offsets[roadSecondEnds[road] + 1]++;
+        }
+        for (int city = 0; city < cityCount; city++) {
+            offsets[city + 1] += offsets[city];
+        }
+
+        int[] targets = new int[2 * roadCount];
+        int[] lengths = new int[2 * roadCount];
+        int[] roads = new int[2 * roadCount];
+
+        //Roads are placed in ascending order of length, so that each city's edge slice is sorted too
+        int[] nextEdges = Arrays.copyOf(offsets, cityCount);
+        for (int road : getRoadsSortedByLength()) {
+            int edge = nextEdges[roadFirstEnds[road]]++;
+            targets[edge] = roadSecondEnds[road];
+            lengths[edge] = roadLengths[road];
+            roads[edge] = road;
+            edge = nextEdges[roadSecondEnds[road]]++;
+            targets[edge] = roadFirstEnds[road];
+            lengths[edge] = roadLengths[road];
+            roads[edge] = road;
+        }
+        edgeOffsets = IntBuffer.wrap(offsets);
+        edgeTargets = IntBuffer.wrap(targets);
+        edgeLengths = IntBuffer.wrap(lengths);
+        edgeRoads = IntBuffer.wrap(roads);
+    }
+
+    /**
+     * Constructs a graph over the given buffers, whose edge slices are already created and sorted,
+     * such as buffers of a memory-mapped graph file. Buffers are only read, they are not copied.
+     *
+     * @param cityNames      city names and IDs of cities
+     * @param roadFirstEnds  first end city IDs of roads
+     * @param roadSecondEnds second end city IDs of roads
+     * @param roadLengths    lengths of roads
+     * @param roadIds        unique identifiers of roads
+     * @param edgeOffsets    offsets of edge slices of cities
+     * @param edgeTargets    city ID at the other end of each edge
+     * @param edgeLengths    length of the road of each edge
+     * @param edgeRoads      road index of each edge
+     */
+    RoadGraph(CityNameTable cityNames, IntBuffer roadFirstEnds, IntBuffer roadSecondEnds, IntBuffer roadLengths, IntBuffer roadIds,
+              IntBuffer edgeOffsets, IntBuffer edgeTargets, IntBuffer edgeLengths, IntBuffer edgeRoads) {
+        this.cityNames = cityNames;
+        this.roadFirstEnds = roadFirstEnds;
+        this.roadSecondEnds = roadSecondEnds;
+        this.roadLengths = roadLengths;
+        this.roadIds = roadIds;
+        this.edgeOffsets = edgeOffsets;
+        this.edgeTargets = edgeTargets;
+        this.edgeLengths = edgeLengths;
+        this.edgeRoads = edgeRoads;
+    }
+
+    /**
+     * Creates a graph consisting of the same cities and the given roads of this graph.
+     * City IDs are the same for both graphs, road indices are renumbered in the given order.
+     *
+     * @param roads road indices of this graph to keep
+     * @return a new graph that has all cities of this graph and only the given roads
+     */
+    public RoadGraph createSubgraph(int[] roads) {
+        int[] firstEnds = new int[roads.length];
+        int[] secondEnds = new int[roads.length];
+        int[] lengths = new int[roads.length];
+        int[] ids = new int[roads.length];
+        for (int i = 0; i < roads.length; i++) {
+            firstEnds[i] = roadFirstEnds.get(roads[i]);
+            secondEnds[i] = roadSecondEnds.get(roads[i]);
+            lengths[i] = roadLengths.get(roads[i]);
+            ids[i] = roadIds.get(roads[i]);
+        }
+        return new RoadGraph(cityNames, firstEnds, secondEnds, lengths, ids);
+    }
+
+    /**
+     * Sorts the given road indices by road length, and by road ID if lengths are equal.
+     *
+     * @param roads road indices of this graph
+     * @return the same array sorted
+     */
+    public int[] sortRoadIndicesByLength(int[] roads) {
+        long[] keys = new long[roads.length];
+        //First sorts by road ID, position in the array is kept in lower bits
+        for (int i = 0; i < roads.length; i++) {
+            keys[i] = ((long) roadIds.get(roads[i]) << 32) | i;
+        }
+        Arrays.parallelSort(keys);
+        int[] sortedById = new int[roads.length];
+        for (int i = 0; i < roads.length; i++) {
+            sortedById[i] = roads[(int) keys[i]];
+        }
+        //Then sorts by road length, position in ID order is kept in lower bits so equal lengths stay in ID order
+        for (int i = 0; i < roads.length; i++) {
+            keys[i] = ((long) roadLengths.get(sortedById[i]) << 32) | i;
+        }
+        Arrays.parallelSort(keys);
+        for (int i = 0; i < roads.length; i++) {
+            roads[i] = sortedById[(int) keys[i]];
+        }
+        return roads;
+    }
+
+    /**
+     * Returns indices of all roads sorted by road length, and by road ID if lengths are equal.
+     * Roads having the same length and ID are kept in order of being added.
+     *
+     * @return a new array of all road indices in ascending order of length and ID
+     */
+    public int[] getRoadsSortedByLength() {
+        int[] roads = new int[roadLengths.limit()];
+        for (int road = 0; road < roads.length; road++) {
+            roads[road] = road;
+        }
+        return sortRoadIndicesByLength(roads);
+    }
+
+    /**
+     * Changes the length of the given road, and moves its edges so that edge slices stay sorted by road length and ID.
+     * Graph is the same as if it is built with the new length.
+     * Pre-condition: Graph must be built in memory, such as by {@code createSubgraph}, not mapped from a graph file.
+     *
+     * @param road   the road index
+     * @param length the new length of the road
+     */
+    public void setRoadLength(int road, int length) {
+        roadLengths.put(road, length);
+        sortEdgeSlice(roadFirstEnds.get(road), road, length);
+        if (roadSecondEnds.get(road) != roadFirstEnds.get(road)) {
+            sortEdgeSlice(roadSecondEnds.get(road), road, length);
+        }
+    }
+
+    /**
+     * Writes the new length to edges of the given road in the given city's edge slice, and sorts the slice again.
+     * Slice is sorted by insertion, which only moves the changed edges as the rest of the slice is already sorted.
+     *
+     * @param city   the ID of the city
+     * @param road   the road index
+     * @param length the new length of the road
+     */
+    private void sortEdgeSlice(int city, int road, int length) {
+        int start = edgeOffsets.get(city);
+        int end = edgeOffsets.get(city + 1);
+        for (int edge = start; edge < end; edge++) {
+            if (edgeRoads.get(edge) == road) {
+                edgeLengths.put(edge, length);
+            }
+        }
+        for (int i = start + 1; i < end; i++) {
+            int target = edgeTargets.get(i);
+            int edgeLength = edgeLengths.get(i);
+            int edgeRoad = edgeRoads.get(i);
+            int edge = i;
+            //Edges are ordered by road length, then by road ID, then by road index as they are in a new graph
+            while (edge > start && compareEdge(edge - 1, edgeLength, edgeRoad) > 0) {
+                edgeTargets.put(edge, edgeTargets.get(edge - 1));
+                edgeLengths.put(edge, edgeLengths.get(edge - 1));
+                edgeRoads.put(edge, edgeRoads.get(edge - 1));
+                edge--;
+            }
+            edgeTargets.put(edge, target);
+            edgeLengths.put(edge, edgeLength);
+            edgeRoads.put(edge, edgeRoad);
+        }
+    }
+
+    /**
+     * Compares the given edge with an edge of the given length and road.
+     *
+     * @param edge   the edge index
+     * @param length the length of the other edge
+     * @param road   the road index of the other edge
+     * @return a negative number if the edge comes first, a positive number if the other edge comes first, 0 if they are equal
+     */
+    private int compareEdge(int edge, int length, int road) {
+        if (edgeLengths.get(edge) != length) {
+            return Integer.compare(edgeLengths.get(edge), length);
+        }
+        if (roadIds.get(edgeRoads.get(edge)) != roadIds.get(road)) {
+            return Integer.compare(roadIds.get(edgeRoads.get(edge)), roadIds.get(road));
+        }
+        return Integer.compare(edgeRoads.get(edge), road);
+    }
+
+    /**
+     * Returns the number of cities in the graph.
+     *
+     * @return the number of cities
+     */
+    public int getCityCount() {
+        return cityNames.getCityCount();
+    }
+
+    /**
+     * Returns the number of roads in the graph.
+     *
+     * @return the number of roads
+     */
+    public int getRoadCount() {
+        return roadLengths.limit();
+    }
+
+    /**
+     * Returns the ID of the city with the given name.
+     *
+     * @param cityName the name of the city
+     * @return the ID of the city, -1 if there is no such a city
+     */
+    public int getCityId(String cityName) {
+        return cityNames.getCityId(cityName);
+    }
+
+    /**
+     * Returns the name of the city with the given ID.
+     *
+     * @param city the ID of the city
+     * @return the name of the city
+     */
+    public String getCityName(int city) {
+        return cityNames.getCityName(city);
+    }
+
+    /**
+     * Returns the offset of the given city's edge slice.
+     * Edges of city c are in range [getEdgeOffset(c), getEdgeOffset(c + 1)).
+     *
+     * @param city the ID of the city, or the city count for the end of the last slice
+     * @return the index of the first edge of the city
+     */
+    public int getEdgeOffset(int city) {
+        return edgeOffsets.get(city);
+    }
+
+    /**
+     * Returns the city ID at the other end of the given edge.
+     *
+     * @param edge the edge index
+     * @return the ID of the neighbor city
+     */
+    public int getEdgeTarget(int edge) {
+        return edgeTargets.get(edge);
+    }
+
+    /**
+     * Returns the length of the road of the given edge.
+     *
+     * @param edge the edge index
+     * @return the length of the road
+     */
+    public int getEdgeLength(int edge) {
+        return edgeLengths.get(edge);
+    }
+
+    /**
+     * Returns the road index of the given edge.
+     *
+     * @param edge the edge index
+     * @return the road index
+     */
+    public int getEdgeRoad(int edge) {
+        return edgeRoads.get(edge);
+    }
+
+    /**
+     * Returns the city ID of the first end of the given road.
+     *
+     * @param road the road index
+     * @return the ID of the first end city
+     */
+    public int getRoadFirstEnd(int road) {
+        return roadFirstEnds.get(road);
+    }
+
+    /**
+     * Returns the city ID of the second end of the given road.
+     *
+     * @param road the road index
+     * @return the ID of the second end city
+     */
+    public int getRoadSecondEnd(int road) {
+        return roadSecondEnds.get(road);
+    }
+
+    /**
+     * Returns the length of the given road.
+     *
+     * @param road the road index
+     * @return the length of the road
+     */
+    public int getRoadLength(int road) {
+        return roadLengths.get(road);
+    }
+
+    /**
+     * Returns the unique identifier of the given road.
+     *
+     * @param road the road index
+     * @return the identifier of the road
+     */
+    public int getRoadId(int road) {
+        return roadIds.get(road);
+    }
+
+    /**
+     * Returns the index of connected parts of the graph, it is built on first call and kept.
+     * Only the first calls take the lock, so calls of every query on worker threads do not wait for each other.
+     *
+     * @return the reachability index of the graph
+     */
+    public ReachabilityIndex getReachabilityIndex() {
+        ReachabilityIndex index = reachabilityIndex;
+        if (index == null) {
+            synchronized (this) {
+                index = reachabilityIndex;
+                if (index == null) { //Not built by another thread while waiting for the lock
+                    index = ReachabilityIndex.build(this);
+                    reachabilityIndex = index;
+                }
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Creates a Road object of the given road to represent it in output.
+     *
+     * @param road the road index
+     * @return a new Road object with city names, length and ID of the road
+     */
+    public Road getRoad(int road) {
+        return new Road(getCityName(getRoadFirstEnd(road)), getCityName(getRoadSecondEnd(road)), getRoadLength(road), getRoadId(road));
+    }
+
+    /**
+     * Calculates the total length of all roads in the graph.
+     *
+     * @return the sum of lengths of all roads
+     */
+    public long getTotalRoadLength() {
+        long totalLength = 0;
+        for (int road = 0; road < roadLengths.limit(); road++) {
+            totalLength += roadLengths.get(road);
+        }
+        return totalLength;
+    }
+}
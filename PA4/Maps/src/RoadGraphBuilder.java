@@ -0,0 +1,81 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * This class collects roads one by one and builds a {@code RoadGraph} from them.
+ * City names are interned to integer IDs in order of first appearance,
+ * so each name is kept only once however many roads connect to it.
+ */
+public class RoadGraphBuilder {
+    private final ArrayList<String> cityNames = new ArrayList<>(); //City name of each city ID
+    private final HashMap<String, Integer> cityIds = new HashMap<>(); //City ID of each city name
+
+    private int[] roadFirstEnds = new int[16];
+    private int[] roadSecondEnds = new int[16];
+    private int[] roadLengths = new int[16];
+    private int[] roadIds = new int[16];
+    private int roadCount;
+
+    /**
+     * Adds a road between the given cities. Cities are added too if they are not added before.
+     *
+     * @param firstEnd  the name of the first endpoint of the road
+     * @param secondEnd the name of the second endpoint of the road
+     * @param length    the length of the road
+     * @param id        the unique identifier of the road
+     */
+    public void addRoad(String firstEnd, String secondEnd, int length, int id) {
+        addRoad(addCity(firstEnd), addCity(secondEnd), length, id);
+    }
+
+    /**
+     * Adds a road between the cities with given IDs.
+     * Pre-condition: Both cities must have been added before.
+     *
+     * @param firstEnd  the ID of the first endpoint of the road
+     * @param secondEnd the ID of the second endpoint of the road
+     * @param length    the length of the road
+     * @param id        the unique identifier of the road
+     */
+    public void addRoad(int firstEnd, int secondEnd, int length, int id) {
+        if (roadCount == roadLengths.length) { //Arrays are full, doubles their capacity
+            roadFirstEnds = Arrays.copyOf(roadFirstEnds, 2 * roadCount);
+            roadSecondEnds = Arrays.copyOf(roadSecondEnds, 2 * roadCount);
+            roadLengths = Arrays.copyOf(roadLengths, 2 * roadCount);
+            roadIds = Arrays.copyOf(roadIds, 2 * roadCount);
+        }
+        roadFirstEnds[roadCount] = firstEnd;
+        roadSecondEnds[roadCount] = secondEnd;
+        roadLengths[roadCount] = length;
+        roadIds[roadCount] = id;
+        roadCount++;
+    }
+
+    /**
+     * Returns the ID of the city with the given name, gives a new ID if the city is not added before.
+     *
+     * @param cityName the name of the city
+     * @return the ID of the city
+     */
+    public int addCity(String cityName) {
+        Integer cityId = cityIds.get(cityName);
+        if (cityId == null) { //City is not added before
+            cityId = cityNames.size();
+            cityIds.put(cityName, cityId);
+            cityNames.add(cityName);
+        }
+        return cityId;
+    }
+
+    /**
+     * Builds the graph of all cities and roads added so far.
+     *
+     * @return a new graph in compressed sparse row form
+     */
+    public RoadGraph build() {
+        return new RoadGraph(new HashCityNameTable(cityNames.toArray(new String[0]), cityIds),
+                Arrays.copyOf(roadFirstEnds, roadCount), Arrays.copyOf(roadSecondEnds, roadCount),
+                Arrays.copyOf(roadLengths, roadCount), Arrays.copyOf(roadIds, roadCount));
+    }
+}
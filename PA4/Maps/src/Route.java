@@ -0,0 +1,36 @@
+/**
+ * This class represents a route between two cities, with its total length and roads in order.
+ */
+public class Route {
+    private final int distance;
+    private final int[] roads;
+
+    /**
+     * Constructs a route with the specified length and roads.
+     *
+     * @param distance the total length of the route
+     * @param roads    road indices of the route in order from departure to arrival
+     */
+    public Route(int distance, int[] roads) {
+        this.distance = distance;
+        this.roads = roads;
+    }
+
+    /**
+     * Returns the total length of the route.
+     *
+     * @return the distance travelled along the route
+     */
+    public int getDistance() {
+        return distance;
+    }
+
+    /**
+     * Returns the roads of the route.
+     *
+     * @return road indices of the route in order from departure to arrival
+     */
+    public int[] getRoads() {
+        return roads;
+    }
+}
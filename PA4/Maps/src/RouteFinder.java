@@ -0,0 +1,24 @@
+/**
+ * The RouteFinder interface provides a reference for algorithms that find the fastest route between two cities.
+ * Every implementation finds the same route as {@code MapManager.findShortestPathTree},
+ * including the choice among routes of equal length.
+ * An implementation may keep search state between calls, so an instance must be used by one thread at a time.
+ */
+public interface RouteFinder {
+
+    /**
+     * Finds the fastest route from the departure city to the arrival city.
+     *
+     * @param departure the ID of the departure city
+     * @param arrival   the ID of the arrival city
+     * @return the fastest route, null if arrival city cannot be reached
+     */
+    Route findFastestRoute(int departure, int arrival);
+
+    /**
+     * Returns the number of cities whose distance is settled by the last search, to compare how much of the map is visited.
+     *
+     * @return the number of cities visited by the last search
+     */
+    int getVisitedCityCount();
+}
@@ -0,0 +1,246 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * This class keeps fastest routes of fixed city pairs up to date while road lengths change.
+ * Fastest routes from each departure city are kept in a {@code DynamicShortestPathTree}, which is repaired after each change.
+ * Length updates are read from a file line by line at structure ("<RoadID>\t<NewLength>"),
+ * lines are grouped into batches separated by empty lines, and after each batch only the routes whose roads or length change
+ * are written.
+ * A route is built again only if a city not farther than its arrival city changes its distance or its roads,
+ * and only from the cities on its fastest routes, which are collected back from the arrival city.
+ */
+public class RouteMonitorManager {
+
+    /**
+     * Writes fastest routes of the city pairs in the pair file, then applies the length updates in the update file,
+     * and writes each route again after a batch whenever it changes.
+     * Road lengths are changed on a copy of the graph, the given graph is not changed.
+     *
+     * @param graph          a graph containing all roads connecting the cities
+     * @param pairFilePath   the path of the file of city pairs ("<DepartureCity>\t<ArrivalCity>" per line)
+     * @param updateFilePath the path of the file to read the length updates from
+     * @param output         the output to write the routes to
+     */
+    public static void monitorRoutes(RoadGraph graph, String pairFilePath, String updateFilePath, OutputSink output) {
+        int[] roads = new int[graph.getRoadCount()];
+        for (int road = 0; road < roads.length; road++) {
+            roads[road] = road;
+        }
+        RoadGraph changingGraph = graph.createSubgraph(roads); //Same road indices, lengths can be changed
+        HashMap<Integer, Integer> roadIndices = new HashMap<>(); //Road index of each road ID
+        for (int road = roads.length - 1; road >= 0; road--) {
+            roadIndices.put(changingGraph.getRoadId(road), road);
+        }
+        RouteRebuilder routeBuilder = new RouteRebuilder(changingGraph);
+
+        //Departure cities of monitored pairs share their trees
+        HashMap<Integer, DynamicShortestPathTree> trees = new HashMap<>();
+        ArrayList<MonitoredRoute> routes = new ArrayList<>();
+        StringBuilder text = new StringBuilder();
+        String[] pairs = FileIO.readFile(pairFilePath, true, true);
+        for (String pair : pairs == null ? new String[0] : pairs) {
+            String[] departureAndArrival = pair.split("\t");
+            String departureCity = departureAndArrival[0];
+            String arrivalCity = departureAndArrival.length > 1 ? departureAndArrival[1] : "";
+            int departure = changingGraph.getCityId(departureCity);
+            int arrival = changingGraph.getCityId(arrivalCity);
+            //Parts of the map do not change with lengths, so such pairs never have a route
+            if (departure == -1 || arrival == -1 || !changingGraph.getReachabilityIndex().isReachable(departure, arrival)) {
+                OutputManager.appendNoRouteInformation(text, changingGraph, departureCity, arrivalCity);
+                continue;
+            }
+            DynamicShortestPathTree tree = trees.computeIfAbsent(departure, city -> new DynamicShortestPathTree(changingGraph, city));
+            MonitoredRoute route = new MonitoredRoute(tree, departureCity, arrivalCity, arrival);
+            route.roads = routeBuilder.buildRoute(tree, arrival);
+            route.distance = tree.getDistance(arrival);
+            routes.add(route);
+            OutputManager.appendFastestRouteInformation(text, changingGraph, departureCity, arrivalCity, route.distance, route.roads, false);
+        }
+        output.write(text.toString());
+        output.flush();
+
+        //Smallest distance of a changed city in each tree during the current batch
+        HashMap<DynamicShortestPathTree, Integer> changedDistances = new HashMap<>();
+        try (BufferedReader reader = Files.newBufferedReader(Paths.get(updateFilePath))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.trim().isEmpty()) { //End of a batch
+                    writeChangedRoutes(output, routeBuilder, changingGraph, routes, changedDistances);
+                    continue;
+                }
+                applyLengthUpdate(output, changingGraph, roadIndices, trees, changedDistances, line.trim());
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        writeChangedRoutes(output, routeBuilder, changingGraph, routes, changedDistances);
+    }
+
+    /**
+     * Changes the length of a road and repairs all trees, keeping the smallest distance a tree is changed at.
+     * A road whose ends are reached early changes the order of roads at its ends, so distances of its ends count too.
+     * Updates that cannot be applied are reported to the output instead.
+     *
+     * @param output           the output to write to
+     * @param graph            the graph whose road lengths are changed
+     * @param roadIndices      road index of each road ID
+     * @param trees            trees of departure cities
+     * @param changedDistances smallest distance of a changed city in each tree, updated in place
+     * @param update           the update line
+     */
+    private static void applyLengthUpdate(OutputSink output, RoadGraph graph, HashMap<Integer, Integer> roadIndices,
+                                          HashMap<Integer, DynamicShortestPathTree> trees, HashMap<DynamicShortestPathTree, Integer> changedDistances,
+                                          String update) {
+        String[] fields = update.split("\t");
+        int roadId = 0;
+        int length = -1;
+        if (fields.length == 2) {
+            try {
+                roadId = Integer.parseInt(fields[0]);
+                length = Integer.parseInt(fields[1]);
+            } catch (NumberFormatException e) { //Update is left invalid
+                length = -1;
+            }
+        }
+        if (length < 0) { //Not at structure, or length is negative
+            output.writeLine(String.format("Invalid length update: %s", update));
+            return;
+        }
+        Integer road = roadIndices.get(roadId);
+        if (road == null) {
+            output.writeLine(String.format("There is no road with ID %d!", roadId));
+            return;
+        }
+
+        int oldLength = graph.getRoadLength(road);
+        graph.setRoadLength(road, length);
+        for (DynamicShortestPathTree tree : trees.values()) {
+            int changedDistance = tree.repairRoadLength(road, oldLength);
+            changedDistance = Math.min(changedDistance, Math.min(tree.getDistance(graph.getRoadFirstEnd(road)), tree.getDistance(graph.getRoadSecondEnd(road))));
+            changedDistances.merge(tree, changedDistance, Math::min);
+        }
+    }
+
+    /**
+     * Builds again the routes whose trees are changed at a distance not farther than their arrival cities,
+     * and writes the ones that are different from before. Changes of the batch are cleared and the output is flushed.
+     *
+     * @param output           the output to write to
+     * @param routeBuilder     the route builder over the graph
+     * @param graph            the graph whose road lengths are changed
+     * @param routes           the monitored routes
+     * @param changedDistances smallest distance of a changed city in each tree during the batch
+     */
+    private static void writeChangedRoutes(OutputSink output, RouteRebuilder routeBuilder, RoadGraph graph,
+                                           ArrayList<MonitoredRoute> routes, HashMap<DynamicShortestPathTree, Integer> changedDistances) {
+        StringBuilder text = new StringBuilder();
+        for (MonitoredRoute route : routes) {
+            Integer changedDistance = changedDistances.get(route.tree);
+            int distance = route.tree.getDistance(route.arrival);
+            if (changedDistance == null || changedDistance > Math.max(distance, route.distance)) { //Route cannot change
+                continue;
+            }
+            int[] roads = routeBuilder.buildRoute(route.tree, route.arrival);
+            if (distance != route.distance || !Arrays.equals(roads, route.roads)) {
+                route.distance = distance;
+                route.roads = roads;
+                OutputManager.appendFastestRouteInformation(text, graph, route.departureCity, route.arrivalCity, distance, roads, false);
+            }
+        }
+        output.write(text.toString());
+        output.flush();
+        changedDistances.clear();
+    }
+
+    /**
+     * This class builds fastest routes from the distances of trees, choosing among equal routes the standard one.
+     * Cities on fastest routes are collected back from the arrival city over roads whose length is exactly the difference
+     * of the distances of their ends, so a route is built in the size of its fastest routes, not of the map.
+     * Arrays are kept between routes and cleared only where they are written.
+     */
+    private static class RouteRebuilder {
+        private final RoadGraph graph;
+        private final CanonicalRouteBuilder routeBuilder;
+        private final int[] routeCities; //Cities on fastest routes to the arrival city, in order of being collected
+        private final int[] routeDistances; //Distance of each collected city, same order
+        private final boolean[] isOnRoute;
+
+        /**
+         * Constructs a route builder over the given graph.
+         *
+         * @param graph the graph whose road lengths are changed
+         */
+        private RouteRebuilder(RoadGraph graph) {
+            this.graph = graph;
+            routeBuilder = new CanonicalRouteBuilder(graph);
+            routeCities = new int[graph.getCityCount()];
+            routeDistances = new int[graph.getCityCount()];
+            isOnRoute = new boolean[graph.getCityCount()];
+        }
+
+        /**
+         * Builds the fastest route to the arrival city from the distances of the tree.
+         * Pre-condition: Arrival city must be reached by the tree.
+         *
+         * @param tree    the tree of the departure city
+         * @param arrival the ID of the arrival city
+         * @return road indices of the route in order from departure to arrival
+         */
+        private int[] buildRoute(DynamicShortestPathTree tree, int arrival) {
+            int routeCityCount = 0;
+            routeCities[routeCityCount] = arrival;
+            routeDistances[routeCityCount++] = tree.getDistance(arrival);
+            isOnRoute[arrival] = true;
+            for (int i = 0; i < routeCityCount; i++) {
+                int city = routeCities[i];
+                for (int edge = graph.getEdgeOffset(city); edge < graph.getEdgeOffset(city + 1); edge++) {
+                    int previousCity = graph.getEdgeTarget(edge);
+                    int distance = routeDistances[i] - graph.getEdgeLength(edge);
+                    if (!isOnRoute[previousCity] && distance >= 0 && tree.getDistance(previousCity) == distance) { //Road is on a fastest route
+                        isOnRoute[previousCity] = true;
+                        routeCities[routeCityCount] = previousCity;
+                        routeDistances[routeCityCount++] = distance;
+                    }
+                }
+            }
+            int[] roads = routeBuilder.buildRoute(tree.getDeparture(), arrival, routeCities, routeDistances, routeCityCount);
+            for (int i = 0; i < routeCityCount; i++) {
+                isOnRoute[routeCities[i]] = false;
+            }
+            return roads;
+        }
+    }
+
+    /**
+     * This class keeps a monitored city pair with its last written route.
+     */
+    private static class MonitoredRoute {
+        private final DynamicShortestPathTree tree;
+        private final String departureCity;
+        private final String arrivalCity;
+        private final int arrival;
+        private int distance;
+        private int[] roads;
+
+        /**
+         * Constructs a monitored city pair without a route yet.
+         *
+         * @param tree          the tree of the departure city
+         * @param departureCity the name of the departure city
+         * @param arrivalCity   the name of the arrival city
+         * @param arrival       the ID of the arrival city
+         */
+        private MonitoredRoute(DynamicShortestPathTree tree, String departureCity, String arrivalCity, int arrival) {
+            this.tree = tree;
+            this.departureCity = departureCity;
+            this.arrivalCity = arrivalCity;
+            this.arrival = arrival;
+        }
+    }
+}
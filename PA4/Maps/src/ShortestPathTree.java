@@ -0,0 +1,183 @@
+/**
+ * This class represents the result of a fastest route search from a departure city.
+ * It keeps, for each city reached by the search, the total distance travelled to reach it
+ * and the road and city that come before it, so routes are rebuilt from these parent arrays
+ * instead of keeping a chain of point objects.
+ * A tree can be reused by later searches, only the cities written by the previous search are cleared.
+ */
+public class ShortestPathTree {
+    private int source;
+    private final int[] distances; //Distance travelled to reach each city
+    private final int[] parentRoads; //Road index of the road that leads to each city, -1 for source
+    private final int[] parentCities; //City ID that comes before each city in its route, -1 for source
+    private final boolean[] reached; //Whether the fastest route to each city is found
+    private final int[] touchedCities; //Cities written by the last search, so that the tree can be cleared in O(touched)
+    private int touchedCount;
+    private int reachedCount;
+
+    /**
+     * Constructs an empty tree over the given number of cities, which can be filled by a search and reused.
+     *
+     * @param cityCount the number of cities in the graph
+     */
+    public ShortestPathTree(int cityCount) {
+        distances = new int[cityCount];
+        parentRoads = new int[cityCount];
+        parentCities = new int[cityCount];
+        reached = new boolean[cityCount];
+        touchedCities = new int[cityCount];
+        source = -1;
+    }
+
+    /**
+     * Clears the cities written by the previous search and starts a new tree from the given departure city.
+     *
+     * @param source the ID of the departure city
+     */
+    void clear(int source) {
+        for (int i = 0; i < touchedCount; i++) {
+            reached[touchedCities[i]] = false;
+        }
+        touchedCount = 0;
+        reachedCount = 0;
+        this.source = source;
+        addCity(source, 0, -1, -1);
+    }
+
+    /**
+     * Writes a city found for the first time by the current search with its distance and parent.
+     *
+     * @param city       the ID of the city
+     * @param distance   the distance travelled to reach the city
+     * @param parentRoad the road index of the road that leads to the city, -1 for source
+     * @param parentCity the ID of the city that comes before the city, -1 for source
+     */
+    void addCity(int city, int distance, int parentRoad, int parentCity) {
+        touchedCities[touchedCount++] = city;
+        setParent(city, distance, parentRoad, parentCity);
+    }
+
+    /**
+     * Changes the distance and the parent of the given city, which can still be changed until the city is reached.
+     *
+     * @param city       the ID of the city
+     * @param distance   the distance travelled to reach the city
+     * @param parentRoad the road index of the road that leads to the city
+     * @param parentCity the ID of the city that comes before the city
+     */
+    void setParent(int city, int distance, int parentRoad, int parentCity) {
+        distances[city] = distance;
+        parentRoads[city] = parentRoad;
+        parentCities[city] = parentCity;
+    }
+
+    /**
+     * Marks the given city as reached, so that its distance and parent are final.
+     *
+     * @param city the ID of the city
+     */
+    void markReached(int city) {
+        reached[city] = true;
+        reachedCount++;
+    }
+
+    /**
+     * Returns the ID of the departure city of the tree.
+     *
+     * @return the ID of the departure city
+     */
+    public int getSource() {
+        return source;
+    }
+
+    /**
+     * Returns whether the fastest route to the given city is found.
+     *
+     * @param city the ID of the city
+     * @return true if the city is reached by the search, false otherwise
+     */
+    public boolean isReached(int city) {
+        return reached[city];
+    }
+
+    /**
+     * Returns the number of cities reached by the last search.
+     *
+     * @return the number of reached cities
+     */
+    public int getReachedCount() {
+        return reachedCount;
+    }
+
+    /**
+     * Returns the total distance travelled to reach the given city by the fastest route.
+     * Pre-condition: City must be reached.
+     *
+     * @param city the ID of the city
+     * @return the length of the fastest route to the city
+     */
+    public int getDistance(int city) {
+        return distances[city];
+    }
+
+    /**
+     * Returns the road that leads to the given city in its fastest route.
+     * Pre-condition: City must be reached.
+     *
+     * @param city the ID of the city
+     * @return the road index of the last road of the route, -1 for departure city
+     */
+    public int getParentRoad(int city) {
+        return parentRoads[city];
+    }
+
+    /**
+     * Returns the city that comes before the given city in its fastest route.
+     * Pre-condition: City must be reached.
+     *
+     * @param city the ID of the city
+     * @return the ID of the previous city, -1 for departure city
+     */
+    public int getParentCity(int city) {
+        return parentCities[city];
+    }
+
+    /**
+     * Returns the number of cities the tree is built over.
+     *
+     * @return the number of cities
+     */
+    public int getCityCount() {
+        return distances.length;
+    }
+
+    /**
+     * Estimates the number of bytes the tree keeps in memory, which grows with the number of cities.
+     *
+     * @return the estimated memory size of the tree in bytes
+     */
+    public long getMemorySize() {
+        //Four integer arrays and a boolean array, each has an array header
+        return 4L * (4L * distances.length + 16) + (reached.length + 16) + 64;
+    }
+
+    /**
+     * Rebuilds the fastest route from departure city to the given city by following parent arrays.
+     * Pre-condition: City must be reached.
+     *
+     * @param city the ID of the arrival city
+     * @return road indices of the route in order from departure to arrival
+     */
+    public int[] getRoute(int city) {
+        //Counts roads in the route first so that they can be placed from the end
+        int roadCount = 0;
+        for (int current = city; parentCities[current] != -1; current = parentCities[current]) {
+            roadCount++;
+        }
+        int[] route = new int[roadCount];
+        for (int current = city; parentCities[current] != -1; current = parentCities[current]) {
+            route[--roadCount] = parentRoads[current];
+        }
+        return route;
+    }
+}
@@ -0,0 +1,115 @@
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This class keeps complete shortest path trees of departure cities, so that later queries from the same
+ * departure city are answered by following parent arrays in O(route length) instead of searching again.
+ * Total memory of kept trees is bounded, the least recently used tree is evicted when the bound is exceeded.
+ * It can be used by several threads at once.
+ */
+public class ShortestPathTreeCache {
+    private final RoadGraph graph;
+    private final long maxMemorySize;
+    //Trees of departure cities in access order, least recently used tree comes first
+    private final LinkedHashMap<Integer, ShortestPathTree> trees = new LinkedHashMap<>(16, 0.75f, true);
+    private long memorySize;
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+
+    /**
+     * Constructs an empty cache for the given graph.
+     *
+     * @param graph         a graph containing all roads connecting the cities
+     * @param maxMemorySize the maximum total memory size of kept trees in bytes
+     */
+    public ShortestPathTreeCache(RoadGraph graph, long maxMemorySize) {
+        this.graph = graph;
+        this.maxMemorySize = maxMemorySize;
+    }
+
+    /**
+     * Returns the complete shortest path tree of the given departure city.
+     * Tree is taken from the cache if it is kept, otherwise it is found and kept.
+     *
+     * @param departure the ID of the departure city
+     * @return the tree of fastest routes from departure city to all reachable cities
+     */
+    public ShortestPathTree getTree(int departure) {
+        synchronized (this) {
+            ShortestPathTree tree = trees.get(departure);
+            if (tree != null) { //Tree is kept
+                hitCount.incrementAndGet();
+                return tree;
+            }
+        }
+        missCount.incrementAndGet();
+
+        //Searches outside the lock, so that other threads can use the cache meanwhile
+        ShortestPathTree tree = MapManager.findShortestPathTree(graph, departure, -1);
+        synchronized (this) {
+            ShortestPathTree keptTree = trees.putIfAbsent(departure, tree);
+            if (keptTree != null) { //Another thread has found the same tree meanwhile
+                return keptTree;
+            }
+            memorySize += tree.getMemorySize();
+            evictLeastRecentlyUsed(departure);
+        }
+        return tree;
+    }
+
+    /**
+     * Evicts least recently used trees until total memory size is within the bound.
+     * The tree of the given departure city is never evicted, even if it exceeds the bound alone.
+     *
+     * @param departure the ID of the departure city whose tree has just been kept
+     */
+    private void evictLeastRecentlyUsed(int departure) {
+        Iterator<Map.Entry<Integer, ShortestPathTree>> iterator = trees.entrySet().iterator();
+        while (memorySize > maxMemorySize && iterator.hasNext()) {
+            Map.Entry<Integer, ShortestPathTree> entry = iterator.next();
+            if (entry.getKey() == departure) { //Just kept tree
+                continue;
+            }
+            memorySize -= entry.getValue().getMemorySize();
+            iterator.remove();
+        }
+    }
+
+    /**
+     * Returns the number of queries answered by a kept tree.
+     *
+     * @return the number of cache hits
+     */
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    /**
+     * Returns the number of queries that needed a new search.
+     *
+     * @return the number of cache misses
+     */
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    /**
+     * Returns the number of kept trees.
+     *
+     * @return the number of trees in the cache
+     */
+    public synchronized int getTreeCount() {
+        return trees.size();
+    }
+
+    /**
+     * Returns the total memory size of kept trees.
+     *
+     * @return the estimated memory size of the cache in bytes
+     */
+    public synchronized long getMemorySize() {
+        return memorySize;
+    }
+}
@@ -0,0 +1,16 @@
+/**
+ * The SpanningTreeBuilder interface provides a reference for algorithms that find
+ * the roads of a barely connected map, which is a minimum spanning tree of a road map.
+ * Roads are compared by their length, and by their ID if lengths are equal,
+ * so every implementation finds the same roads.
+ */
+public interface SpanningTreeBuilder {
+
+    /**
+     * Finds the roads of the minimum spanning tree of the given graph.
+     *
+     * @param graph a graph containing all roads connecting the cities
+     * @return road indices of the roads that form the barely connected map
+     */
+    int[] findSpanningTreeRoads(RoadGraph graph);
+}
@@ -0,0 +1,280 @@
+import java.util.Arrays;
+
+/**
+ * This class answers route queries on a barely connected map, which is a tree (or a forest if the map is not connected),
+ * so there is exactly one route between two connected cities and it is found without searching.
+ * Each tree is rooted at its first city, and every city keeps its depth, its distance from the root,
+ * and its ancestors 1, 2, 4, ... levels above (binary lifting), so the lowest common ancestor of two cities,
+ * where their route turns from going up to going down, is found in O(log n).
+ * Each city also keeps the longest road among the roads 1, 2, 4, ... levels above it, built on first use,
+ * so the longest road of a route (its bottleneck) is found in O(log n) without walking the route.
+ * Index is only read after it is built, so it can be shared by several threads.
+ */
+public class SpanningTreeIndex {
+    private final RoadGraph forest;
+    private final int[] roots; //Root city of the tree of each city
+    private final int[] depths; //Number of roads from the root to each city
+    private final long[] rootDistances; //Distance from the root to each city
+    private final int[] parentRoads; //Road from each city to its parent, -1 for roots
+    private final int[][] ancestors; //ancestors[k][c] is the city 2^k levels above city c, the root if there is no such a city
+    private volatile int[][] longestRoads; //longestRoads[k][c] is the longest road among 2^k roads above city c, -1 if there is no road
+
+    /**
+     * Builds the index of the given barely connected map.
+     * Pre-condition: Graph must have no cycles, such as the graph returned by {@code MapManager.createBarelyConnectedMap}.
+     *
+     * @param forest a graph whose roads form a tree or a forest
+     */
+    public SpanningTreeIndex(RoadGraph forest) {
+        this.forest = forest;
+        int cityCount = forest.getCityCount();
+        roots = new int[cityCount];
+        depths = new int[cityCount];
+        rootDistances = new long[cityCount];
+        parentRoads = new int[cityCount];
+        int levelCount = Math.max(1, 32 - Integer.numberOfLeadingZeros(cityCount));
+        ancestors = new int[levelCount][cityCount];
+
+        //Visits each tree level by level from its root, parents are visited before their children
+        Arrays.fill(roots, -1);
+        int[] queue = new int[cityCount];
+        for (int root = 0; root < cityCount; root++) {
+            if (roots[root] != -1) { //City belongs to a tree visited before
+                continue;
+            }
+            roots[root] = root;
+            parentRoads[root] = -1;
+            ancestors[0][root] = root;
+            int queueStart = 0;
+            int queueEnd = 0;
+            queue[queueEnd++] = root;
+            while (queueStart < queueEnd) {
+                int city = queue[queueStart++];
+                for (int edge = forest.getEdgeOffset(city); edge < forest.getEdgeOffset(city + 1); edge++) {
+                    int child = forest.getEdgeTarget(edge);
+                    if (roots[child] != -1) { //Parent of the city
+                        continue;
+                    }
+                    roots[child] = root;
+                    depths[child] = depths[city] + 1;
+                    rootDistances[child] = rootDistances[city] + forest.getEdgeLength(edge);
+                    parentRoads[child] = forest.getEdgeRoad(edge);
+                    ancestors[0][child] = city;
+                    queue[queueEnd++] = child;
+                }
+            }
+        }
+
+        //Ancestor 2^k levels above is the ancestor 2^(k-1) levels above the ancestor 2^(k-1) levels above
+        for (int level = 1; level < levelCount; level++) {
+            for (int city = 0; city < cityCount; city++) {
+                ancestors[level][city] = ancestors[level - 1][ancestors[level - 1][city]];
+            }
+        }
+    }
+
+    /**
+     * Returns whether there is a route between the given cities on the barely connected map.
+     *
+     * @param firstCity  the ID of the first city
+     * @param secondCity the ID of the second city
+     * @return true if both cities are in the same tree, false otherwise
+     */
+    public boolean isConnected(int firstCity, int secondCity) {
+        return roots[firstCity] == roots[secondCity];
+    }
+
+    /**
+     * Finds the lowest common ancestor of the given cities, the highest city on the route between them.
+     * Pre-condition: Cities must be in the same tree.
+     *
+     * @param firstCity  the ID of the first city
+     * @param secondCity the ID of the second city
+     * @return the ID of the lowest common ancestor
+     */
+    public int findLowestCommonAncestor(int firstCity, int secondCity) {
+        if (depths[firstCity] < depths[secondCity]) { //First city is made the deeper one
+            int city = firstCity;
+            firstCity = secondCity;
+            secondCity = city;
+        }
+        firstCity = findAncestor(firstCity, depths[firstCity] - depths[secondCity]);
+        if (firstCity == secondCity) { //Second city is an ancestor of the first city
+            return firstCity;
+        }
+        //Moves both cities up by the largest steps that keep them apart, they end just below the ancestor
+        for (int level = ancestors.length - 1; level >= 0; level--) {
+            if (ancestors[level][firstCity] != ancestors[level][secondCity]) {
+                firstCity = ancestors[level][firstCity];
+                secondCity = ancestors[level][secondCity];
+            }
+        }
+        return ancestors[0][firstCity];
+    }
+
+    /**
+     * Finds the ancestor of the given city the given number of levels above it.
+     *
+     * @param city       the ID of the city
+     * @param levelCount the number of levels to go up, at most the depth of the city
+     * @return the ID of the ancestor
+     */
+    private int findAncestor(int city, int levelCount) {
+        for (int level = 0; levelCount != 0; level++, levelCount >>>= 1) {
+            if ((levelCount & 1) != 0) {
+                city = ancestors[level][city];
+            }
+        }
+        return city;
+    }
+
+    /**
+     * Returns the length of the route between the given cities in O(log n).
+     * Pre-condition: Cities must be in the same tree.
+     *
+     * @param firstCity  the ID of the first city
+     * @param secondCity the ID of the second city
+     * @return the total length of the route
+     */
+    public long getDistance(int firstCity, int secondCity) {
+        int ancestor = findLowestCommonAncestor(firstCity, secondCity);
+        return rootDistances[firstCity] + rootDistances[secondCity] - 2 * rootDistances[ancestor];
+    }
+
+    /**
+     * Returns the roads of the route between the given cities, in O(log n + route length).
+     * Pre-condition: Cities must be in the same tree.
+     *
+     * @param departure the ID of the departure city
+     * @param arrival   the ID of the arrival city
+     * @return road indices of the barely connected map in order from departure to arrival
+     */
+    public int[] getRoute(int departure, int arrival) {
+        int ancestor = findLowestCommonAncestor(departure, arrival);
+        int upwardCount = depths[departure] - depths[ancestor];
+        int[] route = new int[upwardCount + depths[arrival] - depths[ancestor]];
+        //Roads going up from departure city are in order, roads going up from arrival city are placed from the end
+        int i = 0;
+        for (int city = departure; city != ancestor; city = ancestors[0][city]) {
+            route[i++] = parentRoads[city];
+        }
+        i = route.length;
+        for (int city = arrival; city != ancestor; city = ancestors[0][city]) {
+            route[--i] = parentRoads[city];
+        }
+        return route;
+    }
+
+    /**
+     * Finds the longest road on the route between the given cities in O(log n).
+     * Roads of equal length are compared by road ID, so the same road is found whichever city is the departure.
+     * Pre-condition: Cities must be in the same tree.
+     *
+     * @param firstCity  the ID of the first city
+     * @param secondCity the ID of the second city
+     * @return the road index of the barely connected map, -1 if cities are the same
+     */
+    public int findLongestRoad(int firstCity, int secondCity) {
+        int[][] longestRoads = getLongestRoads();
+        if (depths[firstCity] < depths[secondCity]) { //First city is made the deeper one
+            int city = firstCity;
+            firstCity = secondCity;
+            secondCity = city;
+        }
+        //Moves the first city up to the depth of the second city, keeping the longest road on the way
+        int longestRoad = -1;
+        int levelCount = depths[firstCity] - depths[secondCity];
+        for (int level = 0; levelCount != 0; level++, levelCount >>>= 1) {
+            if ((levelCount & 1) != 0) {
+                longestRoad = selectLongerRoad(longestRoad, longestRoads[level][firstCity]);
+                firstCity = ancestors[level][firstCity];
+            }
+        }
+        if (firstCity == secondCity) { //Second city is an ancestor of the first city
+            return longestRoad;
+        }
+        //Moves both cities up to just below their lowest common ancestor, as in finding the ancestor
+        for (int level = ancestors.length - 1; level >= 0; level--) {
+            if (ancestors[level][firstCity] != ancestors[level][secondCity]) {
+                longestRoad = selectLongerRoad(longestRoad, selectLongerRoad(longestRoads[level][firstCity], longestRoads[level][secondCity]));
+                firstCity = ancestors[level][firstCity];
+                secondCity = ancestors[level][secondCity];
+            }
+        }
+        //Roads from both cities to the ancestor are the last roads of the route
+        return selectLongerRoad(longestRoad, selectLongerRoad(parentRoads[firstCity], parentRoads[secondCity]));
+    }
+
+    /**
+     * Returns the longest road on the route between the given cities in O(log n).
+     * Pre-condition: Cities must be in the same tree.
+     *
+     * @param firstCity  the ID of the first city
+     * @param secondCity the ID of the second city
+     * @return a new Road object of the longest road, null if cities are the same
+     */
+    public Road getLongestRoad(int firstCity, int secondCity) {
+        int road = findLongestRoad(firstCity, secondCity);
+        return road == -1 ? null : forest.getRoad(road);
+    }
+
+    /**
+     * Returns the longest road tables of cities, they are built on first call and kept.
+     * Only the first calls take the lock, so queries on worker threads do not wait for each other.
+     *
+     * @return longest roads among 2^k roads above each city, for each level k
+     */
+    private int[][] getLongestRoads() {
+        int[][] roads = longestRoads;
+        if (roads == null) {
+            synchronized (this) {
+                roads = longestRoads;
+                if (roads == null) { //Not built by another thread while waiting for the lock
+                    int cityCount = roots.length;
+                    roads = new int[ancestors.length][];
+                    roads[0] = parentRoads;
+                    //Longest road among 2^k roads is the longer one of the longest roads of two halves
+                    for (int level = 1; level < ancestors.length; level++) {
+                        roads[level] = new int[cityCount];
+                        for (int city = 0; city < cityCount; city++) {
+                            roads[level][city] = selectLongerRoad(roads[level - 1][city], roads[level - 1][ancestors[level - 1][city]]);
+                        }
+                    }
+                    longestRoads = roads;
+                }
+            }
+        }
+        return roads;
+    }
+
+    /**
+     * Selects the longer one of the given roads, the one with greater ID if their lengths are equal.
+     *
+     * @param firstRoad  the road index of the first road, -1 if there is no road
+     * @param secondRoad the road index of the second road, -1 if there is no road
+     * @return the road index of the longer road, -1 if there is neither road
+     */
+    private int selectLongerRoad(int firstRoad, int secondRoad) {
+        if (firstRoad == -1) {
+            return secondRoad;
+        }
+        if (secondRoad == -1) {
+            return firstRoad;
+        }
+        int firstLength = forest.getRoadLength(firstRoad);
+        int secondLength = forest.getRoadLength(secondRoad);
+        if (firstLength != secondLength) {
+            return firstLength > secondLength ? firstRoad : secondRoad;
+        }
+        return forest.getRoadId(firstRoad) >= forest.getRoadId(secondRoad) ? firstRoad : secondRoad;
+    }
+
+    /**
+     * Returns the barely connected map the index is built for.
+     *
+     * @return the graph of the barely connected map
+     */
+    public RoadGraph getForest() {
+        return forest;
+    }
+}
@@ -0,0 +1,76 @@
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+/**
+ * This class runs the stages of an analysis as a graph of dependencies on a pool of worker threads.
+ * A stage starts as soon as all stages it depends on are finished, so stages that do not depend on each other
+ * run at the same time. Stages are given in an order where dependencies come first, so there cannot be a cycle.
+ * If a stage fails, stages depending on it fail with the same error without running.
+ */
+public class StageExecutor implements AutoCloseable {
+    private final ExecutorService workers;
+
+    /**
+     * Constructs an executor with the given number of worker threads.
+     *
+     * @param threadCount the number of worker threads, stages run one at a time in the order they are given if it is 1
+     */
+    public StageExecutor(int threadCount) {
+        workers = Executors.newFixedThreadPool(Math.max(1, threadCount));
+    }
+
+    /**
+     * Adds a stage which runs the given task after the given stages are finished.
+     * Task can read the results of its dependencies by {@code Stage.get} without waiting.
+     *
+     * @param task         the task of the stage, returns the result of the stage
+     * @param dependencies the stages that must be finished before the stage starts
+     * @param <T>          the type of the result of the stage
+     * @return the stage, whose result is ready when its task is finished
+     */
+    public <T> Stage<T> addStage(Supplier<T> task, Stage<?>... dependencies) {
+        CompletableFuture<?>[] dependencyResults = new CompletableFuture<?>[dependencies.length];
+        for (int i = 0; i < dependencies.length; i++) {
+            dependencyResults[i] = dependencies[i].result;
+        }
+        return new Stage<>(CompletableFuture.allOf(dependencyResults).thenApplyAsync(finished -> task.get(), workers));
+    }
+
+    /**
+     * Stops the worker threads. Stages which are not finished yet are cancelled.
+     */
+    @Override
+    public void close() {
+        workers.shutdownNow();
+    }
+
+    /**
+     * This class keeps a stage of an executor with its result.
+     *
+     * @param <T> the type of the result of the stage
+     */
+    public static class Stage<T> {
+        private final CompletableFuture<T> result;
+
+        /**
+         * Constructs a stage whose result is given when its task is finished.
+         *
+         * @param result the result of the task
+         */
+        private Stage(CompletableFuture<T> result) {
+            this.result = result;
+        }
+
+        /**
+         * Waits until the stage is finished and returns its result.
+         * Error of the stage, or of a stage it depends on, is thrown again here as a {@code CompletionException}.
+         *
+         * @return the result of the stage
+         */
+        public T get() {
+            return result.join();
+        }
+    }
+}
@@ -0,0 +1,45 @@
+/**
+ * This class finds routes on a barely connected map from its spanning tree index, without searching.
+ * The route between two cities of a tree is unique, so it is the same route the standard search finds.
+ */
+public class TreeRouteFinder implements RouteFinder {
+    private final SpanningTreeIndex treeIndex;
+    private int visitedCityCount;
+
+    /**
+     * Constructs a route finder over the barely connected map of the given index.
+     *
+     * @param treeIndex the spanning tree index of the barely connected map, it may be shared by several route finders
+     */
+    public TreeRouteFinder(SpanningTreeIndex treeIndex) {
+        this.treeIndex = treeIndex;
+    }
+
+    /**
+     * Finds the only route from the departure city to the arrival city.
+     *
+     * @param departure the ID of the departure city
+     * @param arrival   the ID of the arrival city
+     * @return the route, null if arrival city cannot be reached
+     */
+    @Override
+    public Route findFastestRoute(int departure, int arrival) {
+        if (!treeIndex.isConnected(departure, arrival)) {
+            visitedCityCount = 0;
+            return null;
+        }
+        int[] roads = treeIndex.getRoute(departure, arrival);
+        visitedCityCount = roads.length + 1;
+        return new Route((int) treeIndex.getDistance(departure, arrival), roads);
+    }
+
+    /**
+     * Returns the number of cities on the last route, as no other city is visited.
+     *
+     * @return the number of cities visited by the last search
+     */
+    @Override
+    public int getVisitedCityCount() {
+        return visitedCityCount;
+    }
+}
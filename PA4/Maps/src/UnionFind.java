@@ -0,0 +1,98 @@
+/**
+ * This class represents a disjoint-set forest of integer elements in range [0, size).
+ * Sets are merged by size and paths are compressed while finding, so each operation costs nearly O(1).
+ */
+public class UnionFind {
+    private final int[] parents; //Parent of each element, roots are their own parents
+    private final int[] sizes; //Number of elements in the set of each root
+    private int setCount;
+
+    /**
+     * Constructs a forest where every element is in its own set.
+     *
+     * @param size the number of elements
+     */
+    public UnionFind(int size) {
+        parents = new int[size];
+        sizes = new int[size];
+        for (int element = 0; element < size; element++) {
+            parents[element] = element;
+            sizes[element] = 1;
+        }
+        setCount = size;
+    }
+
+    /**
+     * Finds the root of the set containing the given element, and links all elements on the way directly to the root.
+     *
+     * @param element the element to find its set
+     * @return the root element of the set
+     */
+    public int find(int element) {
+        int root = peekRoot(element);
+        while (parents[element] != root) { //Compresses the path
+            int parent = parents[element];
+            parents[element] = root;
+            element = parent;
+        }
+        return root;
+    }
+
+    /**
+     * Finds the root of the set containing the given element without changing the forest,
+     * so it can be called by several threads at once while no set is being merged.
+     *
+     * @param element the element to find its set
+     * @return the root element of the set
+     */
+    public int peekRoot(int element) {
+        while (parents[element] != element) {
+            element = parents[element];
+        }
+        return element;
+    }
+
+    /**
+     * Merges the sets containing the given elements, smaller set is linked under the larger one.
+     *
+     * @param first  an element of the first set
+     * @param second an element of the second set
+     * @return true if sets are merged, false if elements are already in the same set
+     */
+    public boolean union(int first, int second) {
+        int firstRoot = find(first);
+        int secondRoot = find(second);
+        if (firstRoot == secondRoot) { //Already in the same set
+            return false;
+        }
+        if (sizes[firstRoot] < sizes[secondRoot]) { //Links the smaller set under the larger one
+            int temp = firstRoot;
+            firstRoot = secondRoot;
+            secondRoot = temp;
+        }
+        parents[secondRoot] = firstRoot;
+        sizes[firstRoot] += sizes[secondRoot];
+        setCount--;
+        return true;
+    }
+
+    /**
+     * Returns whether the given elements are in the same set.
+     *
+     * @param first  the first element
+     * @param second the second element
+     * @return true if elements are in the same set, false otherwise
+     */
+    public boolean isConnected(int first, int second) {
+        return find(first) == find(second);
+    }
+
+    /**
+     * Returns the number of disjoint sets.
+     *
+     * @return the number of sets
+     */
+    public int getSetCount() {
+        return setCount;
+    }
+}